@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.time.Instant;
+
+/**
+ * AccessToken : a bearer token and its expiration date
+ */
+public class AccessToken
+{
+    private final String _strValue;
+    private final Instant _expiration;
+
+    /**
+     * Constructor
+     * 
+     * @param strValue
+     *            the token value
+     * @param expiration
+     *            the expiration date, null if the token never expires
+     */
+    public AccessToken( String strValue, Instant expiration )
+    {
+        _strValue = strValue;
+        _expiration = expiration;
+    }
+
+    /**
+     * Gets the token value
+     * 
+     * @return the token value
+     */
+    public String getValue( )
+    {
+        return _strValue;
+    }
+
+    /**
+     * Gets the expiration date
+     * 
+     * @return the expiration date, null if the token never expires
+     */
+    public Instant getExpiration( )
+    {
+        return _expiration;
+    }
+
+    /**
+     * Checks if the token is expired at a given instant
+     * 
+     * @param instant
+     *            the instant
+     * @return true if the token is expired
+     */
+    public boolean isExpiredAt( Instant instant )
+    {
+        return _expiration != null && !instant.isBefore( _expiration );
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * AccessTokenProvider keeping the token of another provider until it expires. When the token gets within the refresh margin of its expiration, it is
+ * still returned while a new one is fetched in the background. Only one fetch runs at a time : concurrent callers waiting for a token share it. The
+ * refresh margin is capped at half the lifetime of each token, so that a short-lived token is not refreshed on every call.
+ */
+public class CachingAccessTokenProvider implements AccessTokenProvider
+{
+    /** The Constant DEFAULT_FETCH_TIMEOUT. */
+    private static final long DEFAULT_FETCH_TIMEOUT = 30000L;
+
+    private static final ExecutorService _refreshExecutor = Executors.newCachedThreadPool( new DaemonThreadFactory( "httpaccess-token-refresh" ) );
+
+    private final AccessTokenProvider _provider;
+    private final long _lRefreshMargin;
+    private final long _lFetchTimeout;
+    private final Clock _clock;
+    private volatile CachedToken _token;
+    private CompletableFuture<AccessToken> _refresh;
+
+    /**
+     * Constructor
+     * 
+     * @param provider
+     *            the provider fetching the tokens
+     * @param lRefreshMargin
+     *            the time in milliseconds before the expiration from which the token is refreshed
+     */
+    public CachingAccessTokenProvider( AccessTokenProvider provider, long lRefreshMargin )
+    {
+        this( provider, lRefreshMargin, DEFAULT_FETCH_TIMEOUT );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param provider
+     *            the provider fetching the tokens
+     * @param lRefreshMargin
+     *            the time in milliseconds before the expiration from which the token is refreshed
+     * @param lFetchTimeout
+     *            the maximum time in milliseconds a caller waits for a token to be fetched
+     */
+    public CachingAccessTokenProvider( AccessTokenProvider provider, long lRefreshMargin, long lFetchTimeout )
+    {
+        this( provider, lRefreshMargin, lFetchTimeout, Clock.systemUTC( ) );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param provider
+     *            the provider fetching the tokens
+     * @param lRefreshMargin
+     *            the time in milliseconds before the expiration from which the token is refreshed
+     * @param lFetchTimeout
+     *            the maximum time in milliseconds a caller waits for a token to be fetched
+     * @param clock
+     *            the clock compared to the expiration of the tokens
+     */
+    CachingAccessTokenProvider( AccessTokenProvider provider, long lRefreshMargin, long lFetchTimeout, Clock clock )
+    {
+        _provider = provider;
+        _lRefreshMargin = lRefreshMargin;
+        _lFetchTimeout = lFetchTimeout;
+        _clock = clock;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public AccessToken getAccessToken( ) throws HttpAccessException
+    {
+        CachedToken cached = _token;
+        Instant now = _clock.instant( );
+
+        if ( cached != null && !cached._token.isExpiredAt( now ) )
+        {
+            if ( cached._refreshAt != null && !now.isBefore( cached._refreshAt ) )
+            {
+                refresh( true );
+            }
+
+            return cached._token;
+        }
+
+        try
+        {
+            return refresh( false ).get( _lFetchTimeout, TimeUnit.MILLISECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new HttpAccessException( "HttpAccess - Interrupted while waiting for an access token", e );
+        }
+        catch( TimeoutException e )
+        {
+            throw new HttpAccessException( "HttpAccess - Timeout while waiting for an access token", e );
+        }
+        catch( ExecutionException e )
+        {
+            if ( e.getCause( ) instanceof HttpAccessException )
+            {
+                throw (HttpAccessException) e.getCause( );
+            }
+            throw new HttpAccessException( "HttpAccess - Unable to get an access token : " + e.getCause( ).getMessage( ), e );
+        }
+    }
+
+    /**
+     * Stop the executor fetching the tokens in the background, called when the services are shut down. It is not restarted : the shutdown is final
+     */
+    static void shutdownRefreshExecutor( )
+    {
+        _refreshExecutor.shutdownNow( );
+    }
+
+    /**
+     * Drop the cached token, so that the next call fetches a new one. To be called when a token is rejected by the server.
+     */
+    public void invalidate( )
+    {
+        _token = null;
+    }
+
+    /**
+     * Start fetching a new token, unless a fetch is already running
+     * 
+     * @param bBackground
+     *            true if no caller waits for the token, the failure of the fetch being then logged
+     * @return the fetch
+     */
+    private synchronized CompletableFuture<AccessToken> refresh( boolean bBackground )
+    {
+        if ( _refresh == null || _refresh.isDone( ) )
+        {
+            CompletableFuture<AccessToken> refresh = new CompletableFuture<>( );
+            _refresh = refresh;
+            try
+            {
+                _refreshExecutor.execute( ( ) -> fetch( refresh, bBackground ) );
+            }
+            catch( RejectedExecutionException e )
+            {
+                refresh.completeExceptionally( new HttpAccessException( "HttpAccess - The services are shut down", e ) );
+            }
+        }
+
+        return _refresh;
+    }
+
+    /**
+     * Fetch a new token from the underlying provider
+     * 
+     * @param refresh
+     *            the future completed with the token
+     * @param bBackground
+     *            true if the fetch was started in the background, its failure being then logged
+     */
+    private void fetch( CompletableFuture<AccessToken> refresh, boolean bBackground )
+    {
+        try
+        {
+            Instant fetched = _clock.instant( );
+            AccessToken token = _provider.getAccessToken( );
+            _token = new CachedToken( token, getRefreshInstant( token, fetched ) );
+            refresh.complete( token );
+        }
+        catch( HttpAccessException | RuntimeException e )
+        {
+            if ( bBackground )
+            {
+                // no caller is waiting : the cached token is kept until it expires
+                AppLogService.error( "HttpAccess - Unable to refresh the access token in the background : " + e.getMessage( ), e );
+            }
+            refresh.completeExceptionally( e );
+        }
+        catch( Error e )
+        {
+            // the waiting callers must not be left blocked
+            refresh.completeExceptionally( e );
+            throw e;
+        }
+        finally
+        {
+            endRefresh( refresh );
+        }
+    }
+
+    /**
+     * Compute the instant from which a token is refreshed in the background
+     * 
+     * @param token
+     *            the token
+     * @param fetched
+     *            the instant the fetch of the token started
+     * @return the instant, null if the token never expires
+     */
+    private Instant getRefreshInstant( AccessToken token, Instant fetched )
+    {
+        if ( token.getExpiration( ) == null )
+        {
+            return null;
+        }
+
+        long lLifetime = Math.max( 0L, Duration.between( fetched, token.getExpiration( ) ).toMillis( ) );
+
+        return token.getExpiration( ).minusMillis( Math.min( _lRefreshMargin, lLifetime / 2 ) );
+    }
+
+    /**
+     * Allow a new fetch to start
+     * 
+     * @param refresh
+     *            the fetch which has ended
+     */
+    private synchronized void endRefresh( CompletableFuture<AccessToken> refresh )
+    {
+        if ( _refresh == refresh )
+        {
+            _refresh = null;
+        }
+    }
+
+    /**
+     * A token and the instant from which it is refreshed
+     */
+    private static final class CachedToken
+    {
+        private final AccessToken _token;
+        private final Instant _refreshAt;
+
+        private CachedToken( AccessToken token, Instant refreshAt )
+        {
+            _token = token;
+            _refreshAt = refreshAt;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.DnsResolver;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * DnsResolver keeping the addresses resolved by another resolver for its own time to live, independently of the caching rules of the JVM. An entry
+ * used after the refresh ratio of its time to live is resolved again in the background, so that the callers don't wait for the DNS while the
+ * addresses of a failover are picked up. Failures are cached for the negative time to live, and static addresses may be given for some hosts.
+ */
+public class CachingDnsResolver implements DnsResolver
+{
+    /** The part of the time to live after which an entry is refreshed in the background. */
+    private static final double REFRESH_RATIO = 0.8;
+
+    private static final ExecutorService _refreshExecutor = Executors.newSingleThreadExecutor( new DaemonThreadFactory( "httpaccess-dns-refresh" ) );
+
+    private final DnsResolver _resolver;
+    private final long _lTtl;
+    private final long _lNegativeTtl;
+    private final Map<String, InetAddress [ ]> _mapStaticHosts;
+    private final Map<String, Entry> _mapEntries = new ConcurrentHashMap<>( );
+    private final AtomicLong _lLookups = new AtomicLong( );
+    private final AtomicLong _lLookupFailures = new AtomicLong( );
+    private final AtomicLong _lLookupTime = new AtomicLong( );
+    private final AtomicLong _lCacheHits = new AtomicLong( );
+
+    /**
+     * Constructor
+     * 
+     * @param resolver
+     *            the resolver looking up the addresses
+     * @param lTtl
+     *            the time in milliseconds the resolved addresses are kept
+     * @param lNegativeTtl
+     *            the time in milliseconds a failed resolution is kept, 0 to retry on each call
+     * @param mapStaticHosts
+     *            the addresses of the hosts that are never looked up, by lower case host name, may be null
+     */
+    public CachingDnsResolver( DnsResolver resolver, long lTtl, long lNegativeTtl, Map<String, InetAddress [ ]> mapStaticHosts )
+    {
+        _resolver = resolver;
+        _lTtl = lTtl;
+        _lNegativeTtl = lNegativeTtl;
+        _mapStaticHosts = ( mapStaticHosts != null ) ? new HashMap<>( mapStaticHosts ) : Collections.emptyMap( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public InetAddress [ ] resolve( String strHost ) throws UnknownHostException
+    {
+        String strKey = strHost.toLowerCase( Locale.ROOT );
+        InetAddress [ ] staticAddresses = _mapStaticHosts.get( strKey );
+        if ( staticAddresses != null )
+        {
+            return staticAddresses.clone( );
+        }
+
+        long lNow = System.currentTimeMillis( );
+        Entry entry = _mapEntries.get( strKey );
+
+        if ( entry == null || lNow >= entry._lExpiration )
+        {
+            entry = lookup( strHost );
+            if ( entry._addresses != null || _lNegativeTtl > 0 )
+            {
+                _mapEntries.put( strKey, entry );
+            }
+        }
+        else
+        {
+            _lCacheHits.incrementAndGet( );
+            if ( entry._addresses != null && lNow >= entry._lRefresh && entry._bRefreshing.compareAndSet( false, true ) )
+            {
+                Entry staleEntry = entry;
+                try
+                {
+                    _refreshExecutor.execute( ( ) -> refresh( strHost, strKey, staleEntry ) );
+                }
+                catch( RejectedExecutionException e )
+                {
+                    // the services are shut down : the stale addresses are served
+                    staleEntry._bRefreshing.set( false );
+                }
+            }
+        }
+
+        if ( entry._addresses == null )
+        {
+            throw new UnknownHostException( entry._strFailure );
+        }
+
+        return entry._addresses.clone( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String resolveCanonicalHostname( String strHost ) throws UnknownHostException
+    {
+        if ( _mapStaticHosts.containsKey( strHost.toLowerCase( Locale.ROOT ) ) )
+        {
+            return strHost;
+        }
+
+        return _resolver.resolveCanonicalHostname( strHost );
+    }
+
+    /**
+     * Drop the cached addresses of a host, so that the next call looks them up
+     * 
+     * @param strHost
+     *            the host name
+     */
+    public void invalidate( String strHost )
+    {
+        _mapEntries.remove( strHost.toLowerCase( Locale.ROOT ) );
+    }
+
+    /**
+     * Drop all the cached addresses
+     */
+    public void clear( )
+    {
+        _mapEntries.clear( );
+    }
+
+    /**
+     * Gets the number of lookups made by the underlying resolver
+     * 
+     * @return the number of lookups
+     */
+    public long getLookups( )
+    {
+        return _lLookups.get( );
+    }
+
+    /**
+     * Gets the number of failed lookups
+     * 
+     * @return the number of failed lookups
+     */
+    public long getLookupFailures( )
+    {
+        return _lLookupFailures.get( );
+    }
+
+    /**
+     * Gets the average time of the lookups
+     * 
+     * @return the average lookup time in milliseconds, 0 if no lookup was made
+     */
+    public double getAverageLookupTime( )
+    {
+        long lLookups = _lLookups.get( );
+
+        return ( lLookups == 0 ) ? 0 : _lLookupTime.get( ) / 1_000_000d / lLookups;
+    }
+
+    /**
+     * Gets the number of resolutions served from the cache
+     * 
+     * @return the number of cache hits
+     */
+    public long getCacheHits( )
+    {
+        return _lCacheHits.get( );
+    }
+
+    /**
+     * Look up the addresses of a host with the underlying resolver
+     * 
+     * @param strHost
+     *            the host name
+     * @return the new entry, negative if the host could not be resolved
+     */
+    private Entry lookup( String strHost )
+    {
+        long lStart = System.nanoTime( );
+        try
+        {
+            InetAddress [ ] addresses = _resolver.resolve( strHost );
+
+            return new Entry( addresses, null, _lTtl );
+        }
+        catch( UnknownHostException e )
+        {
+            _lLookupFailures.incrementAndGet( );
+
+            return new Entry( null, StringUtils.defaultString( e.getMessage( ), strHost ), _lNegativeTtl );
+        }
+        finally
+        {
+            _lLookups.incrementAndGet( );
+            _lLookupTime.addAndGet( System.nanoTime( ) - lStart );
+        }
+    }
+
+    /**
+     * Look up the addresses of a host in the background. The stale addresses are kept until they expire if the lookup fails.
+     * 
+     * @param strHost
+     *            the host name
+     * @param strKey
+     *            the key of the entry
+     * @param staleEntry
+     *            the entry being refreshed
+     */
+    private void refresh( String strHost, String strKey, Entry staleEntry )
+    {
+        Entry entry = lookup( strHost );
+        if ( entry._addresses != null )
+        {
+            _mapEntries.replace( strKey, staleEntry, entry );
+        }
+        else
+        {
+            AppLogService.debug( "HttpAccess - Unable to refresh the addresses of " + strHost + " : " + entry._strFailure );
+            staleEntry._bRefreshing.set( false );
+        }
+    }
+
+    /**
+     * Stop the executor refreshing the entries in the background, called when the services are shut down. It is not restarted : the shutdown is final
+     */
+    static void shutdownRefreshExecutor( )
+    {
+        _refreshExecutor.shutdownNow( );
+    }
+
+    /**
+     * Parse static host addresses, written as host=address|address separated by commas
+     * 
+     * @param strHosts
+     *            the static hosts
+     * @return the addresses by lower case host name
+     */
+    static Map<String, InetAddress [ ]> parseStaticHosts( String strHosts )
+    {
+        Map<String, InetAddress [ ]> mapStaticHosts = new HashMap<>( );
+
+        for ( String strHost : StringUtils.split( StringUtils.defaultString( strHosts ), ',' ) )
+        {
+            String strName = StringUtils.substringBefore( strHost, "=" ).trim( );
+            String [ ] ips = StringUtils.split( StringUtils.substringAfter( strHost, "=" ), '|' );
+
+            try
+            {
+                InetAddress [ ] addresses = new InetAddress [ ips.length];
+                for ( int i = 0; i < ips.length; i++ )
+                {
+                    // the address is a literal, no lookup is made
+                    addresses [i] = InetAddress.getByAddress( strName, InetAddress.getByName( ips [i].trim( ) ).getAddress( ) );
+                }
+                if ( StringUtils.isBlank( strName ) || addresses.length == 0 )
+                {
+                    throw new UnknownHostException( strHost );
+                }
+                mapStaticHosts.put( strName.toLowerCase( Locale.ROOT ), addresses );
+            }
+            catch( UnknownHostException e )
+            {
+                AppLogService.error( "HttpAccess - Invalid static host addresses : " + strHost, e );
+            }
+        }
+
+        return mapStaticHosts;
+    }
+
+    /**
+     * Addresses of a host, or failure to resolve them
+     */
+    private static final class Entry
+    {
+        private final InetAddress [ ] _addresses;
+        private final String _strFailure;
+        private final long _lExpiration;
+        private final long _lRefresh;
+        private final AtomicBoolean _bRefreshing = new AtomicBoolean( );
+
+        /**
+         * Constructor
+         * 
+         * @param addresses
+         *            the addresses, null if the host could not be resolved
+         * @param strFailure
+         *            the failure message
+         * @param lTtl
+         *            the time to live in milliseconds
+         */
+        Entry( InetAddress [ ] addresses, String strFailure, long lTtl )
+        {
+            long lNow = System.currentTimeMillis( );
+            _addresses = addresses;
+            _strFailure = strFailure;
+            _lExpiration = lNow + lTtl;
+            _lRefresh = lNow + (long) ( lTtl * REFRESH_RATIO );
+        }
+    }
+}
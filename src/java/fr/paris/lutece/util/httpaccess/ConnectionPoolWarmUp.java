@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.routing.HttpRoutePlanner;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Warm-up of a connection pool : the hosts are resolved and connections are opened to them in the background, so that the first requests after
+ * startup don't pay the DNS resolution and the TCP and TLS handshakes. A request can then be sent to each url, to warm up the backend as well.
+ */
+class ConnectionPoolWarmUp
+{
+    /** The Constant SEPARATOR. */
+    private static final String SEPARATOR = ",";
+
+    /** The prefix of the identifiers of the leases. */
+    private static final String PREFIX_LEASE_ID = "httpaccess-warmup-";
+
+    /** The maximum time to wait for a connection of the pool. */
+    private static final Timeout LEASE_TIMEOUT = Timeout.ofSeconds( 30 );
+
+    /** The executor running the warm-ups. */
+    private static final ExecutorService _executor = Executors.newCachedThreadPool( new DaemonThreadFactory( "httpaccess-warmup" ) );
+
+    private final HttpAccessService _accessService;
+    private final PoolingHttpClientConnectionManager _connectionManager;
+    private final HttpRoutePlanner _routePlanner;
+    private final DnsResolver _dnsResolver;
+    private final Set<String> _setHttp2Hosts;
+    private final TimeValue _keepAlive;
+    private final AtomicInteger _nOpenedConnections = new AtomicInteger( );
+
+    /**
+     * Constructor
+     * 
+     * @param accessService
+     *            the service sending the warm-up requests
+     * @param connectionManager
+     *            the pool of the blocking connections of the service
+     * @param routePlanner
+     *            the route planner of the client of the service
+     * @param dnsResolver
+     *            the DNS resolver of the service
+     * @param setHttp2Hosts
+     *            the keys of the hosts reached through the HTTP/2 client, whose connections are not pooled
+     * @param keepAlive
+     *            the time the opened connections are kept alive
+     */
+    ConnectionPoolWarmUp( HttpAccessService accessService, PoolingHttpClientConnectionManager connectionManager, HttpRoutePlanner routePlanner,
+            DnsResolver dnsResolver, Set<String> setHttp2Hosts, TimeValue keepAlive )
+    {
+        _accessService = accessService;
+        _connectionManager = connectionManager;
+        _routePlanner = routePlanner;
+        _dnsResolver = dnsResolver;
+        _setHttp2Hosts = setHttp2Hosts;
+        _keepAlive = keepAlive;
+    }
+
+    /**
+     * Start the warm-up of the hosts, in parallel
+     * 
+     * @param strUrls
+     *            the urls of the hosts, separated by commas
+     * @param nConnections
+     *            the number of connections opened to each host
+     * @param strMethod
+     *            the method of the request sent to each url once the connections are opened, null to send no request
+     * @return the warm-up, completed when all the hosts have been warmed up, successfully or not
+     */
+    CompletableFuture<Void> start( String strUrls, int nConnections, String strMethod )
+    {
+        long lStart = System.currentTimeMillis( );
+        List<CompletableFuture<Void>> listWarmUps = new ArrayList<>( );
+        for ( String strUrl : StringUtils.split( strUrls, SEPARATOR ) )
+        {
+            String strTrimmedUrl = strUrl.trim( );
+            listWarmUps.add( CompletableFuture.runAsync( ( ) -> warmUp( strTrimmedUrl, nConnections, strMethod ), _executor ) );
+        }
+
+        return CompletableFuture.allOf( listWarmUps.toArray( new CompletableFuture [ 0] ) )
+                .thenRun( ( ) -> AppLogService.info( "HttpAccess - Warm-up completed in " + ( System.currentTimeMillis( ) - lStart ) + " ms : "
+                        + _nOpenedConnections.get( ) + " connections opened to " + listWarmUps.size( ) + " hosts" ) );
+    }
+
+    /**
+     * Stop the executor running the warm-ups, called when the services are shut down. It is not restarted : the shutdown is final
+     */
+    static void shutdownExecutor( )
+    {
+        _executor.shutdownNow( );
+    }
+
+    /**
+     * Warm up a host : resolve its name, open the connections and send the warm-up request
+     * 
+     * @param strUrl
+     *            the url
+     * @param nConnections
+     *            the number of connections to open
+     * @param strMethod
+     *            the method of the warm-up request, null to send no request
+     */
+    private void warmUp( String strUrl, int nConnections, String strMethod )
+    {
+        try
+        {
+            HttpRoute route = _routePlanner.determineRoute( HttpHost.create( URI.create( strUrl ) ), HttpClientContext.create( ) );
+            HttpHost firstHop = ( route.getProxyHost( ) != null ) ? route.getProxyHost( ) : route.getTargetHost( );
+            _dnsResolver.resolve( firstHop.getHostName( ) );
+
+            // the connections of a tunnel through the proxy are established by the client only, and the HTTP/2 connections are not pooled
+            if ( !route.isTunnelled( ) && !_setHttp2Hosts.contains( HttpAccessService.getHostKey( strUrl ) ) )
+            {
+                openConnections( route, nConnections );
+            }
+
+            if ( strMethod != null )
+            {
+                ClassicHttpRequest request = ClassicRequestBuilder.create( strMethod.toUpperCase( Locale.ROOT ) ).setUri( strUrl ).build( );
+                int nStatus = _accessService.getHttpClient( ).execute( request, _accessService.createHttpContext( ), response -> {
+                    EntityUtils.consume( response.getEntity( ) );
+                    return response.getCode( );
+                } );
+                AppLogService.debug( "HttpAccess - Warm-up request to " + route.getTargetHost( ) + " : " + nStatus );
+            }
+        }
+        catch( IOException | HttpException | IllegalArgumentException | IllegalStateException e )
+        {
+            AppLogService.error( "HttpAccess - Unable to warm up " + strUrl + " : " + e.getMessage( ) );
+        }
+    }
+
+    /**
+     * Open connections to the first hop of a route and put them in the pool
+     * 
+     * @param route
+     *            the route
+     * @param nConnections
+     *            the number of connections, bounded by the maximum number of connections of the route
+     * @throws IOException
+     *             if a connection of the pool can't be obtained
+     */
+    private void openConnections( HttpRoute route, int nConnections ) throws IOException
+    {
+        int nMaxConnections = Math.min( nConnections, _connectionManager.getMaxPerRoute( route ) );
+        List<ConnectionEndpoint> listEndpoints = new ArrayList<>( );
+
+        try
+        {
+            // all the endpoints are leased before being connected so that each of them gets its own connection
+            for ( int i = 0; i < nMaxConnections; i++ )
+            {
+                listEndpoints.add( _connectionManager.lease( PREFIX_LEASE_ID + i, route, LEASE_TIMEOUT, null ).get( LEASE_TIMEOUT ) );
+            }
+
+            List<CompletableFuture<Void>> listConnections = new ArrayList<>( );
+            for ( ConnectionEndpoint endpoint : listEndpoints )
+            {
+                if ( !endpoint.isConnected( ) )
+                {
+                    listConnections.add( CompletableFuture.runAsync( ( ) -> connect( endpoint, route ), _executor ) );
+                }
+            }
+            CompletableFuture.allOf( listConnections.toArray( new CompletableFuture [ 0] ) ).join( );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+        catch( ExecutionException | TimeoutException e )
+        {
+            throw new IOException( "Unable to obtain a connection of the pool", e );
+        }
+        finally
+        {
+            for ( ConnectionEndpoint endpoint : listEndpoints )
+            {
+                _connectionManager.release( endpoint, null, endpoint.isConnected( ) ? _keepAlive : TimeValue.ZERO_MILLISECONDS );
+            }
+        }
+    }
+
+    /**
+     * Connect an endpoint of the pool
+     * 
+     * @param endpoint
+     *            the endpoint
+     * @param route
+     *            the route of the endpoint
+     */
+    private void connect( ConnectionEndpoint endpoint, HttpRoute route )
+    {
+        try
+        {
+            _connectionManager.connect( endpoint, null, HttpClientContext.create( ) );
+            _nOpenedConnections.incrementAndGet( );
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( "HttpAccess - Unable to open a warm-up connection to " + route.getTargetHost( ) + " : " + e.getMessage( ) );
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+/**
+ * Deadline : the instant by which a call must be complete, covering the lease of a connection, the connection, the response headers and the body.
+ * Requests are not sent once their deadline is expired, and are cancelled when it expires while they run. A deadline is an absolute instant, so the
+ * same deadline can be passed to all the calls (retries, batches, ...) made on behalf of one piece of work.
+ * <p>
+ * Deadlines apply to the buffered calls made through a {@link HttpRequestTemplate}. The streaming calls of {@link HttpAccess}
+ * ({@link HttpAccess#streamJSONRecords(String, Class)}, {@link HttpAccess#doGetXML(String, XmlStreamHandler)}, <code>doGetXMLElements</code> and
+ * <code>doGetPaginated</code>) are excluded : their content is read at the pace of the caller, so they are only bounded by the timeouts of the
+ * service.
+ * </p>
+ */
+public final class Deadline
+{
+    private final long _lExpiration;
+
+    /**
+     * Constructor
+     * 
+     * @param lExpiration
+     *            the expiration instant in milliseconds since the epoch
+     */
+    private Deadline( long lExpiration )
+    {
+        _lExpiration = lExpiration;
+    }
+
+    /**
+     * Creates a deadline expiring after a duration
+     * 
+     * @param lMillis
+     *            the duration in milliseconds
+     * @return the deadline
+     */
+    public static Deadline after( long lMillis )
+    {
+        return new Deadline( System.currentTimeMillis( ) + lMillis );
+    }
+
+    /**
+     * Creates a deadline expiring at an instant
+     * 
+     * @param lExpiration
+     *            the expiration instant in milliseconds since the epoch
+     * @return the deadline
+     */
+    public static Deadline at( long lExpiration )
+    {
+        return new Deadline( lExpiration );
+    }
+
+    /**
+     * Gets the earliest of two deadlines
+     * 
+     * @param deadline1
+     *            a deadline, may be null
+     * @param deadline2
+     *            another deadline, may be null
+     * @return the earliest deadline, null if both are null
+     */
+    public static Deadline earliest( Deadline deadline1, Deadline deadline2 )
+    {
+        if ( deadline1 == null )
+        {
+            return deadline2;
+        }
+        if ( deadline2 == null )
+        {
+            return deadline1;
+        }
+
+        return ( deadline1._lExpiration <= deadline2._lExpiration ) ? deadline1 : deadline2;
+    }
+
+    /**
+     * Gets the expiration instant
+     * 
+     * @return the expiration instant in milliseconds since the epoch
+     */
+    public long getExpiration( )
+    {
+        return _lExpiration;
+    }
+
+    /**
+     * Gets the remaining time
+     * 
+     * @return the remaining time in milliseconds, zero or negative if the deadline is expired
+     */
+    public long remaining( )
+    {
+        return _lExpiration - System.currentTimeMillis( );
+    }
+
+    /**
+     * Checks if the deadline is expired
+     * 
+     * @return true if the deadline is expired
+     */
+    public boolean isExpired( )
+    {
+        return remaining( ) <= 0;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+/**
+ * HostCredentials : the user name and password used to authenticate against a target host (Basic or Digest)
+ */
+public class HostCredentials
+{
+    /** The _str url. */
+    private String _strUrl;
+
+    /** The _str user name. */
+    private String _strUserName;
+
+    /** The _str password. */
+    private String _strPassword;
+
+    /** The _b preemptive. */
+    private boolean _bPreemptive;
+
+    /**
+     * Gets the url of the host (scheme, host name and port).
+     *
+     * @return the url
+     */
+    public String getUrl( )
+    {
+        return _strUrl;
+    }
+
+    /**
+     * Sets the url of the host (scheme, host name and port).
+     *
+     * @param strUrl
+     *            the new url
+     */
+    public void setUrl( String strUrl )
+    {
+        this._strUrl = strUrl;
+    }
+
+    /**
+     * Gets the user name.
+     *
+     * @return the user name
+     */
+    public String getUserName( )
+    {
+        return _strUserName;
+    }
+
+    /**
+     * Sets the user name.
+     *
+     * @param strUserName
+     *            the new user name
+     */
+    public void setUserName( String strUserName )
+    {
+        this._strUserName = strUserName;
+    }
+
+    /**
+     * Gets the password.
+     *
+     * @return the password
+     */
+    public String getPassword( )
+    {
+        return _strPassword;
+    }
+
+    /**
+     * Sets the password.
+     *
+     * @param strPassword
+     *            the new password
+     */
+    public void setPassword( String strPassword )
+    {
+        this._strPassword = strPassword;
+    }
+
+    /**
+     * Checks if the Basic credentials are sent without waiting for a challenge.
+     *
+     * @return true if the authentication is preemptive
+     */
+    public boolean isPreemptive( )
+    {
+        return _bPreemptive;
+    }
+
+    /**
+     * Sets if the Basic credentials are sent without waiting for a challenge.
+     *
+     * @param bPreemptive
+     *            true to authenticate preemptively
+     */
+    public void setPreemptive( boolean bPreemptive )
+    {
+        this._bPreemptive = bPreemptive;
+    }
+
+    /**
+     * Create a copy of the credentials
+     *
+     * @return the copy
+     */
+    HostCredentials copy( )
+    {
+        HostCredentials copy = new HostCredentials( );
+        copy._strUrl = _strUrl;
+        copy._strUserName = _strUserName;
+        copy._strPassword = _strPassword;
+        copy._bPreemptive = _bPreemptive;
+
+        return copy;
+    }
+}
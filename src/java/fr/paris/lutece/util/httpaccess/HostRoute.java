@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+/**
+ * HostRoute : the settings of the connections to a target host. The host is reached with HTTP/1.1 or HTTP/2, which is negotiated with ALPN over
+ * TLS (h2) or used with prior knowledge over a cleartext connection (h2c), depending on the scheme of the url. The socket options of the route
+ * override the global ones.
+ */
+public class HostRoute
+{
+    /** The HTTP/1.1 protocol, used by default. */
+    public static final String HTTP_1_1 = "http/1.1";
+
+    /** The HTTP/2 protocol over TLS. */
+    public static final String H2 = "h2";
+
+    /** The HTTP/2 protocol over a cleartext connection, with prior knowledge. */
+    public static final String H2C = "h2c";
+
+    /** The _str url. */
+    private String _strUrl;
+
+    /** The _str protocol. */
+    private String _strProtocol = HTTP_1_1;
+
+    /** The socket options. */
+    private SocketOptions _socketOptions = new SocketOptions( );
+
+    /** The _n max keep alive. */
+    private Integer _nMaxKeepAlive;
+
+    /**
+     * Gets the url of the host (scheme, host name and port).
+     *
+     * @return the url
+     */
+    public String getUrl( )
+    {
+        return _strUrl;
+    }
+
+    /**
+     * Sets the url of the host (scheme, host name and port).
+     *
+     * @param strUrl
+     *            the new url
+     */
+    public void setUrl( String strUrl )
+    {
+        this._strUrl = strUrl;
+    }
+
+    /**
+     * Gets the protocol : http/1.1, h2 or h2c.
+     *
+     * @return the protocol
+     */
+    public String getProtocol( )
+    {
+        return _strProtocol;
+    }
+
+    /**
+     * Sets the protocol : http/1.1, h2 or h2c.
+     *
+     * @param strProtocol
+     *            the new protocol
+     */
+    public void setProtocol( String strProtocol )
+    {
+        this._strProtocol = strProtocol;
+    }
+
+    /**
+     * Gets the socket options of the connections to the host, overriding the global ones.
+     *
+     * @return the socket options
+     */
+    public SocketOptions getSocketOptions( )
+    {
+        return _socketOptions;
+    }
+
+    /**
+     * Sets the socket options of the connections to the host.
+     *
+     * @param socketOptions
+     *            the new socket options
+     */
+    public void setSocketOptions( SocketOptions socketOptions )
+    {
+        this._socketOptions = socketOptions;
+    }
+
+    /**
+     * Gets the maximum time a connection to the host is kept alive, overriding the global maximum.
+     *
+     * @return the maximum keep alive in milliseconds, null for the global maximum
+     */
+    public Integer getMaxKeepAlive( )
+    {
+        return _nMaxKeepAlive;
+    }
+
+    /**
+     * Sets the maximum time a connection to the host is kept alive.
+     *
+     * @param nMaxKeepAlive
+     *            the new maximum keep alive in milliseconds
+     */
+    public void setMaxKeepAlive( Integer nMaxKeepAlive )
+    {
+        this._nMaxKeepAlive = nMaxKeepAlive;
+    }
+
+    /**
+     * Checks if the host is reached with HTTP/2.
+     *
+     * @return true if the protocol is h2 or h2c
+     */
+    public boolean isHttp2( )
+    {
+        return H2.equalsIgnoreCase( _strProtocol ) || H2C.equalsIgnoreCase( _strProtocol );
+    }
+
+    /**
+     * Create a copy of the route, with a copy of its socket options
+     *
+     * @return the copy
+     */
+    HostRoute copy( )
+    {
+        HostRoute copy = new HostRoute( );
+        copy._strUrl = _strUrl;
+        copy._strProtocol = _strProtocol;
+        copy._socketOptions = ( _socketOptions != null ) ? _socketOptions.copy( ) : null;
+        copy._nMaxKeepAlive = _nMaxKeepAlive;
+
+        return copy;
+    }
+}
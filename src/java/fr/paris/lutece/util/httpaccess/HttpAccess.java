@@ -38,17 +38,40 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.lang3.StringUtils;
@@ -57,20 +80,30 @@ import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.cookie.CookieStore;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.Method;
 import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.ProtocolException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
-import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.net.WWWFormCodec;
+import org.apache.hc.core5.util.Timeout;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
@@ -116,12 +149,24 @@ public class HttpAccess
     /** The Constant DEFAULT_CHARSET. */
     private static final String DEFAULT_CHARSET = "UTF-8";
 
+    /** The mapper used to read streamed JSON records. */
+    private static final ObjectMapper _jsonRecordMapper = new ObjectMapper( ).configure( DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false );
+
+    /** The factory of the StAX readers, configured against external entities. */
+    private static final XMLInputFactory _xmlInputFactory = createXmlInputFactory( );
+
+    /** The timer cancelling the requests reaching their deadline. */
+    private static final ScheduledThreadPoolExecutor _deadlineTimer = createDeadlineTimer( );
+
     /** The response validator. */
     private ResponseStatusValidator _responseValidator;
 
     /** The access service. */
     private HttpAccessService _accessService;
 
+    /** The cookie store keeping the session of this HttpAccess, null to use the cookie store of the client. */
+    private CookieStore _cookieStore;
+
     /**
      * Instantiates a new http access.
      */
@@ -169,6 +214,43 @@ public class HttpAccess
         _responseValidator = HttpAccessService.getInstance( );
     }
 
+    /**
+     * Gets the cookie store keeping the session of this HttpAccess
+     * 
+     * @return the cookie store, null if the cookie store of the client is used
+     */
+    public CookieStore getCookieStore( )
+    {
+        return _cookieStore;
+    }
+
+    /**
+     * Sets the cookie store keeping the session of this HttpAccess, for instance a {@link org.apache.hc.client5.http.cookie.BasicCookieStore}. The
+     * cookies received by the login call of a backend are then sent with the following calls made by this HttpAccess. Expired cookies are purged
+     * from the store when a request is sent.
+     * 
+     * @param cookieStore
+     *            the cookie store, null to use the cookie store of the client
+     */
+    public void setCookieStore( CookieStore cookieStore )
+    {
+        _cookieStore = cookieStore;
+    }
+
+    /**
+     * Create a reusable request template for a method and an url
+     * 
+     * @param method
+     *            the method
+     * @param strUrl
+     *            the url
+     * @return the request template
+     */
+    public HttpRequestTemplate request( Method method, String strUrl )
+    {
+        return new HttpRequestTemplate( this, method, URI.create( strUrl ), getContentCharset( ) );
+    }
+
     /**
      * Send a GET HTTP request to an Url and return the response content.
      * 
@@ -244,7 +326,7 @@ public class HttpAccess
         String strResponseBody = StringUtils.EMPTY;
 
         HttpUriRequestBase httpGet = new HttpGet( strUrl );
-        addSecurityInformations( httpGet, strUrl, authenticator, listElements );
+        addSecurityInformations( httpGet, authenticator, listElements );
 
         if ( headersRequest != null )
         {
@@ -256,6 +338,53 @@ public class HttpAccess
         return strResponseBody;
     }
 
+    /**
+     * Send a GET HTTP request to an Url and return its outcome whatever the response status. No exception is thrown for an invalid status : check
+     * {@link HttpResponseResult#isValid()} instead.
+     *
+     * @param strUrl
+     *            The Url to access
+     * @return the result of the request
+     * @throws HttpAccessException
+     *             if the request could not be sent or the response could not be read
+     */
+    public HttpResponseResult doGetResult( String strUrl ) throws HttpAccessException
+    {
+        return doGetResult( strUrl, null, null, null, -1 );
+    }
+
+    /**
+     * Send a GET HTTP request to an Url and return its outcome whatever the response status. No exception is thrown for an invalid status : check
+     * {@link HttpResponseResult#isValid()} instead.
+     *
+     * @param strUrl
+     *            The Url to access
+     * @param authenticator
+     *            The authenticator
+     * @param listElements
+     *            to include in the signature
+     * @param headersRequest
+     *            Map of headers request parameters, may be null
+     * @param nMaxBodySize
+     *            the maximum number of bytes of the body kept in the result, negative for no limit
+     * @return the result of the request
+     * @throws HttpAccessException
+     *             if the request could not be sent or the response could not be read
+     */
+    public HttpResponseResult doGetResult( String strUrl, RequestAuthenticator authenticator, List<String> listElements, Map<String, String> headersRequest,
+            int nMaxBodySize ) throws HttpAccessException
+    {
+        HttpUriRequestBase httpGet = new HttpGet( strUrl );
+        addSecurityInformations( httpGet, authenticator, listElements );
+
+        if ( headersRequest != null )
+        {
+            headersRequest.forEach( ( k, v ) -> httpGet.addHeader( k, v ) );
+        }
+
+        return getResponseResult( httpGet, strUrl, nMaxBodySize );
+    }
+
     /**
      * Send a POST HTTP request to an url and return the response content.
      *
@@ -399,7 +528,7 @@ public class HttpAccess
         {
             headersRequest.forEach( ( k, v ) -> httpRequest.addHeader( k, v ) );
         }
-        addSecurityInformations( httpRequest, strUrl, authenticator, listElements );
+        addSecurityInformations( httpRequest, authenticator, listElements );
         httpRequest.setEntity( new StringEntity( strContent, ContentType.APPLICATION_JSON, charset, false ) );
 
         strResponseBody = getResponseBody( httpRequest, strUrl, headersResponse );
@@ -613,7 +742,7 @@ public class HttpAccess
             params.forEach( ( k, v ) -> v.stream( ).forEach( y -> nvps.add( new BasicNameValuePair( k, y ) ) ) );
         }
 
-        addSecurityInformations( httpPost, strUrl, authenticator, listElements );
+        addSecurityInformations( httpPost, authenticator, listElements );
         httpPost.setEntity( new UrlEncodedFormEntity( nvps,
                 !StringUtils.isEmpty( _accessService.getHttpClientConfiguration( ).getContentCharset( ) )
                         ? Charset.forName( _accessService.getHttpClientConfiguration( ).getContentCharset( ) )
@@ -811,7 +940,7 @@ public class HttpAccess
 
         }
 
-        addSecurityInformations( httpPost, strUrl, authenticator, listElements );
+        addSecurityInformations( httpPost, authenticator, listElements );
         builder.setCharset( !StringUtils.isEmpty( _accessService.getHttpClientConfiguration( ).getContentCharset( ) )
                 ? Charset.forName( _accessService.getHttpClientConfiguration( ).getContentCharset( ) )
                 : Charset.forName( DEFAULT_CHARSET ) );
@@ -887,7 +1016,7 @@ public class HttpAccess
             params.forEach( ( k, v ) -> nvps.add( new BasicNameValuePair( k, v ) ) );
         }
 
-        addSecurityInformations( httprequestBase, strUrl, authenticator, listElements );
+        addSecurityInformations( httprequestBase, authenticator, listElements );
         httprequestBase.setEntity( new UrlEncodedFormEntity( nvps,
                 !StringUtils.isEmpty( _accessService.getHttpClientConfiguration( ).getContentCharset( ) )
                         ? Charset.forName( _accessService.getHttpClientConfiguration( ).getContentCharset( ) )
@@ -921,7 +1050,7 @@ public class HttpAccess
         String strResponseBody = StringUtils.EMPTY;
 
         HttpUriRequestBase httpDelete = new HttpDelete( strUrl );
-        addSecurityInformations( httpDelete, strUrl, authenticator, listElements );
+        addSecurityInformations( httpDelete, authenticator, listElements );
 
         if ( headersRequest != null )
         {
@@ -1022,8 +1151,8 @@ public class HttpAccess
         try
         {
 
-            CloseableHttpClient httpClient = _accessService.getHttpClient( );
-            try ( CloseableHttpResponse response = httpClient.execute( httpGet ) )
+            CloseableHttpClient httpClient = getHttpClient( );
+            try ( CloseableHttpResponse response = httpClient.execute( httpGet, createHttpContext( ) ) )
             {
 
                 int nResponse = response.getCode( );
@@ -1080,8 +1209,8 @@ public class HttpAccess
 
         try
         {
-            CloseableHttpClient httpClient = _accessService.getHttpClient( );
-            try ( CloseableHttpResponse response = httpClient.execute( httpGet ) )
+            CloseableHttpClient httpClient = getHttpClient( );
+            try ( CloseableHttpResponse response = httpClient.execute( httpGet, createHttpContext( ) ) )
             {
 
                 int nResponse = response.getCode( );
@@ -1133,8 +1262,8 @@ public class HttpAccess
         try
         {
 
-            CloseableHttpClient httpClient = _accessService.getHttpClient( );
-            try ( CloseableHttpResponse response = httpClient.execute( httpGet ) )
+            CloseableHttpClient httpClient = getHttpClient( );
+            try ( CloseableHttpResponse response = httpClient.execute( httpGet, createHttpContext( ) ) )
             {
 
                 int nResponse = response.getCode( );
@@ -1209,6 +1338,474 @@ public class HttpAccess
         return fileItem;
     }
 
+    /**
+     * Send a GET HTTP request to an Url returning a JSON array or NDJSON (one JSON value per line) content, and pass each record to the consumer as soon
+     * as it is parsed. Only one record is held in memory at a time.
+     *
+     * @param <T>
+     *            the record type
+     * @param strUrl
+     *            The Url to access
+     * @param recordClass
+     *            the class of the records
+     * @param consumer
+     *            the consumer of the records
+     * @return the number of records consumed
+     * @throws HttpAccessException
+     *             if there is a problem to access to the given Url or to parse the content
+     */
+    public <T> long doGetJSONRecords( String strUrl, Class<T> recordClass, Consumer<T> consumer ) throws HttpAccessException
+    {
+        return doGetJSONRecords( strUrl, null, null, null, recordClass, consumer );
+    }
+
+    /**
+     * Send a GET HTTP request to an Url returning a JSON array or NDJSON (one JSON value per line) content, and pass each record to the consumer as soon
+     * as it is parsed. Only one record is held in memory at a time.
+     *
+     * @param <T>
+     *            the record type
+     * @param strUrl
+     *            The Url to access
+     * @param authenticator
+     *            The {@link RequestAuthenticator}
+     * @param listElements
+     *            to include in the signature
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param recordClass
+     *            the class of the records
+     * @param consumer
+     *            the consumer of the records
+     * @return the number of records consumed
+     * @throws HttpAccessException
+     *             if there is a problem to access to the given Url or to parse the content
+     */
+    public <T> long doGetJSONRecords( String strUrl, RequestAuthenticator authenticator, List<String> listElements, Map<String, String> headersRequest,
+            Class<T> recordClass, Consumer<T> consumer ) throws HttpAccessException
+    {
+        long lCount = 0;
+
+        try ( Stream<T> stream = streamJSONRecords( strUrl, authenticator, listElements, headersRequest, recordClass ) )
+        {
+            Iterator<T> iterator = stream.iterator( );
+            while ( iterator.hasNext( ) )
+            {
+                consumer.accept( iterator.next( ) );
+                lCount++;
+            }
+        }
+        catch( RuntimeJsonMappingException | UncheckedIOException e )
+        {
+            throwHttpAccessException( strUrl, e );
+        }
+
+        return lCount;
+    }
+
+    /**
+     * Send a GET HTTP request to an Url returning a JSON array or NDJSON (one JSON value per line) content, and return a lazy stream of the records. The
+     * connection is held until the stream is closed, so the stream must be used in a try-with-resources block.
+     *
+     * @param <T>
+     *            the record type
+     * @param strUrl
+     *            The Url to access
+     * @param recordClass
+     *            the class of the records
+     * @return the stream of records
+     * @throws HttpAccessException
+     *             if there is a problem to access to the given Url
+     */
+    public <T> Stream<T> streamJSONRecords( String strUrl, Class<T> recordClass ) throws HttpAccessException
+    {
+        return streamJSONRecords( strUrl, null, null, null, recordClass );
+    }
+
+    /**
+     * Send a GET HTTP request to an Url returning a JSON array or NDJSON (one JSON value per line) content, and return a lazy stream of the records. The
+     * connection is held until the stream is closed, so the stream must be used in a try-with-resources block. Parsing errors occurring while the stream
+     * is consumed are thrown as {@link RuntimeJsonMappingException} or {@link UncheckedIOException}. No {@link Deadline}
+     * applies, the content being read at the pace of the caller.
+     *
+     * @param <T>
+     *            the record type
+     * @param strUrl
+     *            The Url to access
+     * @param authenticator
+     *            The {@link RequestAuthenticator}
+     * @param listElements
+     *            to include in the signature
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param recordClass
+     *            the class of the records
+     * @return the stream of records
+     * @throws HttpAccessException
+     *             if there is a problem to access to the given Url
+     */
+    public <T> Stream<T> streamJSONRecords( String strUrl, RequestAuthenticator authenticator, List<String> listElements, Map<String, String> headersRequest,
+            Class<T> recordClass ) throws HttpAccessException
+    {
+        HttpUriRequestBase httpGet = new HttpGet( strUrl );
+        addSecurityInformations( httpGet, authenticator, listElements );
+
+        if ( headersRequest != null )
+        {
+            headersRequest.forEach( ( k, v ) -> httpGet.addHeader( k, v ) );
+        }
+
+        CloseableHttpResponse response = openResponse( httpGet, strUrl );
+        HttpEntity entity = response.getEntity( );
+
+        if ( entity == null )
+        {
+            closeQuietly( response );
+            return Stream.empty( );
+        }
+
+        try
+        {
+            Charset charset = getEntityCharset( entity );
+            MappingIterator<T> iterator;
+
+            if ( charset == null || StandardCharsets.UTF_8.equals( charset ) )
+            {
+                // let the parser detect the UTF encoding from the raw bytes
+                iterator = _jsonRecordMapper.readerFor( recordClass ).readValues( entity.getContent( ) );
+            }
+            else
+            {
+                iterator = _jsonRecordMapper.readerFor( recordClass ).readValues( new InputStreamReader( entity.getContent( ), charset ) );
+            }
+
+            return StreamSupport.stream( Spliterators.spliteratorUnknownSize( iterator, Spliterator.ORDERED | Spliterator.NONNULL ), false )
+                    .onClose( ( ) -> closeQuietly( response ) );
+        }
+        catch( IOException e )
+        {
+            closeQuietly( response );
+            throwHttpAccessException( strUrl, e );
+        }
+
+        return Stream.empty( );
+    }
+
+    /**
+     * Walk a paginated resource and return a lazy stream of its items. The next pages are fetched in the background while the current one is consumed,
+     * with at most <code>nPrefetchPages</code> pages waiting to be consumed. The stream must be closed, in a try-with-resources block : until then,
+     * its fetch holds one of the threads shared by all the paginated streams, which stays blocked if the stream is abandoned before its end. When all
+     * these threads are busy, the stream is rejected with an {@link UncheckedHttpAccessException}. Failures occurring while the stream is consumed
+     * are thrown as {@link UncheckedHttpAccessException} too. Each page is only bounded by the timeouts of the service, no {@link Deadline} applies.
+     *
+     * @param <T>
+     *            the type of the items
+     * @param strUrl
+     *            The Url of the first page
+     * @param authenticator
+     *            The {@link RequestAuthenticator}
+     * @param listElements
+     *            to include in the signature
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param pageParser
+     *            the function extracting the items from the body of a page
+     * @param nextPageResolver
+     *            the resolver of the next page Url (see {@link NextPageResolver#linkHeader()}, {@link NextPageResolver#pageParameter(String, int)})
+     * @param nPrefetchPages
+     *            the maximum number of pages fetched ahead
+     * @return the stream of the items
+     */
+    public <T> Stream<T> doGetPaginated( String strUrl, RequestAuthenticator authenticator, List<String> listElements, Map<String, String> headersRequest,
+            Function<String, List<T>> pageParser, NextPageResolver nextPageResolver, int nPrefetchPages )
+    {
+        PaginatedResourceIterator<T> iterator = new PaginatedResourceIterator<>( this, strUrl, authenticator, listElements, headersRequest, pageParser,
+                nextPageResolver, nPrefetchPages );
+
+        return StreamSupport.stream( Spliterators.spliteratorUnknownSize( iterator, Spliterator.ORDERED ), false ).onClose( iterator::close );
+    }
+
+    /**
+     * Send a GET HTTP request to an Url and pull the XML response content through a StAX reader while it is downloaded.
+     *
+     * @param <T>
+     *            the type of the result
+     * @param strUrl
+     *            The Url to access
+     * @param handler
+     *            the handler reading the XML stream
+     * @return the result of the handler
+     * @throws HttpAccessException
+     *             if there is a problem to access to the given Url or to parse the content
+     */
+    public <T> T doGetXML( String strUrl, XmlStreamHandler<T> handler ) throws HttpAccessException
+    {
+        return doGetXML( strUrl, null, null, null, handler );
+    }
+
+    /**
+     * Send a GET HTTP request to an Url and pull the XML response content through a StAX reader while it is downloaded. The charset declared by the
+     * response is used, otherwise the parser detects it from the XML declaration. No {@link Deadline} applies, the content being read at the pace of
+     * the handler.
+     *
+     * @param <T>
+     *            the type of the result
+     * @param strUrl
+     *            The Url to access
+     * @param authenticator
+     *            The {@link RequestAuthenticator}
+     * @param listElements
+     *            to include in the signature
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param handler
+     *            the handler reading the XML stream
+     * @return the result of the handler, or null if the response has no content
+     * @throws HttpAccessException
+     *             if there is a problem to access to the given Url or to parse the content
+     */
+    public <T> T doGetXML( String strUrl, RequestAuthenticator authenticator, List<String> listElements, Map<String, String> headersRequest,
+            XmlStreamHandler<T> handler ) throws HttpAccessException
+    {
+        T result = null;
+        HttpUriRequestBase httpGet = new HttpGet( strUrl );
+        addSecurityInformations( httpGet, authenticator, listElements );
+
+        if ( headersRequest != null )
+        {
+            headersRequest.forEach( ( k, v ) -> httpGet.addHeader( k, v ) );
+        }
+
+        try ( CloseableHttpResponse response = openResponse( httpGet, strUrl ) )
+        {
+            HttpEntity entity = response.getEntity( );
+
+            if ( entity != null )
+            {
+                Charset charset = getEntityCharset( entity );
+                XMLStreamReader reader = ( charset != null ) ? _xmlInputFactory.createXMLStreamReader( entity.getContent( ), charset.name( ) )
+                        : _xmlInputFactory.createXMLStreamReader( entity.getContent( ) );
+
+                try
+                {
+                    result = handler.handle( reader );
+                }
+                finally
+                {
+                    reader.close( );
+                }
+            }
+        }
+        catch( IOException | XMLStreamException e )
+        {
+            throwHttpAccessException( strUrl, e );
+        }
+
+        return result;
+    }
+
+    /**
+     * Send a GET HTTP request to an Url and invoke a handler for each element of the XML response whose path matches one of the given paths. Paths are
+     * made of the local names of the elements separated by '/' (ie: rss/channel/item). As for {@link #doGetXML(String, XmlStreamHandler)}, no
+     * {@link Deadline} applies.
+     *
+     * @param strUrl
+     *            The Url to access
+     * @param authenticator
+     *            The {@link RequestAuthenticator}
+     * @param listElements
+     *            to include in the signature
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param mapHandlers
+     *            the handlers by element path
+     * @throws HttpAccessException
+     *             if there is a problem to access to the given Url or to parse the content
+     */
+    public void doGetXMLElements( String strUrl, RequestAuthenticator authenticator, List<String> listElements, Map<String, String> headersRequest,
+            Map<String, XmlElementHandler> mapHandlers ) throws HttpAccessException
+    {
+        doGetXML( strUrl, authenticator, listElements, headersRequest, reader -> {
+            StringBuilder sbPath = new StringBuilder( );
+
+            while ( reader.hasNext( ) )
+            {
+                int nEvent = reader.next( );
+
+                if ( nEvent == XMLStreamConstants.START_ELEMENT )
+                {
+                    if ( sbPath.length( ) > 0 )
+                    {
+                        sbPath.append( '/' );
+                    }
+                    sbPath.append( reader.getLocalName( ) );
+
+                    XmlElementHandler handler = mapHandlers.get( sbPath.toString( ) );
+
+                    if ( handler != null )
+                    {
+                        handler.handleElement( sbPath.toString( ), reader );
+                        nEvent = reader.getEventType( );
+                    }
+                }
+
+                if ( nEvent == XMLStreamConstants.END_ELEMENT )
+                {
+                    int nIndex = sbPath.lastIndexOf( "/" );
+                    sbPath.setLength( ( nIndex >= 0 ) ? nIndex : 0 );
+                }
+            }
+
+            return null;
+        } );
+    }
+
+    /**
+     * Execute a request and return the response, once its status validated. The response entity is left unread and the caller is responsible for closing
+     * the response.
+     *
+     * @param httpRequest
+     *            the http request
+     * @param strUrl
+     *            the url
+     * @return the response
+     * @throws HttpAccessException
+     *             if the request failed or the response status is not valid
+     */
+    private CloseableHttpResponse openResponse( HttpUriRequestBase httpRequest, String strUrl ) throws HttpAccessException
+    {
+        CloseableHttpResponse response = null;
+
+        try
+        {
+            CloseableHttpClient httpClient = getHttpClient( );
+            response = httpClient.execute( httpRequest, createHttpContext( ) );
+            validateResponseStatus( response.getCode( ), httpRequest.getMethod( ), response, strUrl );
+        }
+        catch( IOException | ParseException e )
+        {
+            closeQuietly( response );
+            throwHttpAccessException( strUrl, e );
+        }
+        catch( HttpAccessException e )
+        {
+            closeQuietly( response );
+            throw e;
+        }
+
+        return response;
+    }
+
+    /**
+     * Create the context of a request
+     *
+     * @return the context, holding the cookie store of this HttpAccess
+     * @throws HttpAccessException
+     *             if the service is closed
+     */
+    private HttpClientContext createHttpContext( ) throws HttpAccessException
+    {
+        try
+        {
+            return _accessService.createHttpContext( _cookieStore );
+        }
+        catch( IllegalStateException e )
+        {
+            throw new HttpAccessException( "HttpAccess - The service is closed", e );
+        }
+    }
+
+    /**
+     * Gets the client of the service
+     *
+     * @return the client
+     * @throws HttpAccessException
+     *             if the service is closed
+     */
+    private CloseableHttpClient getHttpClient( ) throws HttpAccessException
+    {
+        try
+        {
+            return _accessService.getHttpClient( );
+        }
+        catch( IllegalStateException e )
+        {
+            throw new HttpAccessException( "HttpAccess - The service is closed", e );
+        }
+    }
+
+    /**
+     * Get the charset declared by the content type of an entity
+     *
+     * @param entity
+     *            the entity
+     * @return the charset or null if none is declared
+     */
+    private static Charset getEntityCharset( HttpEntity entity )
+    {
+        ContentType contentType = ContentType.parseLenient( entity.getContentType( ) );
+
+        return ( contentType != null ) ? contentType.getCharset( ) : null;
+    }
+
+    /**
+     * Create the timer cancelling the requests reaching their deadline
+     *
+     * @return the timer
+     */
+    private static ScheduledThreadPoolExecutor createDeadlineTimer( )
+    {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor( 1, new DaemonThreadFactory( "httpaccess-deadline" ) );
+        timer.setRemoveOnCancelPolicy( true );
+
+        return timer;
+    }
+
+    /**
+     * Stop the timer cancelling the requests reaching their deadline, called when the services are shut down. It is not restarted : the shutdown is
+     * final
+     */
+    static void shutdownDeadlineTimer( )
+    {
+        _deadlineTimer.shutdownNow( );
+    }
+
+    /**
+     * Create the StAX factory. DTD and external entities are disabled.
+     *
+     * @return the factory
+     */
+    private static XMLInputFactory createXmlInputFactory( )
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance( );
+        factory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+        factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+        factory.setProperty( XMLInputFactory.IS_COALESCING, Boolean.TRUE );
+
+        return factory;
+    }
+
+    /**
+     * Close a response, logging the error if any
+     *
+     * @param response
+     *            the response, may be null
+     */
+    private static void closeQuietly( CloseableHttpResponse response )
+    {
+        if ( response != null )
+        {
+            try
+            {
+                response.close( );
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( "HttpAccess - Error closing response : " + e.getMessage( ), e );
+            }
+        }
+    }
+
     /**
      * Validate an HTTP response status code.
      *
@@ -1234,18 +1831,95 @@ public class HttpAccess
         }
         String strError = "HttpAccess - Error executing method " + strMethodName + " at URL : " + stripPassword( strUrl ) + " - return code : "
                 + nResponseStatus;
+        HttpClientConfiguration configuration = _accessService.getHttpClientConfiguration( );
+        int nMaxSize = ( configuration.getErrorBodyMaxSize( ) != null ) ? configuration.getErrorBodyMaxSize( ) : -1;
         String strResponseBody;
         try
         {
             HttpEntity entity = response.getEntity( );
             // Get response information
-            strResponseBody = entity != null ? EntityUtils.toString( entity ) : "<Response body unavailable>";
+            if ( entity != null )
+            {
+                byte [ ] body = readContent( entity, nMaxSize );
+                Charset charset = getEntityCharset( entity );
+                if ( charset == null )
+                {
+                    charset = StandardCharsets.ISO_8859_1;
+                }
+                strResponseBody = ( nMaxSize >= 0 && body.length > nMaxSize ) ? decodeTruncated( body, nMaxSize, charset ) + "<truncated>"
+                        : new String( body, charset );
+            }
+            else
+            {
+                strResponseBody = "<Response body unavailable>";
+            }
         }
         catch( IOException ex )
         {
             strResponseBody = "<unable to get Response Body : " + ex.getMessage( ) + ">";
         }
-        throw new InvalidResponseStatus( strError, nResponseStatus, strResponseBody, null );
+        throw new InvalidResponseStatus( strError, nResponseStatus, strResponseBody, null, configuration.isErrorStackTrace( ) );
+    }
+
+    /**
+     * Decode the beginning of a content cut at a byte offset, the character cut by the offset being dropped
+     *
+     * @param content
+     *            the content
+     * @param nLength
+     *            the number of bytes to decode
+     * @param charset
+     *            the charset of the content
+     * @return the characters fully contained in the bytes
+     */
+    private static String decodeTruncated( byte [ ] content, int nLength, Charset charset )
+    {
+        CharsetDecoder decoder = charset.newDecoder( ).onMalformedInput( CodingErrorAction.REPLACE )
+                .onUnmappableCharacter( CodingErrorAction.REPLACE );
+        CharBuffer chars = CharBuffer.allocate( (int) Math.ceil( nLength * (double) decoder.maxCharsPerByte( ) ) );
+
+        // not the end of the input : the bytes of an incomplete trailing character are left undecoded
+        decoder.decode( ByteBuffer.wrap( content, 0, nLength ), chars, false );
+        chars.flip( );
+
+        return chars.toString( );
+    }
+
+    /**
+     * Read the content of an entity, up to a maximum size
+     *
+     * @param entity
+     *            the entity
+     * @param nMaxSize
+     *            the maximum size, negative for no limit
+     * @return the content, one byte longer than the maximum size if the content exceeds it
+     * @throws IOException
+     *             if the content can't be read
+     */
+    private static byte [ ] readContent( HttpEntity entity, int nMaxSize ) throws IOException
+    {
+        if ( nMaxSize < 0 )
+        {
+            return EntityUtils.toByteArray( entity );
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream( );
+        try ( InputStream in = entity.getContent( ) )
+        {
+            if ( in != null )
+            {
+                byte [ ] buffer = new byte [ 8192];
+                int nRemaining = nMaxSize + 1;
+                int nRead;
+                while ( nRemaining > 0 && ( nRead = in.read( buffer, 0, Math.min( buffer.length, nRemaining ) ) ) != -1 )
+                {
+                    out.write( buffer, 0, nRead );
+                    nRemaining -= nRead;
+                }
+            }
+        }
+
+        return out.toByteArray( );
     }
 
     /**
@@ -1289,19 +1963,17 @@ public class HttpAccess
      *
      * @param httpRequest
      *            the http request
-     * @param strTargetUrl
-     *            the target url of the request
      * @param authenticator
      *            the authenticator
      * @param listElements
      *            the list of elements used by sthe authenticator
      */
-    private void addSecurityInformations( HttpUriRequestBase httpRequest, String strTargetUrl, RequestAuthenticator authenticator, List<String> listElements )
+    private void addSecurityInformations( HttpUriRequestBase httpRequest, RequestAuthenticator authenticator, List<String> listElements )
     {
 
         if ( authenticator != null )
         {
-            AuthenticateRequestInformations securityInformations = authenticator.getSecurityInformations( listElements );
+            AuthenticateRequestInformations securityInformations = _accessService.getSecurityInformations( authenticator, listElements );
             // Add Security Parameters in the request
             if ( !securityInformations.getSecurityParameteres( ).isEmpty( ) )
             {
@@ -1309,16 +1981,9 @@ public class HttpAccess
                 List<NameValuePair> nvps = new ArrayList<>( );
 
                 securityInformations.getSecurityParameteres( ).forEach( ( k, v ) -> nvps.add( new BasicNameValuePair( k, v ) ) );
-                // Add to the request URL
-                try
-                {
-                    URI uri = new URIBuilder( new URI( strTargetUrl ) ).addParameters( nvps ).build( );
-                    httpRequest.setUri( uri );
-                }
-                catch( URISyntaxException e )
-                {
-                    throw new RuntimeException( e );
-                }
+                // Append to the query string of the request, without parsing the target url again
+                String strPath = StringUtils.defaultIfEmpty( httpRequest.getPath( ), "/" );
+                httpRequest.setPath( strPath + ( strPath.indexOf( '?' ) < 0 ? '?' : '&' ) + WWWFormCodec.format( nvps, StandardCharsets.UTF_8 ) );
 
             }
             // Add security Headers in the request
@@ -1332,6 +1997,259 @@ public class HttpAccess
 
     }
 
+    /**
+     * Gets the charset of the request bodies
+     *
+     * @return the configured content charset, UTF-8 by default
+     */
+    Charset getContentCharset( )
+    {
+        return !StringUtils.isEmpty( _accessService.getHttpClientConfiguration( ).getContentCharset( ) )
+                ? Charset.forName( _accessService.getHttpClientConfiguration( ).getContentCharset( ) )
+                : Charset.forName( DEFAULT_CHARSET );
+    }
+
+    /**
+     * Gets the request configuration of the client
+     *
+     * @return the default request configuration
+     * @throws HttpAccessException
+     *             if the service is closed
+     */
+    RequestConfig getDefaultRequestConfig( ) throws HttpAccessException
+    {
+        try
+        {
+            return _accessService.getDefaultRequestConfig( );
+        }
+        catch( IllegalStateException e )
+        {
+            throw new HttpAccessException( "HttpAccess - The service is closed", e );
+        }
+    }
+
+    /**
+     * Sign and execute a request built by a {@link HttpRequestTemplate}
+     *
+     * @param httpRequest
+     *            the http request
+     * @param strUrl
+     *            the url
+     * @param authenticator
+     *            the authenticator, may be null
+     * @param listElements
+     *            the elements to include in the signature
+     * @param deadline
+     *            the deadline of the call, may be null
+     * @return the response body
+     * @throws HttpAccessException
+     *             if the request failed or the response status is not valid
+     */
+    String execute( HttpUriRequestBase httpRequest, String strUrl, RequestAuthenticator authenticator, List<String> listElements, Deadline deadline )
+            throws HttpAccessException
+    {
+        addSecurityInformations( httpRequest, authenticator, listElements );
+        ScheduledFuture<?> cancellation = startDeadline( httpRequest, strUrl, deadline );
+
+        try
+        {
+            return getResponseBody( httpRequest, strUrl, null );
+        }
+        catch( HttpAccessException e )
+        {
+            throw checkDeadline( e, strUrl, deadline );
+        }
+        finally
+        {
+            stopDeadline( cancellation );
+        }
+    }
+
+    /**
+     * Sign and execute a request built by a {@link HttpRequestTemplate}, without validating the response status
+     *
+     * @param httpRequest
+     *            the http request
+     * @param strUrl
+     *            the url
+     * @param authenticator
+     *            the authenticator, may be null
+     * @param listElements
+     *            the elements to include in the signature
+     * @param deadline
+     *            the deadline of the call, may be null
+     * @param nMaxBodySize
+     *            the maximum number of bytes of the body kept in the result, negative for no limit
+     * @return the result of the request
+     * @throws HttpAccessException
+     *             if the request could not be sent or the response could not be read
+     */
+    HttpResponseResult executeResult( HttpUriRequestBase httpRequest, String strUrl, RequestAuthenticator authenticator, List<String> listElements,
+            Deadline deadline, int nMaxBodySize ) throws HttpAccessException
+    {
+        addSecurityInformations( httpRequest, authenticator, listElements );
+        ScheduledFuture<?> cancellation = startDeadline( httpRequest, strUrl, deadline );
+
+        try
+        {
+            return getResponseResult( httpRequest, strUrl, nMaxBodySize );
+        }
+        catch( HttpAccessException e )
+        {
+            throw checkDeadline( e, strUrl, deadline );
+        }
+        finally
+        {
+            stopDeadline( cancellation );
+        }
+    }
+
+    /**
+     * Bound the timeouts of a request by the remaining time of its deadline, and schedule its cancellation at the deadline so that a slow response
+     * body can't exceed it.
+     *
+     * @param httpRequest
+     *            the http request
+     * @param strUrl
+     *            the url
+     * @param deadline
+     *            the deadline, may be null
+     * @return the scheduled cancellation, null if there is no deadline
+     * @throws HttpAccessException
+     *             if the deadline is already expired
+     */
+    private ScheduledFuture<?> startDeadline( HttpUriRequestBase httpRequest, String strUrl, Deadline deadline ) throws HttpAccessException
+    {
+        if ( deadline == null )
+        {
+            return null;
+        }
+
+        long lRemaining = deadline.remaining( );
+        if ( lRemaining <= 0 )
+        {
+            throw new HttpAccessException( "HttpAccess - Deadline expired before sending the request to URL : " + stripPassword( strUrl ), null );
+        }
+
+        Timeout remaining = Timeout.ofMilliseconds( lRemaining );
+        RequestConfig requestConfig = ( httpRequest.getConfig( ) != null ) ? httpRequest.getConfig( ) : getDefaultRequestConfig( );
+        httpRequest.setConfig( RequestConfig.copy( requestConfig )
+                .setConnectionRequestTimeout( earliest( requestConfig.getConnectionRequestTimeout( ), remaining ) )
+                .setConnectTimeout( earliest( requestConfig.getConnectTimeout( ), remaining ) )
+                .setResponseTimeout( earliest( requestConfig.getResponseTimeout( ), remaining ) ).build( ) );
+
+        try
+        {
+            return _deadlineTimer.schedule( httpRequest::cancel, lRemaining, TimeUnit.MILLISECONDS );
+        }
+        catch( RejectedExecutionException e )
+        {
+            throw new HttpAccessException( "HttpAccess - The service is closed", e );
+        }
+    }
+
+    /**
+     * Cancel the scheduled cancellation of a request
+     *
+     * @param cancellation
+     *            the scheduled cancellation, may be null
+     */
+    private static void stopDeadline( ScheduledFuture<?> cancellation )
+    {
+        if ( cancellation != null )
+        {
+            cancellation.cancel( false );
+        }
+    }
+
+    /**
+     * Report the failure of a request cancelled by its deadline as such
+     *
+     * @param exception
+     *            the failure
+     * @param strUrl
+     *            the url
+     * @param deadline
+     *            the deadline, may be null
+     * @return the exception to throw
+     */
+    private HttpAccessException checkDeadline( HttpAccessException exception, String strUrl, Deadline deadline )
+    {
+        if ( deadline != null && deadline.isExpired( ) && !( exception instanceof InvalidResponseStatus ) )
+        {
+            return new HttpAccessException( "HttpAccess - Deadline expired for URL : " + stripPassword( strUrl ), exception );
+        }
+
+        return exception;
+    }
+
+    /**
+     * Gets the shortest of a timeout and a remaining time
+     *
+     * @param timeout
+     *            the timeout, null or disabled for no limit
+     * @param remaining
+     *            the remaining time
+     * @return the shortest
+     */
+    private static Timeout earliest( Timeout timeout, Timeout remaining )
+    {
+        return ( timeout == null || timeout.isDisabled( ) || timeout.toMilliseconds( ) > remaining.toMilliseconds( ) ) ? remaining : timeout;
+    }
+
+    /**
+     * Execute a request and return its outcome without validating the response status
+     *
+     * @param httpRequest
+     *            the http request
+     * @param strUrl
+     *            the url
+     * @param nMaxBodySize
+     *            the maximum number of bytes of the body kept in the result, negative for no limit
+     * @return the result of the request
+     * @throws HttpAccessException
+     *             if the request could not be sent or the response could not be read
+     */
+    private HttpResponseResult getResponseResult( HttpUriRequestBase httpRequest, String strUrl, int nMaxBodySize ) throws HttpAccessException
+    {
+        HttpResponseResult result = null;
+        try
+        {
+            CloseableHttpClient httpClient = getHttpClient( );
+            try ( CloseableHttpResponse response = httpClient.execute( httpRequest, createHttpContext( ) ) )
+            {
+                HttpEntity entity = response.getEntity( );
+                byte [ ] body = new byte [ 0];
+                boolean bTruncated = false;
+                Charset charset = null;
+
+                if ( entity != null )
+                {
+                    body = readContent( entity, nMaxBodySize );
+                    charset = getEntityCharset( entity );
+                    if ( nMaxBodySize >= 0 && body.length > nMaxBodySize )
+                    {
+                        body = Arrays.copyOf( body, nMaxBodySize );
+                        bTruncated = true;
+                    }
+                }
+                if ( charset == null )
+                {
+                    charset = getContentCharset( );
+                }
+
+                result = new HttpResponseResult( response.getCode( ), _responseValidator.validate( response.getCode( ) ), response.getHeaders( ), body,
+                        bTruncated, charset );
+            }
+        }
+        catch( IOException e )
+        {
+            throwHttpAccessException( strUrl, e );
+        }
+
+        return result;
+    }
+
     /**
      * Gets the response body.
      *
@@ -1350,19 +2268,26 @@ public class HttpAccess
         String strResponseBody = StringUtils.EMPTY;
         try
         {
-            CloseableHttpClient httpClient = _accessService.getHttpClient( );
-            try ( CloseableHttpResponse response = httpClient.execute( httpRequest ) )
+            CloseableHttpClient httpClient = getHttpClient( );
+            try ( CloseableHttpResponse response = httpClient.execute( httpRequest, createHttpContext( ) ) )
             {
 
                 int nResponse = response.getCode( );
                 validateResponseStatus( nResponse, httpRequest.getMethod( ), response, strUrl );
 
-                if ( mapResponseHeader != null && response.getHeaders( ) != null )
+                if ( mapResponseHeader instanceof HttpResponseHeaders )
                 {
-
-                    Arrays.asList( response.getHeaders( ) ).stream( ).forEach( x -> mapResponseHeader.put( x.getName( ), x.getValue( ) ) );
-
+                    // view backed by the response headers, no copy
+                    ( (HttpResponseHeaders) mapResponseHeader ).setHeaders( response.getHeaders( ) );
                 }
+                else
+                    if ( mapResponseHeader != null )
+                    {
+                        for ( Header header : response.getHeaders( ) )
+                        {
+                            mapResponseHeader.put( header.getName( ), header.getValue( ) );
+                        }
+                    }
                 HttpEntity entity = response.getEntity( );
                 if ( entity != null )
                 {
@@ -74,6 +74,24 @@ public class HttpAccessException extends Exception
         _nResponseCode = nResponseCode;
     }
 
+    /**
+     * Creates a new instance of HttpAccessException, optionally without capturing the stack trace.
+     *
+     * @param strMessage
+     *            The error message
+     * @param nResponseCode
+     *            the http response code associated to the Exception
+     * @param e
+     *            The exception
+     * @param bWritableStackTrace
+     *            false to skip the stack trace capture, for exceptions expected at volume
+     */
+    protected HttpAccessException( String strMessage, Integer nResponseCode, Exception e, boolean bWritableStackTrace )
+    {
+        super( strMessage, e, true, bWritableStackTrace );
+        _nResponseCode = nResponseCode;
+    }
+
     /**
      * @deprecated Use InvalidResponseStatus:getResponseStatus instead Gets the response code.
      *
@@ -33,15 +33,83 @@
  */
 package fr.paris.lutece.util.httpaccess;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.auth.AuthCache;
+import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.Credentials;
+import org.apache.hc.client5.http.auth.NTCredentials;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.cookie.CookieStore;
 import org.apache.hc.client5.http.impl.DefaultRedirectStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.auth.BasicAuthCache;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.auth.BasicScheme;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.routing.DefaultRoutePlanner;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.routing.HttpRoutePlanner;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.URIAuthority;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 
+import fr.paris.lutece.portal.service.init.ShutdownServiceManager;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+
 /**
  * HttpAccessService.
  */
@@ -53,20 +121,103 @@ public class HttpAccessService implements ResponseStatusValidator
     /** The Constant PROPERTY_HTTP_RESPONSES_CODE_AUTHORIZED. */
     private static final String PROPERTY_HTTP_RESPONSES_CODE_AUTHORIZED = "httpAccess.responsesCodeAuthorized";
 
-    /** The _singleton. */
-    private static final HttpAccessService _singleton = new HttpAccessService( new PropertiesHttpClientConfiguration( ) );
+    /** The Constant DEFAULT_OUTBOX_DIRECTORY. */
+    private static final String DEFAULT_OUTBOX_DIRECTORY = "lutece-httpaccess-outbox";
+
+    /** The directory of the outbox of the default and unnamed services, under the outbox directory. */
+    private static final String DEFAULT_OUTBOX_SERVICE_DIRECTORY = "default";
+
+    /** The Constant DEFAULT_OUTBOX_SEGMENT_SIZE. */
+    private static final int DEFAULT_OUTBOX_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /** The maximum time to wait for the HTTP/2 client on each operation when no socket timeout is configured. */
+    private static final Timeout DEFAULT_HTTP2_OPERATION_TIMEOUT = Timeout.ofMinutes( 3 );
+
+    /** The time in milliseconds the resolved addresses are cached when only static hosts are configured. */
+    private static final int DEFAULT_DNS_TTL = 60000;
+
+    /** The time in milliseconds a replaced connection pool is given to release its connections. */
+    private static final int DEFAULT_DRAIN_TIMEOUT = 60000;
+
+    /** The interval in milliseconds between two checks of the connections of a replaced pool. */
+    private static final long DRAIN_CHECK_INTERVAL = 500;
+
+    /** The prefix of the properties of the service. */
+    private static final String PREFIX_PROPERTIES = "httpAccess.";
+
+    /** The suffix of the property of the response codes authorized by a named service. */
+    private static final String SUFFIX_RESPONSES_CODE_AUTHORIZED = ".responsesCodeAuthorized";
+
+    /** The attribute of the request context holding the bearer token providers of the service. */
+    private static final String ATTRIBUTE_ACCESS_TOKEN_PROVIDERS = "httpaccess.accessTokenProviders";
+
+    /** The names of the groups of httpAccess.* properties, that can't be given to a named service. */
+    private static final Set<String> RESERVED_SERVICE_NAMES = Collections
+            .unmodifiableSet( new HashSet<>( Arrays.asList( "authentication", "dns", "outbox", "route", "socket", "tls", "warmup" ) ) );
+
+    /** The executor draining the replaced clients and watching the properties. */
+    private static final ScheduledExecutorService _reloadExecutor = Executors
+            .newSingleThreadScheduledExecutor( new DaemonThreadFactory( "httpaccess-reload" ) );
+
+    /** The connection pools shared by the services with the same connection settings, by settings. */
+    private static final Map<List<Object>, ClientPool> _mapSharedPools = new HashMap<>( );
+
+    /** The connection pools not closed yet, shared or not. */
+    private static final Set<ClientPool> _setOpenPools = ConcurrentHashMap.newKeySet( );
 
-    private final HttpClientConfiguration _httpClientConfiguration;
+    /** The event stream clients, polling services and batch senders not closed yet, closed when the services are shut down. */
+    private static final Set<Closeable> _setOpenComponents = ConcurrentHashMap.newKeySet( );
 
-    private final CloseableHttpClient _httpClient;
+    /** Whether the services have been shut down. */
+    private static volatile boolean _bShutdown;
 
+    /** The named services, by name. */
+    private static final Map<String, HttpAccessService> _mapNamedServices = new ConcurrentHashMap<>( );
+
+    /** Whether the default service has been created. */
+    private static volatile boolean _bSingletonCreated;
+
+    static
+    {
+        ShutdownServiceManager.registerShutdownService( new HttpAccessShutdownService( ) );
+    }
+
+    /** The name of the service, null if it is not registered. */
+    private final String _strName;
+
+    /** The snapshot of the configuration of the service. */
+    private volatile HttpClientConfiguration _configuration;
+
+    /** The configuration and the clients built from it, replaced as a whole when the service is reconfigured, null until the first request. */
+    private volatile ClientState _state;
+
+    /** Whether the service has been closed. */
+    private volatile boolean _bClosed;
+
+    /**
+     * Gets the configuration of the service, which can't be modified : to change it, pass a modified {@link HttpClientConfiguration#copy()} of it to
+     * {@link #reconfigure(HttpClientConfiguration)}
+     * 
+     * @return the configuration
+     */
     public HttpClientConfiguration getHttpClientConfiguration( )
     {
-        return _httpClientConfiguration;
+        return _configuration;
     }
 
     private final ResponseStatusValidator _responseValidator;
 
+    private HttpOutbox _outbox;
+
+    /** The bearer token providers, by target host. */
+    private final Map<String, AccessTokenProvider> _mapAccessTokenProviders = new ConcurrentHashMap<>( );
+
+    /** The watcher of the properties, null if the configuration is not reloaded automatically. */
+    private ScheduledFuture<?> _propertiesWatcher;
+
+    /** The warm-up of the connections, completed once the connections to the warm-up hosts are opened. */
+    private volatile CompletableFuture<Void> _warmUp = CompletableFuture.completedFuture( null );
+
     /**
      * Gets the single instance of HttpAccessService.
      *
@@ -74,7 +225,76 @@ public class HttpAccessService implements ResponseStatusValidator
      */
     public static HttpAccessService getInstance( )
     {
-        return _singleton;
+        return SingletonHolder._singleton;
+    }
+
+    /**
+     * Create the default service, configured by the httpAccess.* properties. An invalid configuration is replaced by the default one, so that the
+     * holder of the service never fails to initialize : the properties are still watched when a reload interval is set, so that a fixed
+     * configuration is applied without restart.
+     * 
+     * @return the default service
+     */
+    private static HttpAccessService createSingleton( )
+    {
+        PropertiesHttpClientConfiguration configuration = new PropertiesHttpClientConfiguration( );
+        HttpAccessService singleton;
+
+        try
+        {
+            singleton = new HttpAccessService( configuration );
+        }
+        catch( IllegalArgumentException e )
+        {
+            AppLogService.error( "HttpAccess - Invalid configuration of the default service, the default configuration is used : " + e.getMessage( ),
+                    e );
+            singleton = new HttpAccessService( new HttpClientConfiguration( ) );
+            if ( configuration.getReloadInterval( ) != null )
+            {
+                singleton.watchProperties( configuration.getReloadInterval( ) );
+            }
+        }
+        _bSingletonCreated = true;
+
+        return singleton;
+    }
+
+    /**
+     * Gets the service registered under a name, creating it on first call. The service is configured by the httpAccess.* properties, each of them
+     * being overridden by the httpAccess.&lt;name&gt;.* property if it is set, and validates the response codes listed by the
+     * httpAccess.&lt;name&gt;.responsesCodeAuthorized property. The services with the same connection settings share their connection pool.
+     * The name can't contain a dot, nor be the name of a group of properties (authentication, dns, outbox, route, socket, tls, warmup).
+     * 
+     * @param strName
+     *            the name of the service
+     * @return the service
+     * @throws IllegalArgumentException
+     *             if the name is blank or reserved
+     */
+    public static HttpAccessService get( String strName )
+    {
+        if ( StringUtils.isBlank( strName ) || strName.indexOf( '.' ) >= 0 || RESERVED_SERVICE_NAMES.contains( strName ) )
+        {
+            throw new IllegalArgumentException( "HttpAccess - Invalid service name : " + strName );
+        }
+
+        return _mapNamedServices.computeIfAbsent( strName, HttpAccessService::createNamedService );
+    }
+
+    /**
+     * Create a named service from the properties
+     * 
+     * @param strName
+     *            the name of the service
+     * @return the service
+     */
+    private static HttpAccessService createNamedService( String strName )
+    {
+        String strDefaultStatus = AppPropertiesService.getProperty( PROPERTY_HTTP_RESPONSES_CODE_AUTHORIZED, DEFAULT_RESPONSE_CODE_AUTHORIZED );
+        ResponseStatusValidator responseValidator = SimpleResponseValidator
+                .loadFromProperty( PREFIX_PROPERTIES + strName + SUFFIX_RESPONSES_CODE_AUTHORIZED, strDefaultStatus );
+
+        return new HttpAccessService( strName, new PropertiesHttpClientConfiguration( strName ), responseValidator );
     }
 
     /**
@@ -84,99 +304,1541 @@ public class HttpAccessService implements ResponseStatusValidator
      *            the httpClienConfiguration
      */
     public HttpAccessService( HttpClientConfiguration httpClientConfiguration )
+    {
+        this( httpClientConfiguration,
+                SimpleResponseValidator.loadFromProperty( PROPERTY_HTTP_RESPONSES_CODE_AUTHORIZED, DEFAULT_RESPONSE_CODE_AUTHORIZED ) );
+    }
+
+    /**
+     * create new specific Instance of HttpAccessService, validating the response codes with a specific validator
+     * 
+     * @param httpClientConfiguration
+     *            the httpClienConfiguration
+     * @param responseValidator
+     *            the validator of the response codes
+     */
+    public HttpAccessService( HttpClientConfiguration httpClientConfiguration, ResponseStatusValidator responseValidator )
+    {
+        this( null, httpClientConfiguration, responseValidator );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param strName
+     *            the name of the service, null if it is not registered
+     * @param httpClientConfiguration
+     *            the httpClienConfiguration
+     * @param responseValidator
+     *            the validator of the response codes
+     */
+    private HttpAccessService( String strName, HttpClientConfiguration httpClientConfiguration, ResponseStatusValidator responseValidator )
     {
         super( );
-        _httpClientConfiguration = httpClientConfiguration;
-        _responseValidator = SimpleResponseValidator.loadFromProperty( PROPERTY_HTTP_RESPONSES_CODE_AUTHORIZED, DEFAULT_RESPONSE_CODE_AUTHORIZED );
-        _httpClient = buildHttpClient( );
+        _strName = strName;
+        _responseValidator = responseValidator;
+        _configuration = snapshot( httpClientConfiguration );
+
+        if ( httpClientConfiguration instanceof PropertiesHttpClientConfiguration && httpClientConfiguration.getReloadInterval( ) != null )
+        {
+            watchProperties( httpClientConfiguration.getReloadInterval( ) );
+        }
+
+        // the clients are built on the first request, or in the background when the connections are warmed up
+        if ( StringUtils.isNotBlank( _configuration.getWarmupHosts( ) ) )
+        {
+            _warmUp = CompletableFuture.supplyAsync( this::getState, _reloadExecutor ).thenCompose( this::startWarmUp );
+        }
     }
 
     /**
-     * Procure a HttpClientBuilder
+     * Validate a configuration and take a snapshot of it
      * 
-     * @return a HttpClientBuilder
+     * @param configuration
+     *            the configuration
+     * @return the snapshot
+     * @throws IllegalArgumentException
+     *             if the configuration is not valid
      */
-    protected HttpClientBuilder getHttpClientBuilder( )
+    private static HttpClientConfiguration snapshot( HttpClientConfiguration configuration )
     {
-        return HttpClients.custom( );
+        List<String> listErrors = configuration.validate( );
+        if ( !listErrors.isEmpty( ) )
+        {
+            String strError = "HttpAccess - Invalid configuration : " + String.join( ", ", listErrors );
+            AppLogService.error( strError );
+            throw new IllegalArgumentException( strError );
+        }
+
+        return configuration.snapshot( );
     }
 
-    public CloseableHttpClient getHttpClient( )
+    /**
+     * Gets the configuration and the clients of the service, building them on first call
+     * 
+     * @return the configuration and the clients
+     * @throws IllegalStateException
+     *             if the service is closed
+     */
+    private ClientState getState( )
     {
-        return _httpClient;
+        if ( isClosed( ) )
+        {
+            throw new IllegalStateException( "HttpAccess - The service is closed" );
+        }
+
+        ClientState state = _state;
+        if ( state == null )
+        {
+            synchronized( this )
+            {
+                state = _state;
+                if ( state == null )
+                {
+                    state = buildClientState( _configuration );
+                    _state = state;
+                }
+            }
+        }
+
+        return state;
     }
 
     /**
-     * get an HTTP client object using current configuration.
-     *
-     * @param method
-     *            The method
-     * @return An HTTP client authenticated
+     * Replace the configuration of this service without restart. New clients are built from the configuration and used by the requests sent from
+     * now on, while the requests in flight complete with the previous clients. The previous connection pool is closed once all its connections are
+     * released, or when the drain timeout expires. An invalid configuration is rejected and the current one is kept.
+     * 
+     * @param httpClientConfiguration
+     *            the new configuration
+     * @throws IllegalArgumentException
+     *             if the configuration is not valid
      */
-    private CloseableHttpClient buildHttpClient( )
+    public synchronized void reconfigure( HttpClientConfiguration httpClientConfiguration )
     {
+        if ( isClosed( ) )
+        {
+            throw new IllegalStateException( "HttpAccess - The service is closed" );
+        }
 
-        HttpClientBuilder clientBuilder = getHttpClientBuilder( );
+        HttpClientConfiguration configuration = snapshot( httpClientConfiguration );
+        ClientState previousState = _state;
+        _state = buildClientState( configuration );
+        _configuration = configuration;
 
-        if ( StringUtils.isNotBlank( _httpClientConfiguration.getProxyHost( ) ) )
+        if ( previousState != null )
         {
-            clientBuilder.setRoutePlanner( new ProxyRoutePlanner( _httpClientConfiguration.getProxyHost( ),
-                    Integer.parseInt( _httpClientConfiguration.getProxyPort( ) ), _httpClientConfiguration.getNoProxyFor( ) ) );
+            releasePool( previousState._pool, getDrainDeadline( configuration ) );
         }
+        AppLogService.info( "HttpAccess - Configuration reloaded" );
+        _warmUp = startWarmUp( _state );
+    }
 
-        if ( _httpClientConfiguration.getConnectionPoolMaxConnectionPerHost( ) != null
-                || _httpClientConfiguration.getConnectionPoolMaxTotalConnection( ) != null )
+    /**
+     * Open in the background the connections to the warm-up hosts of a configuration, and send them the warm-up request
+     * 
+     * @param state
+     *            the configuration and its clients
+     * @return the warm-up, completed once the connections are opened
+     */
+    private CompletableFuture<Void> startWarmUp( ClientState state )
+    {
+        HttpClientConfiguration configuration = state._configuration;
+        if ( StringUtils.isBlank( configuration.getWarmupHosts( ) ) )
         {
-            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager( );
+            return CompletableFuture.completedFuture( null );
+        }
 
-            if ( _httpClientConfiguration.getConnectionPoolMaxConnectionPerHost( ) != null )
-            {
-                connectionManager.setDefaultMaxPerRoute( _httpClientConfiguration.getConnectionPoolMaxConnectionPerHost( ) );
+        TimeValue keepAlive = ( configuration.getKeepAlive( ) != null )
+                ? TimeValue.ofMilliseconds( configuration.getKeepAlive( ) )
+                : state._defaultRequestConfig.getConnectionKeepAlive( );
+        DnsResolver dnsResolver = ( state._pool._dnsResolver != null ) ? state._pool._dnsResolver : SystemDefaultDnsResolver.INSTANCE;
+        ConnectionPoolWarmUp warmUp = new ConnectionPoolWarmUp( this, state._pool._connectionManager, buildRoutePlanner( configuration ), dnsResolver,
+                getHttp2Hosts( configuration ), keepAlive );
+        return warmUp.start( configuration.getWarmupHosts( ),
+                ( configuration.getWarmupConnections( ) != null ) ? configuration.getWarmupConnections( ) : 1, configuration.getWarmupMethod( ) );
+    }
+
+    /**
+     * Tells whether the warm-up of the connections is finished, successfully or not. A service without warm-up hosts is ready as soon as it is
+     * created.
+     * 
+     * @return true if the service is ready
+     */
+    public boolean isReady( )
+    {
+        return _warmUp.isDone( );
+    }
+
+    /**
+     * Gets the warm-up of the connections, to be notified when it is finished
+     * 
+     * @return the warm-up, completed once the connections to the warm-up hosts are opened
+     */
+    public CompletableFuture<Void> getWarmUp( )
+    {
+        return _warmUp;
+    }
+
+    /**
+     * Reload the configuration of this service from the properties, to be called after the properties of the webapp have been reloaded. The current
+     * configuration is kept if the properties are not valid.
+     */
+    public void reload( )
+    {
+        try
+        {
+            reconfigure( new PropertiesHttpClientConfiguration( _strName ) );
+        }
+        catch( IllegalArgumentException e )
+        {
+            AppLogService.error( "HttpAccess - The configuration has not been reloaded" );
+        }
+    }
+
+    /**
+     * Close this service : new requests are rejected, the properties are no longer watched, the outbox is stopped, a named service is removed from
+     * the registry and the connection pool is closed once it is no longer shared with another service and its connections are released, or when the
+     * drain timeout expires.
+     */
+    public synchronized void close( )
+    {
+        if ( _bClosed )
+        {
+            return;
+        }
+
+        _bClosed = true;
+        if ( _propertiesWatcher != null )
+        {
+            _propertiesWatcher.cancel( false );
+        }
+        if ( _outbox != null )
+        {
+            _outbox.close( );
+        }
+        if ( _strName != null )
+        {
+            _mapNamedServices.remove( _strName, this );
+        }
+
+        if ( _state != null )
+        {
+            releasePool( _state._pool, getDrainDeadline( _configuration ) );
+        }
+    }
+
+    /**
+     * Tells whether this service is closed, the requests sent through a closed service being rejected
+     * 
+     * @return true if the service or all the services have been closed
+     */
+    public boolean isClosed( )
+    {
+        return _bClosed || _bShutdown;
+    }
+
+    /**
+     * Shut down all the services, called when the webapp stops : new requests are rejected, the requests in flight are given the drain timeout of
+     * the default service to complete, then all the connection pools are closed, including the pools of the services that were never closed. The
+     * event stream clients, polling services and batch senders are closed first, so that the pending batches are still sent. The connections still
+     * leased at that time are reported as leaks. The background threads (deadlines, pagination, token and DNS refresh, warm-up) are stopped last.
+     * The shutdown is final : these threads are not restarted and every service, including the ones created afterwards, rejects the requests.
+     */
+    public static void shutdown( )
+    {
+        if ( _bShutdown )
+        {
+            return;
+        }
 
+        _bShutdown = true;
+        for ( Closeable component : new ArrayList<>( _setOpenComponents ) )
+        {
+            try
+            {
+                component.close( );
+            }
+            catch( IOException | RuntimeException e )
+            {
+                AppLogService.error( "HttpAccess - Unable to close " + component, e );
             }
+        }
+        HttpAccessService singleton = _bSingletonCreated ? SingletonHolder._singleton : null;
+        long lDeadline = getDrainDeadline( ( singleton != null ) ? singleton.getHttpClientConfiguration( ) : new HttpClientConfiguration( ) );
+        for ( HttpAccessService service : _mapNamedServices.values( ) )
+        {
+            service.close( );
+        }
+        if ( singleton != null )
+        {
+            singleton.close( );
+        }
+        _reloadExecutor.shutdownNow( );
 
-            if ( _httpClientConfiguration.getConnectionPoolMaxTotalConnection( ) != null )
+        try
+        {
+            while ( System.currentTimeMillis( ) < lDeadline
+                    && _setOpenPools.stream( ).anyMatch( pool -> pool._connectionManager.getTotalStats( ).getLeased( ) > 0 ) )
             {
-                connectionManager.setMaxTotal( _httpClientConfiguration.getConnectionPoolMaxTotalConnection( ) );
+                Thread.sleep( DRAIN_CHECK_INTERVAL );
             }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+
+        for ( ClientPool pool : new ArrayList<>( _setOpenPools ) )
+        {
+            closePool( pool );
+        }
+        HttpAccess.shutdownDeadlineTimer( );
+        PaginatedResourceIterator.shutdownFetchers( );
+        CachingAccessTokenProvider.shutdownRefreshExecutor( );
+        CachingDnsResolver.shutdownRefreshExecutor( );
+        ConnectionPoolWarmUp.shutdownExecutor( );
+        AppLogService.info( "HttpAccess - Services shut down" );
+    }
 
-            clientBuilder.setConnectionManager( connectionManager );
+    /**
+     * Register a component running its own threads or connections on top of the services, to close it when the services are shut down
+     * 
+     * @param component
+     *            the component, unregistered when it is closed
+     * @throws IllegalStateException
+     *             if the services are shut down
+     */
+    static void registerComponent( Closeable component )
+    {
+        if ( _bShutdown )
+        {
+            throw new IllegalStateException( "HttpAccess - The services are shut down" );
         }
+        _setOpenComponents.add( component );
+    }
+
+    /**
+     * Unregister a component closed before the services are shut down
+     * 
+     * @param component
+     *            the component
+     */
+    static void unregisterComponent( Closeable component )
+    {
+        _setOpenComponents.remove( component );
+    }
+
+    /**
+     * Gets the time after which a released connection pool is closed even if connections are still leased
+     * 
+     * @param configuration
+     *            the configuration
+     * @return the deadline
+     */
+    private static long getDrainDeadline( HttpClientConfiguration configuration )
+    {
+        long lDrainTimeout = ( configuration.getDrainTimeout( ) != null ) ? configuration.getDrainTimeout( ) : DEFAULT_DRAIN_TIMEOUT;
+
+        return System.currentTimeMillis( ) + lDrainTimeout;
+    }
 
-        if ( _httpClientConfiguration.getSocketTimeout( ) != null || _httpClientConfiguration.getConnectionTimeout( ) != null )
+    /**
+     * Release a connection pool used by a service, the pool being closed when no other service shares it
+     * 
+     * @param pool
+     *            the connection pool
+     * @param lDeadline
+     *            the time after which the pool is closed even if connections are still leased
+     */
+    private static void releasePool( ClientPool pool, long lDeadline )
+    {
+        if ( pool._listKey != null )
         {
-            RequestConfig.Builder requestConfiguilder = RequestConfig.custom( );
-            if ( _httpClientConfiguration.getConnectionTimeout( ) != null )
+            synchronized( _mapSharedPools )
             {
-                requestConfiguilder.setConnectTimeout( Timeout.ofMilliseconds( _httpClientConfiguration.getConnectionTimeout( ) ) );
+                pool._nReferences--;
+                if ( pool._nReferences > 0 )
+                {
+                    return;
+                }
 
+                _mapSharedPools.remove( pool._listKey );
             }
+        }
+
+        drain( pool, lDeadline );
+    }
+
+    /**
+     * Close the clients of a released connection pool once its connections are released
+     * 
+     * @param pool
+     *            the released connection pool
+     * @param lDeadline
+     *            the time after which the clients are closed even if connections are still leased
+     */
+    private static void drain( ClientPool pool, long lDeadline )
+    {
+        if ( pool._connectionManager.getTotalStats( ).getLeased( ) > 0 && System.currentTimeMillis( ) < lDeadline && !_reloadExecutor.isShutdown( ) )
+        {
+            _reloadExecutor.schedule( ( ) -> drain( pool, lDeadline ), DRAIN_CHECK_INTERVAL, TimeUnit.MILLISECONDS );
+
+            return;
+        }
+
+        closePool( pool );
+    }
+
+    /**
+     * Close the clients of a connection pool, reporting the connections still leased which would otherwise be cut off silently
+     * 
+     * @param pool
+     *            the connection pool
+     */
+    private static void closePool( ClientPool pool )
+    {
+        if ( !_setOpenPools.remove( pool ) )
+        {
+            return;
+        }
 
-            if ( _httpClientConfiguration.getSocketTimeout( ) != null )
+        int nLeased = pool._connectionManager.getTotalStats( ).getLeased( );
+        if ( nLeased > 0 )
+        {
+            StringBuilder sbRoutes = new StringBuilder( );
+            for ( HttpRoute route : pool._connectionManager.getRoutes( ) )
             {
+                int nRouteLeased = pool._connectionManager.getStats( route ).getLeased( );
+                if ( nRouteLeased > 0 )
+                {
+                    sbRoutes.append( ' ' ).append( route.getTargetHost( ) ).append( " (" ).append( nRouteLeased ).append( ')' );
+                }
+            }
+            AppLogService.error( "HttpAccess - Closing a connection pool with " + nLeased
+                    + " connections still leased, a response may not have been closed :" + sbRoutes );
+        }
 
-                requestConfiguilder.setResponseTimeout( Timeout.ofMilliseconds( _httpClientConfiguration.getSocketTimeout( ) ) );
+        pool._httpClient.close( CloseMode.GRACEFUL );
+    }
 
+    /**
+     * Reload the configuration when the httpAccess properties change, checking them periodically
+     * 
+     * @param nInterval
+     *            the interval between two checks in milliseconds
+     */
+    private void watchProperties( int nInterval )
+    {
+        Map<String, String> mapProperties = getProperties( );
+        _propertiesWatcher = _reloadExecutor.scheduleWithFixedDelay( ( ) -> {
+            Map<String, String> mapCurrentProperties = getProperties( );
+            if ( !mapCurrentProperties.equals( mapProperties ) )
+            {
+                mapProperties.clear( );
+                mapProperties.putAll( mapCurrentProperties );
+                reload( );
             }
-            clientBuilder.setDefaultRequestConfig( requestConfiguilder.build( ) );
-            // follow redirect
-            clientBuilder.setRedirectStrategy( DefaultRedirectStrategy.INSTANCE );
+        }, nInterval, nInterval, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Gets the httpAccess properties
+     * 
+     * @return the values of the properties, by key
+     */
+    private static Map<String, String> getProperties( )
+    {
+        Map<String, String> mapProperties = new HashMap<>( );
+        for ( String strKey : AppPropertiesService.getKeys( PREFIX_PROPERTIES ) )
+        {
+            mapProperties.put( strKey, AppPropertiesService.getProperty( strKey ) );
         }
 
-        return clientBuilder.build( );
+        return mapProperties;
     }
 
     /**
-     * Default Response status Validation
+     * Build the clients of a configuration
      * 
-     * @param nStatus
-     *            The status
-     * @return true if Response code is authorized
+     * @param configuration
+     *            the configuration
+     * @return the clients
      */
-    @Override
-    public boolean validate( int nStatus )
+    private ClientState buildClientState( HttpClientConfiguration configuration )
     {
-        return _responseValidator.validate( nStatus );
+        RequestConfig defaultRequestConfig = buildRequestConfig( configuration );
+        AuthCache authCache = new BasicAuthCache( );
+        BasicCredentialsProvider credentialsProvider = buildCredentialsProvider( configuration, authCache );
+        ClientPool pool = acquirePool( configuration, credentialsProvider, defaultRequestConfig );
+        SecurityInformationsCache securityInformationsCache = ( configuration.getSecurityInformationsCacheValidity( ) != null )
+                ? new SecurityInformationsCache( configuration.getSecurityInformationsCacheValidity( ) )
+                : null;
+
+        return new ClientState( configuration, pool, defaultRequestConfig, securityInformationsCache, authCache );
     }
 
+    /**
+     * Gets a connection pool for a configuration : the pool of another service with the same connection settings, or a new pool. The clients of
+     * the subclasses are never shared since they may be customized.
+     * 
+     * @param configuration
+     *            the configuration
+     * @param credentialsProvider
+     *            the credentials provider
+     * @param defaultRequestConfig
+     *            the request configuration
+     * @return the connection pool
+     */
+    private ClientPool acquirePool( HttpClientConfiguration configuration, BasicCredentialsProvider credentialsProvider,
+            RequestConfig defaultRequestConfig )
+    {
+        if ( getClass( ) != HttpAccessService.class )
+        {
+            return buildClientPool( null, configuration, credentialsProvider, defaultRequestConfig );
+        }
+
+        List<Object> listKey = getPoolKey( configuration );
+        synchronized( _mapSharedPools )
+        {
+            ClientPool pool = _mapSharedPools.get( listKey );
+            if ( pool != null )
+            {
+                pool._nReferences++;
+
+                return pool;
+            }
+
+            pool = buildClientPool( listKey, configuration, credentialsProvider, defaultRequestConfig );
+            _mapSharedPools.put( listKey, pool );
+
+            return pool;
+        }
+    }
+
+    /**
+     * Build a connection pool and its clients
+     * 
+     * @param listKey
+     *            the connection settings of a shared pool, null if the pool is not shared
+     * @param configuration
+     *            the configuration
+     * @param credentialsProvider
+     *            the credentials provider
+     * @param defaultRequestConfig
+     *            the request configuration
+     * @return the connection pool
+     */
+    private ClientPool buildClientPool( List<Object> listKey, HttpClientConfiguration configuration, BasicCredentialsProvider credentialsProvider,
+            RequestConfig defaultRequestConfig )
+    {
+        TlsSessionMetrics tlsSessionMetrics = new TlsSessionMetrics( );
+        DnsResolver dnsResolver = buildDnsResolver( configuration );
+        MeteredTlsStrategy tlsStrategy = buildTlsStrategy( configuration, tlsSessionMetrics );
+        PoolingHttpClientConnectionManager connectionManager = buildConnectionManager( configuration, dnsResolver, tlsStrategy );
+        CloseableHttpClient httpClient = buildHttpClient( configuration, connectionManager, credentialsProvider, defaultRequestConfig, dnsResolver,
+                tlsStrategy );
+
+        ClientPool pool = new ClientPool( listKey, httpClient, connectionManager, dnsResolver, tlsStrategy, tlsSessionMetrics );
+        _setOpenPools.add( pool );
+
+        return pool;
+    }
+
+    /**
+     * Gets the settings of a configuration used to build the connection pool and its clients. The services having the same settings share their
+     * pool, the timeouts of the requests and the response validation remaining specific to each service.
+     * 
+     * @param configuration
+     *            the configuration
+     * @return the connection settings
+     */
+    private static List<Object> getPoolKey( HttpClientConfiguration configuration )
+    {
+        List<Object> listKey = new ArrayList<>( );
+        Collections.addAll( listKey, configuration.getProxyHost( ), configuration.getProxyPort( ), configuration.getNoProxyFor( ),
+                configuration.getProxyUserName( ), configuration.getProxyPassword( ), configuration.isProxyPreemptiveAuthentication( ),
+                configuration.getHostName( ), configuration.getDomainName( ), configuration.getRealm( ), configuration.getConnectionTimeout( ),
+                configuration.getConnectionPoolMaxTotalConnection( ), configuration.getConnectionPoolMaxConnectionPerHost( ),
+                configuration.getPoolReusePolicy( ), configuration.getPoolConcurrencyPolicy( ), configuration.getKeepAlive( ),
+                configuration.getMaxKeepAlive( ), configuration.getTlsProtocols( ), configuration.getTlsCipherSuites( ),
+                configuration.getTlsSessionCacheSize( ), configuration.getTlsSessionTimeout( ), configuration.getTrustStore( ),
+                configuration.getTrustStorePassword( ), configuration.getTrustStoreType( ), configuration.getDnsTtl( ),
+                configuration.getDnsNegativeTtl( ), configuration.getDnsHosts( ), configuration.getDnsResolver( ) );
+        addSocketOptions( listKey, configuration.getSocketOptions( ) );
+
+        for ( HostCredentials hostCredentials : configuration.getHostCredentials( ) )
+        {
+            Collections.addAll( listKey, hostCredentials.getUrl( ), hostCredentials.getUserName( ), hostCredentials.getPassword( ),
+                    hostCredentials.isPreemptive( ) );
+        }
+
+        for ( HostRoute hostRoute : configuration.getHostRoutes( ) )
+        {
+            Collections.addAll( listKey, hostRoute.getUrl( ), hostRoute.getProtocol( ), hostRoute.getMaxKeepAlive( ) );
+            addSocketOptions( listKey, hostRoute.getSocketOptions( ) );
+            if ( hostRoute.isHttp2( ) )
+            {
+                // the socket timeout bounds the operations of the HTTP/2 client
+                listKey.add( configuration.getSocketTimeout( ) );
+            }
+        }
+
+        return listKey;
+    }
+
+    /**
+     * Add socket options to the settings of a connection pool
+     * 
+     * @param listKey
+     *            the connection settings
+     * @param socketOptions
+     *            the socket options
+     */
+    private static void addSocketOptions( List<Object> listKey, SocketOptions socketOptions )
+    {
+        Collections.addAll( listKey, socketOptions.getTcpNoDelay( ), socketOptions.getSoKeepAlive( ), socketOptions.getRcvBufSize( ),
+                socketOptions.getSndBufSize( ), socketOptions.getSoLinger( ), socketOptions.getSoTimeout( ) );
+    }
+
+    /**
+     * Procure a HttpClientBuilder
+     * 
+     * @return a HttpClientBuilder
+     */
+    protected HttpClientBuilder getHttpClientBuilder( )
+    {
+        return HttpClients.custom( );
+    }
+
+    /**
+     * Procure the builder of the HTTP/2 client used for the hosts configured with the h2 or h2c protocol
+     * 
+     * @return a H2AsyncClientBuilder
+     */
+    protected H2AsyncClientBuilder getHttp2ClientBuilder( )
+    {
+        return HttpAsyncClients.customHttp2( );
+    }
+
+    /**
+     * Gets the counters of the full and resumed TLS handshakes of the connections of this service, and of the services sharing its connection pool
+     * 
+     * @return the TLS session metrics
+     */
+    public TlsSessionMetrics getTlsSessionMetrics( )
+    {
+        return getState( )._pool._tlsSessionMetrics;
+    }
+
+    /**
+     * Gets the resolver of the host names of the connections of this service. The resolver built from the DNS settings is a
+     * {@link CachingDnsResolver} exposing the lookup metrics.
+     * 
+     * @return the DNS resolver, null if the resolver of the JVM is used
+     */
+    public DnsResolver getDnsResolver( )
+    {
+        return getState( )._pool._dnsResolver;
+    }
+
+    /**
+     * Gets the TLS strategy of the connections, to share the SSL context and its session cache with the other clients of this service
+     * 
+     * @return the TLS strategy
+     */
+    TlsStrategy getTlsStrategy( )
+    {
+        return getState( )._pool._tlsStrategy;
+    }
+
+    /**
+     * Gets the client of this service. The client may be shared with the services having the same connection settings : the requests should be sent
+     * with a context created by {@link #createHttpContext( )} to apply the timeouts and the bearer tokens of this service.
+     * 
+     * @return the client
+     * @throws IllegalStateException
+     *             if the service is closed
+     */
+    public CloseableHttpClient getHttpClient( )
+    {
+        return getState( )._pool._httpClient;
+    }
+
+    /**
+     * Gets the request configuration of the client, built from the configured timeouts
+     * 
+     * @return the default request configuration
+     * @throws IllegalStateException
+     *             if the service is closed
+     */
+    public RequestConfig getDefaultRequestConfig( )
+    {
+        return getState( )._defaultRequestConfig;
+    }
+
+    /**
+     * Create the context of a request, sharing the auth cache of this service so that the authentication schemes negotiated with the proxy or the
+     * target hosts are reused by all the connections.
+     * 
+     * @return a new request context
+     */
+    public HttpClientContext createHttpContext( )
+    {
+        return createHttpContext( null );
+    }
+
+    /**
+     * Create the context of a request, sharing the auth cache of this service and using the given cookie store. The context carries the request
+     * configuration and the bearer token providers of this service, its client being possibly shared.
+     * 
+     * @param cookieStore
+     *            the cookie store keeping the session of the caller, null to use the cookie store of the client
+     * @return a new request context
+     */
+    public HttpClientContext createHttpContext( CookieStore cookieStore )
+    {
+        HttpClientContext context = HttpClientContext.create( );
+        ClientState state = getState( );
+        context.setAuthCache( state._authCache );
+        context.setRequestConfig( state._defaultRequestConfig );
+        context.setAttribute( ATTRIBUTE_ACCESS_TOKEN_PROVIDERS, _mapAccessTokenProviders );
+        if ( cookieStore != null )
+        {
+            context.setCookieStore( cookieStore );
+        }
+
+        return context;
+    }
+
+    /**
+     * Gets the security informations of a request, from the cache when it is enabled
+     * 
+     * @param authenticator
+     *            the authenticator
+     * @param listElements
+     *            the elements to sign
+     * @return the security informations
+     */
+    AuthenticateRequestInformations getSecurityInformations( RequestAuthenticator authenticator, List<String> listElements )
+    {
+        // a closed service rejects the request afterwards
+        SecurityInformationsCache securityInformationsCache = isClosed( ) ? null : getState( )._securityInformationsCache;
+        if ( securityInformationsCache == null )
+        {
+            return authenticator.getSecurityInformations( listElements );
+        }
+
+        return securityInformationsCache.getSecurityInformations( authenticator, listElements );
+    }
+
+    /**
+     * Register the provider of the bearer tokens sent to a host. The token is added to all the requests to this host that don't already carry an
+     * Authorization header. Wrap the provider in a {@link CachingAccessTokenProvider} to avoid fetching a token on each request.
+     * 
+     * @param strUrl
+     *            the url of the host (scheme, host name and port)
+     * @param provider
+     *            the token provider, null to remove the current one
+     */
+    public void setAccessTokenProvider( String strUrl, AccessTokenProvider provider )
+    {
+        String strKey = getHostKey( strUrl );
+
+        if ( provider != null )
+        {
+            _mapAccessTokenProviders.put( strKey, provider );
+        }
+        else
+        {
+            _mapAccessTokenProviders.remove( strKey );
+        }
+    }
+
+    /**
+     * Request interceptor adding the bearer token of the target host, from the providers of the service that created the context. The client being
+     * shared by the services with the same connection settings, a request sent without such a context gets no token.
+     * 
+     * @param request
+     *            the request
+     * @param entity
+     *            the request entity details
+     * @param context
+     *            the context
+     * @throws IOException
+     *             if the token can't be obtained
+     */
+    @SuppressWarnings( "unchecked" )
+    private static void addAccessToken( HttpRequest request, EntityDetails entity, HttpContext context ) throws IOException
+    {
+        Map<String, AccessTokenProvider> mapAccessTokenProviders = (Map<String, AccessTokenProvider>) context
+                .getAttribute( ATTRIBUTE_ACCESS_TOKEN_PROVIDERS );
+
+        URIAuthority authority = request.getAuthority( );
+        if ( mapAccessTokenProviders == null || mapAccessTokenProviders.isEmpty( ) || authority == null
+                || request.containsHeader( HttpHeaders.AUTHORIZATION ) )
+        {
+            return;
+        }
+
+        AccessTokenProvider provider = mapAccessTokenProviders
+                .get( getHostKey( request.getScheme( ), authority.getHostName( ), authority.getPort( ) ) );
+        if ( provider != null )
+        {
+            try
+            {
+                request.addHeader( HttpHeaders.AUTHORIZATION, "Bearer " + provider.getAccessToken( ).getValue( ) );
+            }
+            catch( HttpAccessException e )
+            {
+                throw new IOException( e.getMessage( ), e );
+            }
+        }
+    }
+
+    /**
+     * Build the key identifying the host of an url
+     * 
+     * @param strUrl
+     *            the url of the host (scheme, host name and port)
+     * @return the key
+     */
+    static String getHostKey( String strUrl )
+    {
+        URI uri = URI.create( strUrl.trim( ) );
+
+        return getHostKey( uri.getScheme( ), uri.getHost( ), uri.getPort( ) );
+    }
+
+    /**
+     * Build the key identifying the target host of a route
+     * 
+     * @param route
+     *            the route
+     * @return the key
+     */
+    private static String getHostKey( HttpRoute route )
+    {
+        HttpHost target = route.getTargetHost( );
+
+        return getHostKey( target.getSchemeName( ), target.getHostName( ), target.getPort( ) );
+    }
+
+    /**
+     * Build the key identifying a host, resolving the default port of the scheme
+     * 
+     * @param strScheme
+     *            the scheme
+     * @param strHost
+     *            the host name
+     * @param nPort
+     *            the port, -1 for the default port
+     * @return the key
+     */
+    static String getHostKey( String strScheme, String strHost, int nPort )
+    {
+        String strLowerScheme = StringUtils.defaultString( strScheme, URIScheme.HTTP.id ).toLowerCase( Locale.ROOT );
+        int nResolvedPort = nPort;
+        if ( nResolvedPort < 0 )
+        {
+            nResolvedPort = URIScheme.HTTPS.same( strLowerScheme ) ? 443 : 80;
+        }
+
+        return strLowerScheme + "://" + strHost.toLowerCase( Locale.ROOT ) + ":" + nResolvedPort;
+    }
+
+    /**
+     * get an HTTP client object using a configuration.
+     *
+     * @param configuration
+     *            the configuration
+     * @param connectionManager
+     *            the connection manager
+     * @param credentialsProvider
+     *            the credentials provider
+     * @param defaultRequestConfig
+     *            the request configuration
+     * @param dnsResolver
+     *            the DNS resolver, null for the resolver of the JVM
+     * @param tlsStrategy
+     *            the TLS strategy
+     * @return An HTTP client authenticated
+     */
+    private CloseableHttpClient buildHttpClient( HttpClientConfiguration configuration, PoolingHttpClientConnectionManager connectionManager,
+            BasicCredentialsProvider credentialsProvider, RequestConfig defaultRequestConfig, DnsResolver dnsResolver, MeteredTlsStrategy tlsStrategy )
+    {
+
+        HttpClientBuilder clientBuilder = getHttpClientBuilder( );
+
+        clientBuilder.setRoutePlanner( buildRoutePlanner( configuration ) );
+        clientBuilder.setDefaultCredentialsProvider( credentialsProvider );
+        clientBuilder.addRequestInterceptorLast( HttpAccessService::addAccessToken );
+
+        clientBuilder.setConnectionManager( connectionManager );
+
+        clientBuilder.setDefaultRequestConfig( defaultRequestConfig );
+        // follow redirect
+        clientBuilder.setRedirectStrategy( DefaultRedirectStrategy.INSTANCE );
+
+        Map<String, TimeValue> mapMaxKeepAlives = new HashMap<>( );
+        for ( HostRoute hostRoute : configuration.getHostRoutes( ) )
+        {
+            if ( hostRoute.getMaxKeepAlive( ) != null )
+            {
+                mapMaxKeepAlives.put( getHostKey( hostRoute.getUrl( ) ), TimeValue.ofMilliseconds( hostRoute.getMaxKeepAlive( ) ) );
+            }
+        }
+
+        if ( configuration.getKeepAlive( ) != null || configuration.getMaxKeepAlive( ) != null || !mapMaxKeepAlives.isEmpty( ) )
+        {
+            TimeValue defaultKeepAlive = ( configuration.getKeepAlive( ) != null )
+                    ? TimeValue.ofMilliseconds( configuration.getKeepAlive( ) )
+                    : defaultRequestConfig.getConnectionKeepAlive( );
+            TimeValue maxKeepAlive = ( configuration.getMaxKeepAlive( ) != null )
+                    ? TimeValue.ofMilliseconds( configuration.getMaxKeepAlive( ) )
+                    : null;
+            clientBuilder.setKeepAliveStrategy( new KeepAliveStrategy( defaultKeepAlive, maxKeepAlive, mapMaxKeepAlives ) );
+        }
+
+        CloseableHttpClient httpClient = clientBuilder.build( );
+
+        Set<String> setHttp2Hosts = getHttp2Hosts( configuration );
+        if ( setHttp2Hosts.isEmpty( ) )
+        {
+            return httpClient;
+        }
+
+        // the streams of the requests to a host are multiplexed over a single connection
+        CloseableHttpAsyncClient http2AsyncClient = getHttp2ClientBuilder( ).setTlsStrategy( tlsStrategy ).setDnsResolver( dnsResolver )
+                .setIOReactorConfig( buildIOReactorConfig( configuration.getSocketOptions( ) ) )
+                .setDefaultCredentialsProvider( credentialsProvider ).addRequestInterceptorLast( HttpAccessService::addAccessToken )
+                .setDefaultRequestConfig( defaultRequestConfig ).build( );
+        http2AsyncClient.start( );
+
+        Timeout operationTimeout = ( configuration.getSocketTimeout( ) != null )
+                ? Timeout.ofMilliseconds( configuration.getSocketTimeout( ) )
+                : DEFAULT_HTTP2_OPERATION_TIMEOUT;
+
+        return new RoutingHttpClient( httpClient, http2AsyncClient, setHttp2Hosts, operationTimeout );
+    }
+
+    /**
+     * Build the route planner of the client, sending the requests through the proxy except for the hosts excluded from it
+     * 
+     * @param configuration
+     *            the configuration
+     * @return the route planner
+     */
+    private static HttpRoutePlanner buildRoutePlanner( HttpClientConfiguration configuration )
+    {
+        if ( StringUtils.isNotBlank( configuration.getProxyHost( ) ) )
+        {
+            return new ProxyRoutePlanner( configuration.getProxyHost( ), Integer.parseInt( configuration.getProxyPort( ) ),
+                    configuration.getNoProxyFor( ) );
+        }
+
+        return new DefaultRoutePlanner( null );
+    }
+
+    /**
+     * Gets the hosts configured with the h2 or h2c protocol
+     * 
+     * @param configuration
+     *            the configuration
+     * @return the keys of the hosts
+     */
+    private static Set<String> getHttp2Hosts( HttpClientConfiguration configuration )
+    {
+        Set<String> setHttp2Hosts = ConcurrentHashMap.newKeySet( );
+        for ( HostRoute hostRoute : configuration.getHostRoutes( ) )
+        {
+            if ( hostRoute.isHttp2( ) )
+            {
+                setHttp2Hosts.add( getHostKey( hostRoute.getUrl( ) ) );
+            }
+        }
+
+        return setHttp2Hosts;
+    }
+
+    /**
+     * Build the credentials provider of the proxy and the target hosts, the preemptive schemes being put in the auth cache
+     * 
+     * @param configuration
+     *            the configuration
+     * @param authCache
+     *            the auth cache of the configuration
+     * @return the credentials provider
+     */
+    private BasicCredentialsProvider buildCredentialsProvider( HttpClientConfiguration configuration, AuthCache authCache )
+    {
+        BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider( );
+
+        if ( StringUtils.isNotBlank( configuration.getProxyHost( ) ) && StringUtils.isNotBlank( configuration.getProxyUserName( ) ) )
+        {
+            addProxyCredentials( configuration, credentialsProvider, authCache, configuration.getProxyHost( ),
+                    Integer.parseInt( configuration.getProxyPort( ) ) );
+        }
+
+        for ( HostCredentials hostCredentials : configuration.getHostCredentials( ) )
+        {
+            addHostCredentials( credentialsProvider, authCache, hostCredentials );
+        }
+
+        return credentialsProvider;
+    }
+
+    /**
+     * Build the request configuration from the configured timeouts
+     * 
+     * @param configuration
+     *            the configuration
+     * @return the default request configuration
+     */
+    private static RequestConfig buildRequestConfig( HttpClientConfiguration configuration )
+    {
+        if ( configuration.getSocketTimeout( ) == null && configuration.getConnectionTimeout( ) == null
+                && configuration.getConnectionRequestTimeout( ) == null )
+        {
+            return RequestConfig.DEFAULT;
+        }
+
+        RequestConfig.Builder requestConfiguilder = RequestConfig.custom( );
+        if ( configuration.getConnectionTimeout( ) != null )
+        {
+            requestConfiguilder.setConnectTimeout( Timeout.ofMilliseconds( configuration.getConnectionTimeout( ) ) );
+        }
+        if ( configuration.getSocketTimeout( ) != null )
+        {
+            requestConfiguilder.setResponseTimeout( Timeout.ofMilliseconds( configuration.getSocketTimeout( ) ) );
+        }
+        if ( configuration.getConnectionRequestTimeout( ) != null )
+        {
+            requestConfiguilder.setConnectionRequestTimeout( Timeout.ofMilliseconds( configuration.getConnectionRequestTimeout( ) ) );
+        }
+
+        return requestConfiguilder.build( );
+    }
+
+    /**
+     * Build the pool of the blocking connections
+     * 
+     * @param configuration
+     *            the configuration
+     * @param dnsResolver
+     *            the DNS resolver, null for the resolver of the JVM
+     * @param tlsStrategy
+     *            the TLS strategy
+     * @return the connection manager
+     */
+    private static PoolingHttpClientConnectionManager buildConnectionManager( HttpClientConfiguration configuration, DnsResolver dnsResolver,
+            MeteredTlsStrategy tlsStrategy )
+    {
+        PoolingHttpClientConnectionManagerBuilder connectionManagerBuilder = PoolingHttpClientConnectionManagerBuilder.create( )
+                .setTlsSocketStrategy( tlsStrategy ).setDnsResolver( dnsResolver );
+
+        if ( configuration.getConnectionPoolMaxConnectionPerHost( ) != null )
+        {
+            connectionManagerBuilder.setMaxConnPerRoute( configuration.getConnectionPoolMaxConnectionPerHost( ) );
+        }
+
+        if ( configuration.getConnectionPoolMaxTotalConnection( ) != null )
+        {
+            connectionManagerBuilder.setMaxConnTotal( configuration.getConnectionPoolMaxTotalConnection( ) );
+        }
+
+        if ( configuration.getPoolReusePolicy( ) != null )
+        {
+            connectionManagerBuilder.setConnPoolPolicy( configuration.getPoolReusePolicy( ) );
+        }
+
+        if ( configuration.getPoolConcurrencyPolicy( ) != null )
+        {
+            connectionManagerBuilder.setPoolConcurrencyPolicy( configuration.getPoolConcurrencyPolicy( ) );
+        }
+
+        SocketOptions socketOptions = configuration.getSocketOptions( );
+        SocketConfig defaultSocketConfig = buildSocketConfig( socketOptions );
+        ConnectionConfig defaultConnectionConfig = buildConnectionConfig( configuration, socketOptions );
+        Map<String, SocketConfig> mapSocketConfigs = new HashMap<>( );
+        Map<String, ConnectionConfig> mapConnectionConfigs = new HashMap<>( );
+        for ( HostRoute hostRoute : configuration.getHostRoutes( ) )
+        {
+            // the options of the route override the global ones
+            String strHostKey = getHostKey( hostRoute.getUrl( ) );
+            mapSocketConfigs.put( strHostKey, buildSocketConfig( socketOptions, hostRoute.getSocketOptions( ) ) );
+            mapConnectionConfigs.put( strHostKey, buildConnectionConfig( configuration, socketOptions, hostRoute.getSocketOptions( ) ) );
+        }
+        connectionManagerBuilder.setSocketConfigResolver( route -> mapSocketConfigs.getOrDefault( getHostKey( route ), defaultSocketConfig ) );
+        connectionManagerBuilder
+                .setConnectionConfigResolver( route -> mapConnectionConfigs.getOrDefault( getHostKey( route ), defaultConnectionConfig ) );
+
+        return connectionManagerBuilder.build( );
+    }
+
+    /**
+     * Build the configuration of the sockets of the blocking connections
+     * 
+     * @param listSocketOptions
+     *            the socket options, the last ones overriding the first ones
+     * @return the socket configuration
+     */
+    private static SocketConfig buildSocketConfig( SocketOptions... listSocketOptions )
+    {
+        SocketConfig.Builder builder = SocketConfig.custom( );
+        for ( SocketOptions socketOptions : listSocketOptions )
+        {
+            if ( socketOptions.getTcpNoDelay( ) != null )
+            {
+                builder.setTcpNoDelay( socketOptions.getTcpNoDelay( ) );
+            }
+            if ( socketOptions.getSoKeepAlive( ) != null )
+            {
+                builder.setSoKeepAlive( socketOptions.getSoKeepAlive( ) );
+            }
+            if ( socketOptions.getRcvBufSize( ) != null )
+            {
+                builder.setRcvBufSize( socketOptions.getRcvBufSize( ) );
+            }
+            if ( socketOptions.getSndBufSize( ) != null )
+            {
+                builder.setSndBufSize( socketOptions.getSndBufSize( ) );
+            }
+            if ( socketOptions.getSoLinger( ) != null )
+            {
+                builder.setSoLinger( TimeValue.ofSeconds( socketOptions.getSoLinger( ) ) );
+            }
+            if ( socketOptions.getSoTimeout( ) != null )
+            {
+                builder.setSoTimeout( Timeout.ofMilliseconds( socketOptions.getSoTimeout( ) ) );
+            }
+        }
+
+        return builder.build( );
+    }
+
+    /**
+     * Build the configuration of the blocking connections, with the connect timeout and the socket timeout applied once the connection is
+     * established
+     * 
+     * @param configuration
+     *            the configuration
+     * @param listSocketOptions
+     *            the socket options, the last ones overriding the first ones
+     * @return the connection configuration
+     */
+    private static ConnectionConfig buildConnectionConfig( HttpClientConfiguration configuration, SocketOptions... listSocketOptions )
+    {
+        ConnectionConfig.Builder builder = ConnectionConfig.custom( );
+        if ( configuration.getConnectionTimeout( ) != null )
+        {
+            builder.setConnectTimeout( Timeout.ofMilliseconds( configuration.getConnectionTimeout( ) ) );
+        }
+        for ( SocketOptions socketOptions : listSocketOptions )
+        {
+            if ( socketOptions.getSoTimeout( ) != null )
+            {
+                builder.setSocketTimeout( Timeout.ofMilliseconds( socketOptions.getSoTimeout( ) ) );
+            }
+        }
+
+        return builder.build( );
+    }
+
+    /**
+     * Build the configuration of the I/O reactor of the HTTP/2 client, which applies the global socket options to all its connections
+     * 
+     * @param socketOptions
+     *            the socket options
+     * @return the I/O reactor configuration
+     */
+    private static IOReactorConfig buildIOReactorConfig( SocketOptions socketOptions )
+    {
+        IOReactorConfig.Builder builder = IOReactorConfig.custom( );
+        if ( socketOptions.getTcpNoDelay( ) != null )
+        {
+            builder.setTcpNoDelay( socketOptions.getTcpNoDelay( ) );
+        }
+        if ( socketOptions.getSoKeepAlive( ) != null )
+        {
+            builder.setSoKeepAlive( socketOptions.getSoKeepAlive( ) );
+        }
+        if ( socketOptions.getRcvBufSize( ) != null )
+        {
+            builder.setRcvBufSize( socketOptions.getRcvBufSize( ) );
+        }
+        if ( socketOptions.getSndBufSize( ) != null )
+        {
+            builder.setSndBufSize( socketOptions.getSndBufSize( ) );
+        }
+        if ( socketOptions.getSoLinger( ) != null )
+        {
+            builder.setSoLinger( TimeValue.ofSeconds( socketOptions.getSoLinger( ) ) );
+        }
+        if ( socketOptions.getSoTimeout( ) != null )
+        {
+            builder.setSoTimeout( Timeout.ofMilliseconds( socketOptions.getSoTimeout( ) ) );
+        }
+
+        return builder.build( );
+    }
+
+    /**
+     * Build the resolver of the host names : the configured resolver, or a caching resolver when a DNS time to live or static hosts are configured
+     * 
+     * @param configuration
+     *            the configuration
+     * @return the DNS resolver, null to use the resolver of the JVM
+     */
+    private static DnsResolver buildDnsResolver( HttpClientConfiguration configuration )
+    {
+        if ( configuration.getDnsResolver( ) != null )
+        {
+            return configuration.getDnsResolver( );
+        }
+
+        if ( configuration.getDnsTtl( ) == null && StringUtils.isBlank( configuration.getDnsHosts( ) ) )
+        {
+            return null;
+        }
+
+        return new CachingDnsResolver( SystemDefaultDnsResolver.INSTANCE,
+                ( configuration.getDnsTtl( ) != null ) ? configuration.getDnsTtl( ) : DEFAULT_DNS_TTL,
+                ( configuration.getDnsNegativeTtl( ) != null ) ? configuration.getDnsNegativeTtl( ) : 0,
+                CachingDnsResolver.parseStaticHosts( configuration.getDnsHosts( ) ) );
+    }
+
+    /**
+     * Build the TLS strategy of the connections from the configured protocols, cipher suites, session cache and truststore
+     * 
+     * @param configuration
+     *            the configuration
+     * @param tlsSessionMetrics
+     *            the counters of the TLS handshakes
+     * @return the TLS strategy
+     */
+    private static MeteredTlsStrategy buildTlsStrategy( HttpClientConfiguration configuration, TlsSessionMetrics tlsSessionMetrics )
+    {
+        SSLContext sslContext = buildSslContext( configuration );
+
+        // the session cache of the client context allows the handshakes with a known server to be abbreviated
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext( );
+        if ( configuration.getTlsSessionCacheSize( ) != null )
+        {
+            sessionContext.setSessionCacheSize( configuration.getTlsSessionCacheSize( ) );
+        }
+        if ( configuration.getTlsSessionTimeout( ) != null )
+        {
+            sessionContext.setSessionTimeout( configuration.getTlsSessionTimeout( ) );
+        }
+
+        ClientTlsStrategyBuilder tlsStrategyBuilder = ClientTlsStrategyBuilder.create( ).setSslContext( sslContext )
+                .setTlsVersions( split( configuration.getTlsProtocols( ) ) )
+                .setCiphers( split( configuration.getTlsCipherSuites( ) ) );
+
+        return new MeteredTlsStrategy( tlsStrategyBuilder.buildClassic( ), tlsStrategyBuilder.build( ), tlsSessionMetrics );
+    }
+
+    /**
+     * Build the SSL context of the connections, trusting the certificates of the configured truststore or the default ones. A dedicated context is
+     * created so that its session cache settings don't apply to the whole JVM.
+     * 
+     * @param configuration
+     *            the configuration
+     * @return the SSL context
+     */
+    static SSLContext buildSslContext( HttpClientConfiguration configuration )
+    {
+        try
+        {
+            KeyStore trustStore = loadTrustStore( configuration );
+
+            if ( trustStore == null )
+            {
+                return SSLContexts.custom( ).build( );
+            }
+
+            return SSLContexts.custom( ).loadTrustMaterial( trustStore, null ).build( );
+        }
+        catch( IOException | GeneralSecurityException e )
+        {
+            AppLogService.error( "HttpAccess - Unable to load the truststore " + configuration.getTrustStore( )
+                    + ", the default trusted certificates are used", e );
+
+            return SSLContexts.createDefault( );
+        }
+    }
+
+    /**
+     * Load the configured truststore
+     * 
+     * @param configuration
+     *            the configuration
+     * @return the truststore, null if none is configured
+     * @throws IOException
+     *             if the truststore can't be read
+     * @throws GeneralSecurityException
+     *             if the truststore type is unknown or its content can't be verified
+     */
+    static KeyStore loadTrustStore( HttpClientConfiguration configuration ) throws IOException, GeneralSecurityException
+    {
+        String strTrustStore = configuration.getTrustStore( );
+
+        if ( StringUtils.isBlank( strTrustStore ) )
+        {
+            return null;
+        }
+
+        String strPassword = configuration.getTrustStorePassword( );
+        KeyStore trustStore = KeyStore.getInstance( StringUtils.defaultIfBlank( configuration.getTrustStoreType( ), KeyStore.getDefaultType( ) ) );
+        try ( InputStream in = new FileInputStream( strTrustStore ) )
+        {
+            trustStore.load( in, ( strPassword != null ) ? strPassword.toCharArray( ) : null );
+        }
+
+        return trustStore;
+    }
+
+    /**
+     * Split a list of values separated by commas
+     * 
+     * @param strValues
+     *            the values
+     * @return the values without the blank ones, null if there is none
+     */
+    static String [ ] split( String strValues )
+    {
+        List<String> listValues = new ArrayList<>( );
+
+        for ( String strValue : StringUtils.split( StringUtils.defaultString( strValues ), ',' ) )
+        {
+            if ( StringUtils.isNotBlank( strValue ) )
+            {
+                listValues.add( strValue.trim( ) );
+            }
+        }
+
+        return listValues.isEmpty( ) ? null : listValues.toArray( new String [ 0] );
+    }
+
+    /**
+     * Register the proxy credentials. NTLM credentials are used when a host name or a domain name is configured, user name and password credentials
+     * otherwise (Basic or Digest). Basic credentials are put in the auth cache when the proxy authentication is preemptive.
+     * 
+     * @param credentialsProvider
+     *            the credentials provider of the client
+     * @param authCache
+     *            the auth cache receiving the preemptive scheme
+     * @param strProxyHost
+     *            the proxy host
+     * @param nProxyPort
+     *            the proxy port
+     */
+    @SuppressWarnings( "deprecation" )
+    private void addProxyCredentials( HttpClientConfiguration configuration, BasicCredentialsProvider credentialsProvider, AuthCache authCache,
+            String strProxyHost, int nProxyPort )
+    {
+        char [ ] password = StringUtils.defaultString( configuration.getProxyPassword( ) ).toCharArray( );
+        String strRealm = StringUtils.trimToNull( configuration.getRealm( ) );
+        Credentials credentials;
+
+        if ( StringUtils.isNotBlank( configuration.getHostName( ) ) || StringUtils.isNotBlank( configuration.getDomainName( ) ) )
+        {
+            credentials = new NTCredentials( configuration.getProxyUserName( ), password, configuration.getHostName( ),
+                    configuration.getDomainName( ) );
+        }
+        else
+        {
+            credentials = new UsernamePasswordCredentials( configuration.getProxyUserName( ), password );
+
+            if ( configuration.isProxyPreemptiveAuthentication( ) )
+            {
+                BasicScheme basicScheme = new BasicScheme( );
+                basicScheme.initPreemptive( credentials );
+                authCache.put( new HttpHost( "http", strProxyHost, nProxyPort ), basicScheme );
+            }
+        }
+
+        credentialsProvider.setCredentials( new AuthScope( null, strProxyHost, nProxyPort, strRealm, null ), credentials );
+    }
+
+    /**
+     * Register the credentials of a target host. Basic credentials are put in the auth cache when the authentication is preemptive.
+     * 
+     * @param credentialsProvider
+     *            the credentials provider of the client
+     * @param authCache
+     *            the auth cache receiving the preemptive scheme
+     * @param hostCredentials
+     *            the host credentials
+     */
+    private void addHostCredentials( BasicCredentialsProvider credentialsProvider, AuthCache authCache, HostCredentials hostCredentials )
+    {
+        HttpHost host;
+        try
+        {
+            host = HttpHost.create( new URI( hostCredentials.getUrl( ) ) );
+        }
+        catch( URISyntaxException | IllegalArgumentException e )
+        {
+            AppLogService.error( "HttpAccess - Invalid authentication url " + hostCredentials.getUrl( ), e );
+            return;
+        }
+
+        UsernamePasswordCredentials credentials = new UsernamePasswordCredentials( hostCredentials.getUserName( ),
+                StringUtils.defaultString( hostCredentials.getPassword( ) ).toCharArray( ) );
+        credentialsProvider.setCredentials( new AuthScope( host ), credentials );
+
+        if ( hostCredentials.isPreemptive( ) )
+        {
+            BasicScheme basicScheme = new BasicScheme( );
+            basicScheme.initPreemptive( credentials );
+            authCache.put( host, basicScheme );
+        }
+    }
+
+    /**
+     * Gets the outbox of this service, opening it on first call. Requests not sent before the previous shutdown are sent again. The journal of a
+     * named service is kept in a sub-directory named after the service, and the journal is locked while it is open so that two services or two
+     * processes never share it.
+     * 
+     * @return the outbox
+     * @throws HttpAccessException
+     *             if the outbox journal can't be opened, or is used by another service or process
+     */
+    public synchronized HttpOutbox getOutbox( ) throws HttpAccessException
+    {
+        if ( _outbox == null )
+        {
+            HttpClientConfiguration configuration = getHttpClientConfiguration( );
+            File directory;
+            if ( StringUtils.isNotBlank( configuration.getOutboxDirectory( ) ) )
+            {
+                // the directory of a named service may be inherited from the default one
+                directory = ( _strName != null ) ? new File( configuration.getOutboxDirectory( ), _strName )
+                        : new File( configuration.getOutboxDirectory( ) );
+            }
+            else
+            {
+                directory = new File( new File( System.getProperty( "java.io.tmpdir" ), DEFAULT_OUTBOX_DIRECTORY ),
+                        StringUtils.defaultString( _strName, DEFAULT_OUTBOX_SERVICE_DIRECTORY ) );
+                AppLogService.info( "HttpAccess - No outbox directory configured, using " + directory );
+            }
+
+            try
+            {
+                _outbox = new HttpOutbox( this, directory,
+                        ( configuration.getOutboxSegmentSize( ) != null ) ? configuration.getOutboxSegmentSize( )
+                                : DEFAULT_OUTBOX_SEGMENT_SIZE,
+                        configuration.isOutboxSync( ) );
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( "HttpAccess - Unable to open the outbox " + directory + " : " + e.getMessage( ), e );
+                throw new HttpAccessException( "HttpAccess - Unable to open the outbox " + directory + " : " + e.getMessage( ), e );
+            }
+        }
+
+        return _outbox;
+    }
+
+    /**
+     * Default Response status Validation
+     * 
+     * @param nStatus
+     *            The status
+     * @return true if Response code is authorized
+     */
+    @Override
+    public boolean validate( int nStatus )
+    {
+        return _responseValidator.validate( nStatus );
+    }
+
+    /**
+     * Holder of the default service, created on first use rather than when the class is loaded
+     */
+    private static final class SingletonHolder
+    {
+        private static final HttpAccessService _singleton = createSingleton( );
+    }
+
+    /**
+     * The configuration of the service and the clients built from it
+     */
+    private static final class ClientState
+    {
+        private final HttpClientConfiguration _configuration;
+        private final ClientPool _pool;
+        private final RequestConfig _defaultRequestConfig;
+        private final SecurityInformationsCache _securityInformationsCache;
+        private final AuthCache _authCache;
+
+        /**
+         * Constructor
+         * 
+         * @param configuration
+         *            the configuration
+         * @param pool
+         *            the connection pool and its clients
+         * @param defaultRequestConfig
+         *            the request configuration
+         * @param securityInformationsCache
+         *            the cache of the security informations, null if disabled
+         * @param authCache
+         *            the auth cache shared by the requests, keeping the negotiated schemes per host and the preemptive ones of the configuration
+         */
+        ClientState( HttpClientConfiguration configuration, ClientPool pool, RequestConfig defaultRequestConfig,
+                SecurityInformationsCache securityInformationsCache, AuthCache authCache )
+        {
+            _configuration = configuration;
+            _pool = pool;
+            _defaultRequestConfig = defaultRequestConfig;
+            _securityInformationsCache = securityInformationsCache;
+            _authCache = authCache;
+        }
+    }
+
+    /**
+     * A connection pool and its clients, possibly shared by several services
+     */
+    private static final class ClientPool
+    {
+        private final List<Object> _listKey;
+        private final CloseableHttpClient _httpClient;
+        private final PoolingHttpClientConnectionManager _connectionManager;
+        private final DnsResolver _dnsResolver;
+        private final MeteredTlsStrategy _tlsStrategy;
+        private final TlsSessionMetrics _tlsSessionMetrics;
+
+        /** The number of services using the pool, guarded by the map of the shared pools. */
+        private int _nReferences = 1;
+
+        /**
+         * Constructor
+         * 
+         * @param listKey
+         *            the connection settings of a shared pool, null if the pool is not shared
+         * @param httpClient
+         *            the client
+         * @param connectionManager
+         *            the pool of the blocking connections of the client
+         * @param dnsResolver
+         *            the DNS resolver, null for the resolver of the JVM
+         * @param tlsStrategy
+         *            the TLS strategy
+         * @param tlsSessionMetrics
+         *            the counters of the TLS handshakes
+         */
+        ClientPool( List<Object> listKey, CloseableHttpClient httpClient, PoolingHttpClientConnectionManager connectionManager,
+                DnsResolver dnsResolver, MeteredTlsStrategy tlsStrategy, TlsSessionMetrics tlsSessionMetrics )
+        {
+            _listKey = listKey;
+            _httpClient = httpClient;
+            _connectionManager = connectionManager;
+            _dnsResolver = dnsResolver;
+            _tlsStrategy = tlsStrategy;
+            _tlsSessionMetrics = tlsSessionMetrics;
+        }
+    }
 }
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.Closeable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Method;
+
+/**
+ * Micro-batching sender : buffers small JSON payloads per target url and sends them as a single request, either as a JSON array or as NDJSON. A batch is
+ * sent as soon as it reaches the maximum count or size, or when the linger time of its first payload has elapsed. A payload that would push a batch
+ * over the maximum size is added to a new batch, the current one being sent without it, and a payload larger than the maximum size is sent alone.
+ * Each payload gets its own future, but the payloads of a batch share the outcome of its request : when the request fails, every future of the
+ * batch fails with the same exception, even if the server rejected a single payload. In NDJSON format, the line breaks of a payload are replaced by
+ * spaces, which is harmless for valid JSON since a line break can only appear between its tokens.
+ */
+public class HttpBatchSender implements Closeable
+{
+    /**
+     * The format of the batch bodies
+     */
+    public enum BatchFormat
+    {
+        /** A JSON array of the payloads. */
+        JSON_ARRAY( "application/json" ),
+
+        /** One payload per line. */
+        NDJSON( "application/x-ndjson" );
+
+        private final String _strContentType;
+
+        BatchFormat( String strContentType )
+        {
+            _strContentType = strContentType;
+        }
+
+        /**
+         * Gets the content type of the batch bodies
+         * 
+         * @return the content type
+         */
+        public String getContentType( )
+        {
+            return _strContentType;
+        }
+    }
+
+    /** The Constant DEFAULT_SENDER_THREADS. */
+    private static final int DEFAULT_SENDER_THREADS = 2;
+
+    private final HttpAccess _httpAccess;
+    private final ContentType _contentType;
+    private final Charset _charset;
+    private final BatchFormat _format;
+    private final int _nMaxCount;
+    private final int _nMaxBytes;
+    private final long _lLinger;
+    private final Map<String, Batch> _batches = new HashMap<>( );
+    private final ScheduledExecutorService _lingerScheduler;
+    private final ExecutorService _senders;
+    private boolean _bClosed;
+
+    /**
+     * Constructor
+     * 
+     * @param accessService
+     *            the access service sending the batches
+     * @param format
+     *            the format of the batch bodies
+     * @param nMaxCount
+     *            the maximum number of payloads in a batch
+     * @param nMaxBytes
+     *            the maximum size of a batch body in bytes, a larger payload being sent alone
+     * @param lLinger
+     *            the maximum time in milliseconds a payload waits for the batch to fill up
+     */
+    public HttpBatchSender( HttpAccessService accessService, BatchFormat format, int nMaxCount, int nMaxBytes, long lLinger )
+    {
+        _httpAccess = new HttpAccess( accessService, accessService );
+        _charset = _httpAccess.getContentCharset( );
+        _contentType = ContentType.create( format.getContentType( ), _charset );
+        _format = format;
+        _nMaxCount = nMaxCount;
+        _nMaxBytes = nMaxBytes;
+        _lLinger = lLinger;
+        _lingerScheduler = Executors.newSingleThreadScheduledExecutor( new DaemonThreadFactory( "httpaccess-batch-linger" ) );
+        _senders = Executors.newFixedThreadPool( DEFAULT_SENDER_THREADS, new DaemonThreadFactory( "httpaccess-batch-sender" ) );
+        HttpAccessService.registerComponent( this );
+    }
+
+    /**
+     * Add a JSON payload to the batch of a target url
+     * 
+     * @param strUrl
+     *            the target url
+     * @param strJSON
+     *            the JSON payload
+     * @return the future completed when the batch holding the payload has been sent
+     */
+    public CompletableFuture<Void> send( String strUrl, String strJSON )
+    {
+        return send( strUrl, strJSON, null );
+    }
+
+    /**
+     * Add a JSON payload to the batch of a target url. The payload is abandoned if its deadline expires before the batch is sent, and the batch
+     * request is bound by the earliest deadline of its payloads.
+     * 
+     * @param strUrl
+     *            the target url
+     * @param strJSON
+     *            the JSON payload
+     * @param deadline
+     *            the deadline of the payload, may be null
+     * @return the future completed when the batch holding the payload has been sent, or failed if the sender is closed or the request of the batch
+     *         failed
+     */
+    public CompletableFuture<Void> send( String strUrl, String strJSON, Deadline deadline )
+    {
+        CompletableFuture<Void> future = new CompletableFuture<>( );
+        String strPayload = ( _format == BatchFormat.NDJSON ) ? strJSON.replace( '\r', ' ' ).replace( '\n', ' ' ) : strJSON;
+        int nBytes = strPayload.getBytes( _charset ).length + 1;
+        Batch overflowed = null;
+        Batch full = null;
+
+        synchronized( _batches )
+        {
+            if ( _bClosed )
+            {
+                future.completeExceptionally( new HttpAccessException( "HttpAccess - The batch sender is closed", null ) );
+                return future;
+            }
+
+            Batch current = _batches.get( strUrl );
+            if ( current != null && current._nBytes + nBytes > _nMaxBytes )
+            {
+                // the payload doesn't fit : the current batch is sent without it
+                overflowed = detach( current );
+            }
+
+            Batch batch = _batches.computeIfAbsent( strUrl, Batch::new );
+            batch.add( strPayload, nBytes, future, deadline );
+
+            if ( batch._listPayloads.size( ) >= _nMaxCount || batch._nBytes >= _nMaxBytes )
+            {
+                full = detach( batch );
+            }
+            else
+                if ( batch._listPayloads.size( ) == 1 )
+                {
+                    batch._linger = schedule( ( ) -> flush( batch ), _lLinger );
+                }
+        }
+
+        if ( overflowed != null )
+        {
+            submit( overflowed );
+        }
+        if ( full != null )
+        {
+            submit( full );
+        }
+
+        return future;
+    }
+
+    /**
+     * Send all the pending batches
+     */
+    public void flush( )
+    {
+        List<Batch> listBatches;
+        synchronized( _batches )
+        {
+            listBatches = new ArrayList<>( _batches.values( ) );
+            listBatches.forEach( this::detach );
+        }
+        listBatches.forEach( this::submit );
+    }
+
+    /**
+     * Send the pending batches and stop the sender, called as well when the services are shut down. The payloads sent afterwards are rejected.
+     */
+    @Override
+    public void close( )
+    {
+        HttpAccessService.unregisterComponent( this );
+        synchronized( _batches )
+        {
+            _bClosed = true;
+        }
+        flush( );
+        _lingerScheduler.shutdownNow( );
+        _senders.shutdown( );
+        try
+        {
+            _senders.awaitTermination( 30, TimeUnit.SECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+
+    /**
+     * Send a batch when its linger time has elapsed, unless it has already been sent
+     * 
+     * @param batch
+     *            the batch
+     */
+    private void flush( Batch batch )
+    {
+        boolean bPending;
+        synchronized( _batches )
+        {
+            bPending = _batches.get( batch._strUrl ) == batch;
+            if ( bPending )
+            {
+                detach( batch );
+            }
+        }
+        if ( bPending )
+        {
+            send( batch );
+        }
+    }
+
+    /**
+     * Remove a batch from the pending batches. Must be called while holding the lock on the batches.
+     * 
+     * @param batch
+     *            the batch
+     * @return the batch
+     */
+    private Batch detach( Batch batch )
+    {
+        _batches.remove( batch._strUrl );
+        if ( batch._linger != null )
+        {
+            batch._linger.cancel( false );
+        }
+
+        return batch;
+    }
+
+    /**
+     * Send a batch on the sender threads
+     * 
+     * @param batch
+     *            the batch
+     */
+    private void submit( Batch batch )
+    {
+        try
+        {
+            _senders.execute( ( ) -> send( batch ) );
+        }
+        catch( RejectedExecutionException e )
+        {
+            send( batch );
+        }
+    }
+
+    /**
+     * Schedule a task on the linger scheduler
+     * 
+     * @param task
+     *            the task
+     * @param lDelay
+     *            the delay in milliseconds
+     * @return the scheduled task, or null if the sender is closed
+     */
+    private ScheduledFuture<?> schedule( Runnable task, long lDelay )
+    {
+        try
+        {
+            return _lingerScheduler.schedule( task, lDelay, TimeUnit.MILLISECONDS );
+        }
+        catch( RejectedExecutionException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Send a batch and complete the futures of its payloads
+     * 
+     * @param batch
+     *            the batch
+     */
+    private void send( Batch batch )
+    {
+        List<String> listPayloads = new ArrayList<>( batch._listPayloads.size( ) );
+        List<CompletableFuture<Void>> listFutures = new ArrayList<>( batch._listPayloads.size( ) );
+        Deadline deadline = null;
+
+        for ( int i = 0; i < batch._listPayloads.size( ); i++ )
+        {
+            Deadline payloadDeadline = batch._listDeadlines.get( i );
+            if ( payloadDeadline != null && payloadDeadline.isExpired( ) )
+            {
+                batch._listFutures.get( i ).completeExceptionally(
+                        new HttpAccessException( "HttpAccess - Deadline expired before sending the batch to URL : " + batch._strUrl, null ) );
+            }
+            else
+            {
+                listPayloads.add( batch._listPayloads.get( i ) );
+                listFutures.add( batch._listFutures.get( i ) );
+                deadline = Deadline.earliest( deadline, payloadDeadline );
+            }
+        }
+
+        if ( listPayloads.isEmpty( ) )
+        {
+            return;
+        }
+
+        String strBody;
+        if ( _format == BatchFormat.JSON_ARRAY )
+        {
+            strBody = "[" + String.join( ",", listPayloads ) + "]";
+        }
+        else
+        {
+            strBody = String.join( "\n", listPayloads ) + "\n";
+        }
+
+        try
+        {
+            _httpAccess.request( Method.POST, batch._strUrl ).deadline( deadline ).body( strBody, _contentType );
+            listFutures.forEach( future -> future.complete( null ) );
+        }
+        catch( HttpAccessException | RuntimeException e )
+        {
+            // an invalid url must not leave the futures pending
+            listFutures.forEach( future -> future.completeExceptionally( e ) );
+        }
+    }
+
+    /**
+     * The payloads waiting to be sent to a target url
+     */
+    private static final class Batch
+    {
+        private final String _strUrl;
+        private final List<String> _listPayloads = new ArrayList<>( );
+        private final List<CompletableFuture<Void>> _listFutures = new ArrayList<>( );
+        private final List<Deadline> _listDeadlines = new ArrayList<>( );
+        private int _nBytes;
+        private ScheduledFuture<?> _linger;
+
+        private Batch( String strUrl )
+        {
+            _strUrl = strUrl;
+        }
+
+        private void add( String strJSON, int nBytes, CompletableFuture<Void> future, Deadline deadline )
+        {
+            _listPayloads.add( strJSON );
+            _listFutures.add( future );
+            _listDeadlines.add( deadline );
+            _nBytes += nBytes;
+        }
+    }
+}
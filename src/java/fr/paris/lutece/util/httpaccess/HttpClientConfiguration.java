@@ -33,8 +33,23 @@
  */
 package fr.paris.lutece.util.httpaccess;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+
 /**
- * The Class HttpClientConfiguration.
+ * The Class HttpClientConfiguration. The configuration of a running service, returned by {@link HttpAccessService#getHttpClientConfiguration()}, is
+ * a snapshot that can't be modified : its setters throw an {@link IllegalStateException}, and its socket options, host credentials and host routes
+ * are returned as copies. To change the configuration of a service, modify a {@link #copy()} of it and pass it to
+ * {@link HttpAccessService#reconfigure(HttpClientConfiguration)}.
  */
 public class HttpClientConfiguration
 {
@@ -81,6 +96,102 @@ public class HttpClientConfiguration
     /** The _str connection pool max connection per host. */
     private Integer _nConnectionPoolMaxConnectionPerHost;
 
+    /** The _str outbox directory. */
+    private String _strOutboxDirectory;
+
+    /** The _n outbox segment size. */
+    private Integer _nOutboxSegmentSize;
+
+    /** The _b outbox sync. */
+    private boolean _bOutboxSync;
+
+    /** The _b proxy preemptive authentication. */
+    private boolean _bProxyPreemptiveAuthentication;
+
+    /** The _list host credentials. */
+    private List<HostCredentials> _listHostCredentials = new ArrayList<>( );
+
+    /** The _list host routes. */
+    private List<HostRoute> _listHostRoutes = new ArrayList<>( );
+
+    /** The socket options. */
+    private SocketOptions _socketOptions = new SocketOptions( );
+
+    /** The _n security informations cache validity. */
+    private Integer _nSecurityInformationsCacheValidity;
+
+    /** The _n connection request timeout. */
+    private Integer _nConnectionRequestTimeout;
+
+    /** The _n error body max size. */
+    private Integer _nErrorBodyMaxSize;
+
+    /** The _b error stack trace. */
+    private boolean _bErrorStackTrace = true;
+
+    /** The _str tls protocols. */
+    private String _strTlsProtocols;
+
+    /** The _str tls cipher suites. */
+    private String _strTlsCipherSuites;
+
+    /** The _n tls session cache size. */
+    private Integer _nTlsSessionCacheSize;
+
+    /** The _n tls session timeout. */
+    private Integer _nTlsSessionTimeout;
+
+    /** The _str trust store. */
+    private String _strTrustStore;
+
+    /** The _str trust store password. */
+    private String _strTrustStorePassword;
+
+    /** The _str trust store type. */
+    private String _strTrustStoreType;
+
+    /** The _n dns ttl. */
+    private Integer _nDnsTtl;
+
+    /** The _n dns negative ttl. */
+    private Integer _nDnsNegativeTtl;
+
+    /** The _str dns hosts. */
+    private String _strDnsHosts;
+
+    /** The dns resolver. */
+    private DnsResolver _dnsResolver;
+
+    /** The _n keep alive. */
+    private Integer _nKeepAlive;
+
+    /** The _n max keep alive. */
+    private Integer _nMaxKeepAlive;
+
+    /** The pool reuse policy. */
+    private PoolReusePolicy _poolReusePolicy;
+
+    /** The pool concurrency policy. */
+    private PoolConcurrencyPolicy _poolConcurrencyPolicy;
+
+    /** The _n drain timeout. */
+    private Integer _nDrainTimeout;
+
+    /** The _n reload interval. */
+    private Integer _nReloadInterval;
+
+    /** The _str warmup hosts. */
+    private String _strWarmupHosts;
+
+    /** The _n warmup connections. */
+    private Integer _nWarmupConnections;
+
+    /** The _str warmup method. */
+    private String _strWarmupMethod;
+
+    /** Whether the configuration is a snapshot used by a service, which can't be modified. */
+    private boolean _bFrozen;
+
     /**
      * Gets the proxy host.
      *
@@ -99,6 +210,7 @@ public class HttpClientConfiguration
      */
     public void setProxyHost( String _strProxyHost )
     {
+        checkNotFrozen( );
         this._strProxyHost = _strProxyHost;
     }
 
@@ -120,6 +232,7 @@ public class HttpClientConfiguration
      */
     public void setProxyPort( String _strProxyPort )
     {
+        checkNotFrozen( );
         this._strProxyPort = _strProxyPort;
     }
 
@@ -141,6 +254,7 @@ public class HttpClientConfiguration
      */
     public void setProxyUserName( String _strProxyUserName )
     {
+        checkNotFrozen( );
         this._strProxyUserName = _strProxyUserName;
     }
 
@@ -162,6 +276,7 @@ public class HttpClientConfiguration
      */
     public void setProxyPassword( String _strProxyPassword )
     {
+        checkNotFrozen( );
         this._strProxyPassword = _strProxyPassword;
     }
 
@@ -183,6 +298,7 @@ public class HttpClientConfiguration
      */
     public void setHostName( String _strHostName )
     {
+        checkNotFrozen( );
         this._strHostName = _strHostName;
     }
 
@@ -204,6 +320,7 @@ public class HttpClientConfiguration
      */
     public void setDomainName( String _strDomainName )
     {
+        checkNotFrozen( );
         this._strDomainName = _strDomainName;
     }
 
@@ -225,6 +342,7 @@ public class HttpClientConfiguration
      */
     public void setRealm( String _strRealm )
     {
+        checkNotFrozen( );
         this._strRealm = _strRealm;
     }
 
@@ -246,6 +364,7 @@ public class HttpClientConfiguration
      */
     public void setNoProxyFor( String _strNoProxyFor )
     {
+        checkNotFrozen( );
         this._strNoProxyFor = _strNoProxyFor;
     }
 
@@ -267,6 +386,7 @@ public class HttpClientConfiguration
      */
     public void setContentCharset( String _strContentCharset )
     {
+        checkNotFrozen( );
         this._strContentCharset = _strContentCharset;
     }
 
@@ -288,6 +408,7 @@ public class HttpClientConfiguration
      */
     public void setElementCharset( String _strElementCharset )
     {
+        checkNotFrozen( );
         this._strElementCharset = _strElementCharset;
     }
 
@@ -309,6 +430,7 @@ public class HttpClientConfiguration
      */
     public void setSocketTimeout( Integer nSocketTimeout )
     {
+        checkNotFrozen( );
         this._nSocketTimeout = nSocketTimeout;
     }
 
@@ -330,6 +452,7 @@ public class HttpClientConfiguration
      */
     public void setConnectionTimeout( Integer nConnectionTimeout )
     {
+        checkNotFrozen( );
         this._nConnectionTimeout = nConnectionTimeout;
     }
 
@@ -353,6 +476,7 @@ public class HttpClientConfiguration
      */
     public void setConnectionPoolEnabled( boolean _bConnectionPoolEnabled )
     {
+        checkNotFrozen( );
         // always enabled
     }
 
@@ -374,6 +498,7 @@ public class HttpClientConfiguration
      */
     public void setConnectionPoolMaxTotalConnection( Integer nConnectionPoolMaxTotalConnection )
     {
+        checkNotFrozen( );
         this._nConnectionPoolMaxTotalConnection = nConnectionPoolMaxTotalConnection;
     }
 
@@ -395,7 +520,875 @@ public class HttpClientConfiguration
      */
     public void setConnectionPoolMaxConnectionPerHost( Integer nConnectionPoolMaxConnectionPerHost )
     {
+        checkNotFrozen( );
         this._nConnectionPoolMaxConnectionPerHost = nConnectionPoolMaxConnectionPerHost;
     }
 
+    /**
+     * Gets the directory of the outbox journal.
+     *
+     * @return the outbox directory
+     */
+    public String getOutboxDirectory( )
+    {
+        return _strOutboxDirectory;
+    }
+
+    /**
+     * Sets the directory of the outbox journal.
+     *
+     * @param strOutboxDirectory
+     *            the new outbox directory
+     */
+    public void setOutboxDirectory( String strOutboxDirectory )
+    {
+        checkNotFrozen( );
+        this._strOutboxDirectory = strOutboxDirectory;
+    }
+
+    /**
+     * Gets the size of the outbox journal segment files.
+     *
+     * @return the outbox segment size in bytes
+     */
+    public Integer getOutboxSegmentSize( )
+    {
+        return _nOutboxSegmentSize;
+    }
+
+    /**
+     * Sets the size of the outbox journal segment files.
+     *
+     * @param nOutboxSegmentSize
+     *            the new outbox segment size in bytes
+     */
+    public void setOutboxSegmentSize( Integer nOutboxSegmentSize )
+    {
+        checkNotFrozen( );
+        this._nOutboxSegmentSize = nOutboxSegmentSize;
+    }
+
+    /**
+     * Checks if each outbox request is forced to the storage device.
+     *
+     * @return true if the outbox journal is synchronized on each write
+     */
+    public boolean isOutboxSync( )
+    {
+        return _bOutboxSync;
+    }
+
+    /**
+     * Sets if each outbox request is forced to the storage device.
+     *
+     * @param bOutboxSync
+     *            true to synchronize the outbox journal on each write
+     */
+    public void setOutboxSync( boolean bOutboxSync )
+    {
+        checkNotFrozen( );
+        this._bOutboxSync = bOutboxSync;
+    }
+
+    /**
+     * Checks if the proxy Basic credentials are sent without waiting for a challenge.
+     *
+     * @return true if the proxy authentication is preemptive
+     */
+    public boolean isProxyPreemptiveAuthentication( )
+    {
+        return _bProxyPreemptiveAuthentication;
+    }
+
+    /**
+     * Sets if the proxy Basic credentials are sent without waiting for a challenge.
+     *
+     * @param bProxyPreemptiveAuthentication
+     *            true to authenticate preemptively against the proxy
+     */
+    public void setProxyPreemptiveAuthentication( boolean bProxyPreemptiveAuthentication )
+    {
+        checkNotFrozen( );
+        this._bProxyPreemptiveAuthentication = bProxyPreemptiveAuthentication;
+    }
+
+    /**
+     * Gets the credentials of the target hosts.
+     *
+     * @return the host credentials
+     */
+    public List<HostCredentials> getHostCredentials( )
+    {
+        return _bFrozen ? copyHostCredentials( _listHostCredentials ) : _listHostCredentials;
+    }
+
+    /**
+     * Sets the credentials of the target hosts.
+     *
+     * @param listHostCredentials
+     *            the new host credentials
+     */
+    public void setHostCredentials( List<HostCredentials> listHostCredentials )
+    {
+        checkNotFrozen( );
+        this._listHostCredentials = listHostCredentials;
+    }
+
+    /**
+     * Gets the settings of the routes to the target hosts, the hosts not listed are reached with HTTP/1.1 and the global socket options.
+     *
+     * @return the host routes
+     */
+    public List<HostRoute> getHostRoutes( )
+    {
+        return _bFrozen ? copyHostRoutes( _listHostRoutes ) : _listHostRoutes;
+    }
+
+    /**
+     * Sets the settings of the routes to the target hosts.
+     *
+     * @param listHostRoutes
+     *            the new host routes
+     */
+    public void setHostRoutes( List<HostRoute> listHostRoutes )
+    {
+        checkNotFrozen( );
+        this._listHostRoutes = listHostRoutes;
+    }
+
+    /**
+     * Gets the validity of the cached security informations of the request authenticators.
+     *
+     * @return the validity in milliseconds, null if the security informations are not cached
+     */
+    public Integer getSecurityInformationsCacheValidity( )
+    {
+        return _nSecurityInformationsCacheValidity;
+    }
+
+    /**
+     * Sets the validity of the cached security informations of the request authenticators.
+     *
+     * @param nSecurityInformationsCacheValidity
+     *            the validity in milliseconds, null to disable the cache
+     */
+    public void setSecurityInformationsCacheValidity( Integer nSecurityInformationsCacheValidity )
+    {
+        checkNotFrozen( );
+        this._nSecurityInformationsCacheValidity = nSecurityInformationsCacheValidity;
+    }
+
+    /**
+     * Gets the maximum size of the response body kept by an InvalidResponseStatus.
+     *
+     * @return the maximum size in bytes, null if the whole body is kept
+     */
+    public Integer getErrorBodyMaxSize( )
+    {
+        return _nErrorBodyMaxSize;
+    }
+
+    /**
+     * Sets the maximum size of the response body kept by an InvalidResponseStatus.
+     *
+     * @param nErrorBodyMaxSize
+     *            the maximum size in bytes, null to keep the whole body
+     */
+    public void setErrorBodyMaxSize( Integer nErrorBodyMaxSize )
+    {
+        checkNotFrozen( );
+        this._nErrorBodyMaxSize = nErrorBodyMaxSize;
+    }
+
+    /**
+     * Checks if an InvalidResponseStatus captures its stack trace.
+     *
+     * @return true if the stack trace is captured
+     */
+    public boolean isErrorStackTrace( )
+    {
+        return _bErrorStackTrace;
+    }
+
+    /**
+     * Sets if an InvalidResponseStatus captures its stack trace.
+     *
+     * @param bErrorStackTrace
+     *            false to skip the stack trace capture
+     */
+    public void setErrorStackTrace( boolean bErrorStackTrace )
+    {
+        checkNotFrozen( );
+        this._bErrorStackTrace = bErrorStackTrace;
+    }
+
+    /**
+     * Gets the maximum time to wait for a connection from the pool.
+     *
+     * @return the connection request timeout in milliseconds
+     */
+    public Integer getConnectionRequestTimeout( )
+    {
+        return _nConnectionRequestTimeout;
+    }
+
+    /**
+     * Sets the maximum time to wait for a connection from the pool.
+     *
+     * @param nConnectionRequestTimeout
+     *            the new connection request timeout in milliseconds
+     */
+    public void setConnectionRequestTimeout( Integer nConnectionRequestTimeout )
+    {
+        checkNotFrozen( );
+        this._nConnectionRequestTimeout = nConnectionRequestTimeout;
+    }
+
+    /**
+     * Gets the TLS protocols enabled on the connections, separated by commas.
+     *
+     * @return the tls protocols
+     */
+    public String getTlsProtocols( )
+    {
+        return _strTlsProtocols;
+    }
+
+    /**
+     * Sets the TLS protocols enabled on the connections, separated by commas.
+     *
+     * @param strTlsProtocols
+     *            the new tls protocols
+     */
+    public void setTlsProtocols( String strTlsProtocols )
+    {
+        checkNotFrozen( );
+        this._strTlsProtocols = strTlsProtocols;
+    }
+
+    /**
+     * Gets the cipher suites enabled on the connections, separated by commas.
+     *
+     * @return the tls cipher suites
+     */
+    public String getTlsCipherSuites( )
+    {
+        return _strTlsCipherSuites;
+    }
+
+    /**
+     * Sets the cipher suites enabled on the connections, separated by commas.
+     *
+     * @param strTlsCipherSuites
+     *            the new tls cipher suites
+     */
+    public void setTlsCipherSuites( String strTlsCipherSuites )
+    {
+        checkNotFrozen( );
+        this._strTlsCipherSuites = strTlsCipherSuites;
+    }
+
+    /**
+     * Gets the maximum number of TLS sessions kept for resumption.
+     *
+     * @return the tls session cache size
+     */
+    public Integer getTlsSessionCacheSize( )
+    {
+        return _nTlsSessionCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of TLS sessions kept for resumption.
+     *
+     * @param nTlsSessionCacheSize
+     *            the new tls session cache size
+     */
+    public void setTlsSessionCacheSize( Integer nTlsSessionCacheSize )
+    {
+        checkNotFrozen( );
+        this._nTlsSessionCacheSize = nTlsSessionCacheSize;
+    }
+
+    /**
+     * Gets the time a TLS session can be resumed, in seconds.
+     *
+     * @return the tls session timeout
+     */
+    public Integer getTlsSessionTimeout( )
+    {
+        return _nTlsSessionTimeout;
+    }
+
+    /**
+     * Sets the time a TLS session can be resumed, in seconds.
+     *
+     * @param nTlsSessionTimeout
+     *            the new tls session timeout
+     */
+    public void setTlsSessionTimeout( Integer nTlsSessionTimeout )
+    {
+        checkNotFrozen( );
+        this._nTlsSessionTimeout = nTlsSessionTimeout;
+    }
+
+    /**
+     * Gets the path of the truststore holding the trusted certificates.
+     *
+     * @return the trust store
+     */
+    public String getTrustStore( )
+    {
+        return _strTrustStore;
+    }
+
+    /**
+     * Sets the path of the truststore holding the trusted certificates.
+     *
+     * @param strTrustStore
+     *            the new trust store
+     */
+    public void setTrustStore( String strTrustStore )
+    {
+        checkNotFrozen( );
+        this._strTrustStore = strTrustStore;
+    }
+
+    /**
+     * Gets the password of the truststore.
+     *
+     * @return the trust store password
+     */
+    public String getTrustStorePassword( )
+    {
+        return _strTrustStorePassword;
+    }
+
+    /**
+     * Sets the password of the truststore.
+     *
+     * @param strTrustStorePassword
+     *            the new trust store password
+     */
+    public void setTrustStorePassword( String strTrustStorePassword )
+    {
+        checkNotFrozen( );
+        this._strTrustStorePassword = strTrustStorePassword;
+    }
+
+    /**
+     * Gets the type of the truststore (JKS, PKCS12...).
+     *
+     * @return the trust store type
+     */
+    public String getTrustStoreType( )
+    {
+        return _strTrustStoreType;
+    }
+
+    /**
+     * Sets the type of the truststore (JKS, PKCS12...).
+     *
+     * @param strTrustStoreType
+     *            the new trust store type
+     */
+    public void setTrustStoreType( String strTrustStoreType )
+    {
+        checkNotFrozen( );
+        this._strTrustStoreType = strTrustStoreType;
+    }
+
+    /**
+     * Gets the time in milliseconds the resolved addresses are cached, null to rely on the caching of the JVM.
+     *
+     * @return the dns ttl
+     */
+    public Integer getDnsTtl( )
+    {
+        return _nDnsTtl;
+    }
+
+    /**
+     * Sets the time in milliseconds the resolved addresses are cached, null to rely on the caching of the JVM.
+     *
+     * @param nDnsTtl
+     *            the new dns ttl
+     */
+    public void setDnsTtl( Integer nDnsTtl )
+    {
+        checkNotFrozen( );
+        this._nDnsTtl = nDnsTtl;
+    }
+
+    /**
+     * Gets the time in milliseconds a failed resolution is cached.
+     *
+     * @return the dns negative ttl
+     */
+    public Integer getDnsNegativeTtl( )
+    {
+        return _nDnsNegativeTtl;
+    }
+
+    /**
+     * Sets the time in milliseconds a failed resolution is cached.
+     *
+     * @param nDnsNegativeTtl
+     *            the new dns negative ttl
+     */
+    public void setDnsNegativeTtl( Integer nDnsNegativeTtl )
+    {
+        checkNotFrozen( );
+        this._nDnsNegativeTtl = nDnsNegativeTtl;
+    }
+
+    /**
+     * Gets the static addresses of hosts, written as host=address|address separated by commas.
+     *
+     * @return the dns hosts
+     */
+    public String getDnsHosts( )
+    {
+        return _strDnsHosts;
+    }
+
+    /**
+     * Sets the static addresses of hosts, written as host=address|address separated by commas.
+     *
+     * @param strDnsHosts
+     *            the new dns hosts
+     */
+    public void setDnsHosts( String strDnsHosts )
+    {
+        checkNotFrozen( );
+        this._strDnsHosts = strDnsHosts;
+    }
+
+    /**
+     * Gets the resolver of the host names, replacing the resolver built from the DNS settings.
+     *
+     * @return the dns resolver, null to use the DNS settings
+     */
+    public DnsResolver getDnsResolver( )
+    {
+        return _dnsResolver;
+    }
+
+    /**
+     * Sets the resolver of the host names, replacing the resolver built from the DNS settings.
+     *
+     * @param dnsResolver
+     *            the new dns resolver
+     */
+    public void setDnsResolver( DnsResolver dnsResolver )
+    {
+        checkNotFrozen( );
+        this._dnsResolver = dnsResolver;
+    }
+
+    /**
+     * Gets the socket options of the connections, that the routes may override.
+     *
+     * @return the socket options
+     */
+    public SocketOptions getSocketOptions( )
+    {
+        return ( _bFrozen && _socketOptions != null ) ? _socketOptions.copy( ) : _socketOptions;
+    }
+
+    /**
+     * Sets the socket options of the connections.
+     *
+     * @param socketOptions
+     *            the new socket options
+     */
+    public void setSocketOptions( SocketOptions socketOptions )
+    {
+        checkNotFrozen( );
+        this._socketOptions = socketOptions;
+    }
+
+    /**
+     * Gets the time in milliseconds a connection is kept alive when the server doesn't send a Keep-Alive timeout.
+     *
+     * @return the keep alive
+     */
+    public Integer getKeepAlive( )
+    {
+        return _nKeepAlive;
+    }
+
+    /**
+     * Sets the time in milliseconds a connection is kept alive when the server doesn't send a Keep-Alive timeout.
+     *
+     * @param nKeepAlive
+     *            the new keep alive
+     */
+    public void setKeepAlive( Integer nKeepAlive )
+    {
+        checkNotFrozen( );
+        this._nKeepAlive = nKeepAlive;
+    }
+
+    /**
+     * Gets the maximum time in milliseconds a connection is kept alive, whatever the Keep-Alive timeout sent by the server.
+     *
+     * @return the max keep alive
+     */
+    public Integer getMaxKeepAlive( )
+    {
+        return _nMaxKeepAlive;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds a connection is kept alive, whatever the Keep-Alive timeout sent by the server.
+     *
+     * @param nMaxKeepAlive
+     *            the new max keep alive
+     */
+    public void setMaxKeepAlive( Integer nMaxKeepAlive )
+    {
+        checkNotFrozen( );
+        this._nMaxKeepAlive = nMaxKeepAlive;
+    }
+
+    /**
+     * Gets the reuse policy of the connection pool : LIFO reuses the most recently released connections, keeping them warm under low load, FIFO
+     * spreads the requests over all the connections.
+     *
+     * @return the pool reuse policy, null for the default
+     */
+    public PoolReusePolicy getPoolReusePolicy( )
+    {
+        return _poolReusePolicy;
+    }
+
+    /**
+     * Sets the reuse policy of the connection pool.
+     *
+     * @param poolReusePolicy
+     *            the new pool reuse policy
+     */
+    public void setPoolReusePolicy( PoolReusePolicy poolReusePolicy )
+    {
+        checkNotFrozen( );
+        this._poolReusePolicy = poolReusePolicy;
+    }
+
+    /**
+     * Gets the concurrency policy of the connection pool : STRICT enforces the maximum number of connections exactly, LAX reduces the lock
+     * contention.
+     *
+     * @return the pool concurrency policy, null for the default
+     */
+    public PoolConcurrencyPolicy getPoolConcurrencyPolicy( )
+    {
+        return _poolConcurrencyPolicy;
+    }
+
+    /**
+     * Sets the concurrency policy of the connection pool.
+     *
+     * @param poolConcurrencyPolicy
+     *            the new pool concurrency policy
+     */
+    public void setPoolConcurrencyPolicy( PoolConcurrencyPolicy poolConcurrencyPolicy )
+    {
+        checkNotFrozen( );
+        this._poolConcurrencyPolicy = poolConcurrencyPolicy;
+    }
+
+    /**
+     * Gets the maximum time in milliseconds a replaced connection pool is given to release its connections before it is closed.
+     *
+     * @return the drain timeout
+     */
+    public Integer getDrainTimeout( )
+    {
+        return _nDrainTimeout;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds a replaced connection pool is given to release its connections before it is closed.
+     *
+     * @param nDrainTimeout
+     *            the new drain timeout
+     */
+    public void setDrainTimeout( Integer nDrainTimeout )
+    {
+        checkNotFrozen( );
+        this._nDrainTimeout = nDrainTimeout;
+    }
+
+    /**
+     * Gets the interval in milliseconds between two checks of the properties, null to reload the configuration only on demand.
+     *
+     * @return the reload interval
+     */
+    public Integer getReloadInterval( )
+    {
+        return _nReloadInterval;
+    }
+
+    /**
+     * Sets the interval in milliseconds between two checks of the properties, null to reload the configuration only on demand.
+     *
+     * @param nReloadInterval
+     *            the new reload interval
+     */
+    public void setReloadInterval( Integer nReloadInterval )
+    {
+        checkNotFrozen( );
+        this._nReloadInterval = nReloadInterval;
+    }
+
+    /**
+     * Gets the urls of the hosts to which connections are opened at startup, separated by commas.
+     *
+     * @return the warmup hosts
+     */
+    public String getWarmupHosts( )
+    {
+        return _strWarmupHosts;
+    }
+
+    /**
+     * Sets the urls of the hosts to which connections are opened at startup, separated by commas.
+     *
+     * @param strWarmupHosts
+     *            the new warmup hosts
+     */
+    public void setWarmupHosts( String strWarmupHosts )
+    {
+        checkNotFrozen( );
+        this._strWarmupHosts = strWarmupHosts;
+    }
+
+    /**
+     * Gets the number of connections opened to each warm-up host, null for one connection.
+     *
+     * @return the warmup connections
+     */
+    public Integer getWarmupConnections( )
+    {
+        return _nWarmupConnections;
+    }
+
+    /**
+     * Sets the number of connections opened to each warm-up host, null for one connection.
+     *
+     * @param nWarmupConnections
+     *            the new warmup connections
+     */
+    public void setWarmupConnections( Integer nWarmupConnections )
+    {
+        checkNotFrozen( );
+        this._nWarmupConnections = nWarmupConnections;
+    }
+
+    /**
+     * Gets the method of the request sent to each warm-up url once the connections are opened (HEAD or GET), null to send no request.
+     *
+     * @return the warmup method
+     */
+    public String getWarmupMethod( )
+    {
+        return _strWarmupMethod;
+    }
+
+    /**
+     * Sets the method of the request sent to each warm-up url once the connections are opened (HEAD or GET), null to send no request.
+     *
+     * @param strWarmupMethod
+     *            the new warmup method
+     */
+    public void setWarmupMethod( String strWarmupMethod )
+    {
+        checkNotFrozen( );
+        this._strWarmupMethod = strWarmupMethod;
+    }
+
+    /**
+     * Check the consistency of the configuration
+     *
+     * @return the errors, empty if the configuration is valid
+     */
+    public List<String> validate( )
+    {
+        List<String> listErrors = new ArrayList<>( );
+
+        if ( StringUtils.isNotBlank( _strProxyHost ) && !StringUtils.isNumeric( StringUtils.trim( _strProxyPort ) ) )
+        {
+            listErrors.add( "invalid proxy port " + _strProxyPort );
+        }
+        for ( HostCredentials hostCredentials : _listHostCredentials )
+        {
+            validateUrl( listErrors, hostCredentials.getUrl( ) );
+        }
+        for ( HostRoute hostRoute : _listHostRoutes )
+        {
+            validateUrl( listErrors, hostRoute.getUrl( ) );
+        }
+        for ( String strUrl : StringUtils.split( StringUtils.defaultString( _strWarmupHosts ), ',' ) )
+        {
+            validateUrl( listErrors, strUrl );
+        }
+        if ( _strWarmupMethod != null && !"HEAD".equalsIgnoreCase( _strWarmupMethod ) && !"GET".equalsIgnoreCase( _strWarmupMethod ) )
+        {
+            listErrors.add( "invalid warm-up method " + _strWarmupMethod );
+        }
+
+        return listErrors;
+    }
+
+    /**
+     * Check that an url is absolute
+     *
+     * @param listErrors
+     *            the errors
+     * @param strUrl
+     *            the url
+     */
+    private static void validateUrl( List<String> listErrors, String strUrl )
+    {
+        try
+        {
+            URI uri = new URI( StringUtils.trimToEmpty( strUrl ) );
+            if ( uri.getHost( ) == null || uri.getScheme( ) == null )
+            {
+                listErrors.add( "invalid url " + strUrl );
+            }
+        }
+        catch( URISyntaxException e )
+        {
+            listErrors.add( "invalid url " + strUrl );
+        }
+    }
+
+    /**
+     * Create a copy of the configuration that can be modified, the socket options, host credentials and host routes being copied as well. The DNS
+     * resolver is shared.
+     *
+     * @return the copy
+     */
+    public HttpClientConfiguration copy( )
+    {
+        HttpClientConfiguration copy = new HttpClientConfiguration( );
+        copy._strProxyHost = _strProxyHost;
+        copy._strProxyPort = _strProxyPort;
+        copy._strProxyUserName = _strProxyUserName;
+        copy._strProxyPassword = _strProxyPassword;
+        copy._strHostName = _strHostName;
+        copy._strDomainName = _strDomainName;
+        copy._strRealm = _strRealm;
+        copy._strNoProxyFor = _strNoProxyFor;
+        copy._strContentCharset = _strContentCharset;
+        copy._strElementCharset = _strElementCharset;
+        copy._nSocketTimeout = _nSocketTimeout;
+        copy._nConnectionTimeout = _nConnectionTimeout;
+        copy._nConnectionPoolMaxTotalConnection = _nConnectionPoolMaxTotalConnection;
+        copy._nConnectionPoolMaxConnectionPerHost = _nConnectionPoolMaxConnectionPerHost;
+        copy._strOutboxDirectory = _strOutboxDirectory;
+        copy._nOutboxSegmentSize = _nOutboxSegmentSize;
+        copy._bOutboxSync = _bOutboxSync;
+        copy._bProxyPreemptiveAuthentication = _bProxyPreemptiveAuthentication;
+        copy._socketOptions = ( _socketOptions != null ) ? _socketOptions.copy( ) : null;
+        copy._nSecurityInformationsCacheValidity = _nSecurityInformationsCacheValidity;
+        copy._nConnectionRequestTimeout = _nConnectionRequestTimeout;
+        copy._nErrorBodyMaxSize = _nErrorBodyMaxSize;
+        copy._bErrorStackTrace = _bErrorStackTrace;
+        copy._strTlsProtocols = _strTlsProtocols;
+        copy._strTlsCipherSuites = _strTlsCipherSuites;
+        copy._nTlsSessionCacheSize = _nTlsSessionCacheSize;
+        copy._nTlsSessionTimeout = _nTlsSessionTimeout;
+        copy._strTrustStore = _strTrustStore;
+        copy._strTrustStorePassword = _strTrustStorePassword;
+        copy._strTrustStoreType = _strTrustStoreType;
+        copy._nDnsTtl = _nDnsTtl;
+        copy._nDnsNegativeTtl = _nDnsNegativeTtl;
+        copy._strDnsHosts = _strDnsHosts;
+        copy._dnsResolver = _dnsResolver;
+        copy._nKeepAlive = _nKeepAlive;
+        copy._nMaxKeepAlive = _nMaxKeepAlive;
+        copy._poolReusePolicy = _poolReusePolicy;
+        copy._poolConcurrencyPolicy = _poolConcurrencyPolicy;
+        copy._nDrainTimeout = _nDrainTimeout;
+        copy._nReloadInterval = _nReloadInterval;
+        copy._strWarmupHosts = _strWarmupHosts;
+        copy._nWarmupConnections = _nWarmupConnections;
+        copy._strWarmupMethod = _strWarmupMethod;
+        copy._listHostCredentials = new ArrayList<>( copyHostCredentials( _listHostCredentials ) );
+        copy._listHostRoutes = new ArrayList<>( copyHostRoutes( _listHostRoutes ) );
+
+        return copy;
+    }
+
+    /**
+     * Create a snapshot of the configuration, used by a service. The snapshot can't be modified, so that the settings of the service stay consistent
+     * with the clients built from them.
+     *
+     * @return the snapshot
+     */
+    HttpClientConfiguration snapshot( )
+    {
+        HttpClientConfiguration snapshot = copy( );
+        snapshot._listHostCredentials = Collections.unmodifiableList( snapshot._listHostCredentials );
+        snapshot._listHostRoutes = Collections.unmodifiableList( snapshot._listHostRoutes );
+        snapshot._bFrozen = true;
+
+        return snapshot;
+    }
+
+    /**
+     * Copy host credentials
+     *
+     * @param listHostCredentials
+     *            the host credentials, may be null
+     * @return the unmodifiable list of the copies
+     */
+    private static List<HostCredentials> copyHostCredentials( List<HostCredentials> listHostCredentials )
+    {
+        List<HostCredentials> listCopies = new ArrayList<>( );
+        if ( listHostCredentials != null )
+        {
+            for ( HostCredentials hostCredentials : listHostCredentials )
+            {
+                listCopies.add( hostCredentials.copy( ) );
+            }
+        }
+
+        return Collections.unmodifiableList( listCopies );
+    }
+
+    /**
+     * Copy host routes
+     *
+     * @param listHostRoutes
+     *            the host routes, may be null
+     * @return the unmodifiable list of the copies
+     */
+    private static List<HostRoute> copyHostRoutes( List<HostRoute> listHostRoutes )
+    {
+        List<HostRoute> listCopies = new ArrayList<>( );
+        if ( listHostRoutes != null )
+        {
+            for ( HostRoute hostRoute : listHostRoutes )
+            {
+                listCopies.add( hostRoute.copy( ) );
+            }
+        }
+
+        return Collections.unmodifiableList( listCopies );
+    }
+
+    /**
+     * Check that the configuration can be modified
+     */
+    private void checkNotFrozen( )
+    {
+        if ( _bFrozen )
+        {
+            throw new IllegalStateException( "HttpAccess - The configuration of a service can't be modified, use HttpAccessService.reconfigure" );
+        }
+    }
 }
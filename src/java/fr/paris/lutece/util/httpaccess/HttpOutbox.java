@@ -0,0 +1,504 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Method;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Durable outbox for fire-and-forget requests. Requests are appended to a local memory-mapped journal and the caller returns immediately. A background
+ * dispatcher sends them in order per target host, in batches, retrying with an exponential backoff. Requests not yet sent are read back from the
+ * journal when the outbox is reopened, so they survive a restart of the JVM. A request is delivered on any 2xx response, retried on a 5xx, 408 or 429
+ * response or on a network error, and dropped on any other response.
+ */
+public class HttpOutbox implements Closeable
+{
+    /** The Constant METHOD_POST. */
+    private static final String METHOD_POST = "POST";
+
+    /** The Constant METHOD_PUT. */
+    private static final String METHOD_PUT = "PUT";
+
+    /** The Constant DISPATCH_INTERVAL. */
+    private static final long DISPATCH_INTERVAL = 100L;
+
+    /** The Constant BATCH_SIZE. */
+    private static final int BATCH_SIZE = 50;
+
+    /** The Constant SENDER_THREADS. */
+    private static final int SENDER_THREADS = 4;
+
+    /** The Constant MIN_RETRY_DELAY. */
+    private static final long MIN_RETRY_DELAY = 1000L;
+
+    /** The Constant MAX_RETRY_DELAY. */
+    private static final long MAX_RETRY_DELAY = 300000L;
+
+    private final HttpAccessService _accessService;
+    private final OutboxJournal _journal;
+    private final Map<String, TargetQueue> _targets = new HashMap<>( );
+    private final ScheduledExecutorService _dispatcher;
+    private final ExecutorService _senders;
+    private volatile boolean _bClosed;
+
+    /**
+     * Open an outbox, reading back the requests not sent yet
+     * 
+     * @param accessService
+     *            the access service used to send the requests
+     * @param directory
+     *            the directory of the journal
+     * @param nSegmentSize
+     *            the size of the journal segment files
+     * @param bSync
+     *            true to force each request to the storage device before returning (survives a crash of the OS, but slower)
+     * @throws IOException
+     *             if the journal can't be opened
+     */
+    HttpOutbox( HttpAccessService accessService, File directory, int nSegmentSize, boolean bSync ) throws IOException
+    {
+        _accessService = accessService;
+        _journal = new OutboxJournal( directory, nSegmentSize, bSync );
+
+        List<OutboxRecord> listPending = _journal.open( );
+        listPending.forEach( this::queue );
+        if ( !listPending.isEmpty( ) )
+        {
+            AppLogService.info( "HttpAccess - " + listPending.size( ) + " pending requests read back from the outbox " + directory );
+        }
+
+        _senders = Executors.newFixedThreadPool( SENDER_THREADS, new DaemonThreadFactory( "httpaccess-outbox-sender" ) );
+        _dispatcher = Executors.newSingleThreadScheduledExecutor( new DaemonThreadFactory( "httpaccess-outbox-dispatcher" ) );
+        _dispatcher.scheduleWithFixedDelay( this::dispatch, DISPATCH_INTERVAL, DISPATCH_INTERVAL, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Store a JSON POST request to send in the background
+     * 
+     * @param strUrl
+     *            the url
+     * @param strJSON
+     *            the JSON body
+     * @throws HttpAccessException
+     *             if the request can't be stored
+     */
+    public void postJSON( String strUrl, String strJSON ) throws HttpAccessException
+    {
+        postJSON( strUrl, strJSON, null );
+    }
+
+    /**
+     * Store a JSON POST request to send in the background
+     * 
+     * @param strUrl
+     *            the url
+     * @param strJSON
+     *            the JSON body
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @throws HttpAccessException
+     *             if the request can't be stored
+     */
+    public void postJSON( String strUrl, String strJSON, Map<String, String> headersRequest ) throws HttpAccessException
+    {
+        enqueue( METHOD_POST, strUrl, strJSON, headersRequest, null );
+    }
+
+    /**
+     * Store a JSON POST request to send in the background, abandoned if it can't be sent before its deadline
+     * 
+     * @param strUrl
+     *            the url
+     * @param strJSON
+     *            the JSON body
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param deadline
+     *            the deadline of the request, retries included
+     * @throws HttpAccessException
+     *             if the request can't be stored
+     */
+    public void postJSON( String strUrl, String strJSON, Map<String, String> headersRequest, Deadline deadline ) throws HttpAccessException
+    {
+        enqueue( METHOD_POST, strUrl, strJSON, headersRequest, deadline );
+    }
+
+    /**
+     * Store a JSON PUT request to send in the background
+     * 
+     * @param strUrl
+     *            the url
+     * @param strJSON
+     *            the JSON body
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @throws HttpAccessException
+     *             if the request can't be stored
+     */
+    public void putJSON( String strUrl, String strJSON, Map<String, String> headersRequest ) throws HttpAccessException
+    {
+        enqueue( METHOD_PUT, strUrl, strJSON, headersRequest, null );
+    }
+
+    /**
+     * Store a JSON PUT request to send in the background, abandoned if it can't be sent before its deadline
+     * 
+     * @param strUrl
+     *            the url
+     * @param strJSON
+     *            the JSON body
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param deadline
+     *            the deadline of the request, retries included
+     * @throws HttpAccessException
+     *             if the request can't be stored
+     */
+    public void putJSON( String strUrl, String strJSON, Map<String, String> headersRequest, Deadline deadline ) throws HttpAccessException
+    {
+        enqueue( METHOD_PUT, strUrl, strJSON, headersRequest, deadline );
+    }
+
+    /**
+     * Gets the number of requests waiting to be sent
+     * 
+     * @return the number of pending requests
+     */
+    public int getPendingCount( )
+    {
+        synchronized( _targets )
+        {
+            return _targets.values( ).stream( ).mapToInt( target -> target._records.size( ) ).sum( );
+        }
+    }
+
+    /**
+     * Stop the dispatcher. Pending requests stay in the journal and will be sent when the outbox is reopened.
+     */
+    @Override
+    public void close( )
+    {
+        _bClosed = true;
+        _dispatcher.shutdownNow( );
+        _senders.shutdown( );
+        try
+        {
+            _senders.awaitTermination( 10, TimeUnit.SECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+        _journal.close( );
+    }
+
+    /**
+     * Append a request to the journal and queue it
+     * 
+     * @param strMethod
+     *            the method
+     * @param strUrl
+     *            the url
+     * @param strBody
+     *            the body
+     * @param headersRequest
+     *            the headers
+     * @param deadline
+     *            the deadline, may be null
+     * @throws HttpAccessException
+     *             if the request can't be stored
+     */
+    private void enqueue( String strMethod, String strUrl, String strBody, Map<String, String> headersRequest, Deadline deadline )
+            throws HttpAccessException
+    {
+        if ( _bClosed )
+        {
+            throw new HttpAccessException( "HttpAccess - The outbox is closed", null );
+        }
+        // a request which can't be built would block its target queue
+        validateUrl( strUrl );
+
+        try
+        {
+            queue( _journal.append( strMethod, strUrl, strBody, headersRequest, ( deadline != null ) ? deadline.getExpiration( ) : 0L ) );
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( "HttpAccess - Unable to store request in the outbox : " + e.getMessage( ), e );
+            throw new HttpAccessException( "HttpAccess - Unable to store request in the outbox : " + e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Queue a record in the queue of its target
+     * 
+     * @param record
+     *            the record
+     */
+    private void queue( OutboxRecord record )
+    {
+        String strTarget = getTarget( record.getUrl( ) );
+
+        synchronized( _targets )
+        {
+            _targets.computeIfAbsent( strTarget, strKey -> new TargetQueue( ) )._records.add( record );
+        }
+    }
+
+    /**
+     * Start a sender for each target having records to send and not waiting for a retry
+     */
+    private void dispatch( )
+    {
+        long lNow = System.currentTimeMillis( );
+
+        synchronized( _targets )
+        {
+            for ( TargetQueue target : _targets.values( ) )
+            {
+                if ( !target._bSending && !target._records.isEmpty( ) && target._lNextAttempt <= lNow )
+                {
+                    target._bSending = true;
+                    _senders.execute( ( ) -> send( target ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Send a batch of records of a target, in order. Stops at the first failure, and retries later.
+     * 
+     * @param target
+     *            the target
+     */
+    private void send( TargetQueue target )
+    {
+        HttpAccess httpAccess = new HttpAccess( _accessService, HttpOutbox::isDelivered );
+
+        try
+        {
+            for ( int i = 0; i < BATCH_SIZE && !_bClosed; i++ )
+            {
+                OutboxRecord record;
+                synchronized( _targets )
+                {
+                    record = target._records.peekFirst( );
+                }
+                if ( record == null )
+                {
+                    return;
+                }
+
+                Deadline deadline = ( record.getExpiration( ) > 0 ) ? Deadline.at( record.getExpiration( ) ) : null;
+                if ( deadline != null && deadline.isExpired( ) )
+                {
+                    AppLogService.info(
+                            "HttpAccess - Request dropped from the outbox, deadline expired : " + record.getMethod( ) + " " + record.getUrl( ) );
+                    acknowledge( target, record );
+                    continue;
+                }
+
+                try
+                {
+                    HttpRequestTemplate request = httpAccess.request( Method.normalizedValueOf( record.getMethod( ) ), record.getUrl( ) )
+                            .deadline( deadline );
+                    if ( record.getHeadersRequest( ) != null )
+                    {
+                        for ( Map.Entry<String, String> header : record.getHeadersRequest( ).entrySet( ) )
+                        {
+                            request = request.header( header.getKey( ), header.getValue( ) );
+                        }
+                    }
+                    request.json( record.getBody( ) );
+                }
+                catch( InvalidResponseStatus e )
+                {
+                    if ( isRetryable( e.getResponseStatus( ) ) )
+                    {
+                        retryLater( target );
+                        return;
+                    }
+                    AppLogService.error( "HttpAccess - Request dropped from the outbox : " + e.getMessage( ) );
+                }
+                catch( HttpAccessException e )
+                {
+                    retryLater( target );
+                    return;
+                }
+                catch( RuntimeException e )
+                {
+                    // the request can't be built, it will never succeed
+                    AppLogService.error( "HttpAccess - Invalid request dropped from the outbox : " + record.getMethod( ) + " " + record.getUrl( ), e );
+                }
+
+                acknowledge( target, record );
+            }
+        }
+        finally
+        {
+            synchronized( _targets )
+            {
+                target._bSending = false;
+            }
+        }
+    }
+
+    /**
+     * Remove a record sent or abandoned from the journal and from the queue of its target
+     * 
+     * @param target
+     *            the target
+     * @param record
+     *            the record
+     */
+    private void acknowledge( TargetQueue target, OutboxRecord record )
+    {
+        _journal.acknowledge( record );
+        synchronized( _targets )
+        {
+            target._records.pollFirst( );
+            target._nFailures = 0;
+        }
+    }
+
+    /**
+     * Delay the next attempt of a target with an exponential backoff
+     * 
+     * @param target
+     *            the target
+     */
+    private void retryLater( TargetQueue target )
+    {
+        synchronized( _targets )
+        {
+            target._nFailures++;
+            long lDelay = Math.min( MAX_RETRY_DELAY, MIN_RETRY_DELAY << Math.min( target._nFailures - 1, 20 ) );
+            target._lNextAttempt = System.currentTimeMillis( ) + lDelay;
+        }
+    }
+
+    /**
+     * Check that the url of a request is an absolute http url
+     * 
+     * @param strUrl
+     *            the url
+     * @throws HttpAccessException
+     *             if the url is not valid
+     */
+    private static void validateUrl( String strUrl ) throws HttpAccessException
+    {
+        URI uri = null;
+        try
+        {
+            uri = ( strUrl != null ) ? new URI( strUrl ) : null;
+        }
+        catch( URISyntaxException e )
+        {
+            throw new HttpAccessException( "HttpAccess - Invalid outbox URL : " + strUrl, e );
+        }
+
+        if ( uri == null || uri.getHost( ) == null
+                || !( "http".equalsIgnoreCase( uri.getScheme( ) ) || "https".equalsIgnoreCase( uri.getScheme( ) ) ) )
+        {
+            throw new HttpAccessException( "HttpAccess - Invalid outbox URL : " + strUrl, null );
+        }
+    }
+
+    /**
+     * Tells if a request has been delivered
+     * 
+     * @param nStatus
+     *            the response status
+     * @return true for any successful (2xx) status
+     */
+    private static boolean isDelivered( int nStatus )
+    {
+        return nStatus >= HttpStatus.SC_SUCCESS && nStatus < HttpStatus.SC_REDIRECTION;
+    }
+
+    /**
+     * Tells if a request rejected with a given status should be sent again. Only server errors, timeouts and rate limiting may succeed on a retry.
+     * 
+     * @param nStatus
+     *            the response status
+     * @return true if the request should be retried
+     */
+    private static boolean isRetryable( int nStatus )
+    {
+        return nStatus >= HttpStatus.SC_SERVER_ERROR || nStatus == HttpStatus.SC_REQUEST_TIMEOUT || nStatus == HttpStatus.SC_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Gets the target (scheme and authority) of an url
+     * 
+     * @param strUrl
+     *            the url
+     * @return the target
+     */
+    private static String getTarget( String strUrl )
+    {
+        int nIndex = strUrl.indexOf( "://" );
+        int nEnd = ( nIndex >= 0 ) ? strUrl.indexOf( '/', nIndex + 3 ) : -1;
+
+        return ( nEnd >= 0 ) ? strUrl.substring( 0, nEnd ) : strUrl;
+    }
+
+    /**
+     * The records waiting to be sent to a target
+     */
+    private static final class TargetQueue
+    {
+        private final Deque<OutboxRecord> _records = new ArrayDeque<>( );
+        private boolean _bSending;
+        private int _nFailures;
+        private long _lNextAttempt;
+    }
+}
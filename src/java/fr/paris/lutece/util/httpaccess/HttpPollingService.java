@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.HttpStatus;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Polls remote resources at a fixed interval with conditional requests (If-None-Match / If-Modified-Since), and notifies the listeners only when a
+ * resource has changed. Polls are spread with a random jitter and run on a small scheduled pool shared by all the resources.
+ */
+public class HttpPollingService
+{
+    /** The Constant DEFAULT_THREADS. */
+    private static final int DEFAULT_THREADS = 2;
+
+    /** The Constant DEFAULT_JITTER_RATIO. */
+    private static final double DEFAULT_JITTER_RATIO = 0.1;
+
+    /** The Constant HEADER_ETAG. */
+    private static final String HEADER_ETAG = "ETag";
+
+    /** The Constant HEADER_LAST_MODIFIED. */
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+
+    /** The Constant HEADER_IF_NONE_MATCH. */
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    /** The Constant HEADER_IF_MODIFIED_SINCE. */
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    private final HttpAccess _httpAccess;
+    private final ScheduledThreadPoolExecutor _scheduler;
+    private final double _dJitterRatio;
+    private final Closeable _shutdownHook = this::shutdown;
+
+    /**
+     * Creates a polling service using the default {@link HttpAccessService}
+     */
+    public HttpPollingService( )
+    {
+        this( HttpAccessService.getInstance( ), DEFAULT_THREADS, DEFAULT_JITTER_RATIO );
+    }
+
+    /**
+     * Creates a polling service
+     * 
+     * @param accessService
+     *            the access service
+     * @param nThreads
+     *            the number of threads running the polls
+     * @param dJitterRatio
+     *            the maximum variation of the interval between two polls, as a ratio of the interval (ie: 0.1 for +/- 10%)
+     */
+    public HttpPollingService( HttpAccessService accessService, int nThreads, double dJitterRatio )
+    {
+        _httpAccess = new HttpAccess( accessService, accessService );
+        _dJitterRatio = dJitterRatio;
+        _scheduler = new ScheduledThreadPoolExecutor( nThreads, new DaemonThreadFactory( "httpaccess-poller" ) );
+        _scheduler.setRemoveOnCancelPolicy( true );
+        HttpAccessService.registerComponent( _shutdownHook );
+    }
+
+    /**
+     * Register a resource to poll. The first poll happens after a random delay within the interval.
+     * 
+     * @param strUrl
+     *            the url of the resource
+     * @param lInterval
+     *            the interval between two polls in milliseconds
+     * @param listener
+     *            the listener
+     * @return the polled resource, to cancel when no longer needed
+     */
+    public PolledResource register( String strUrl, long lInterval, HttpPollingListener listener )
+    {
+        return register( strUrl, lInterval, null, listener );
+    }
+
+    /**
+     * Register a resource to poll. The first poll happens after a random delay within the interval.
+     * 
+     * @param strUrl
+     *            the url of the resource
+     * @param lInterval
+     *            the interval between two polls in milliseconds
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param listener
+     *            the listener
+     * @return the polled resource, to cancel when no longer needed
+     */
+    public PolledResource register( String strUrl, long lInterval, Map<String, String> headersRequest, HttpPollingListener listener )
+    {
+        PolledResource resource = new PolledResource( strUrl, lInterval, headersRequest, listener );
+        schedule( resource, (long) ( ThreadLocalRandom.current( ).nextDouble( ) * lInterval ) );
+
+        return resource;
+    }
+
+    /**
+     * Stop all the polls, called as well when the services are shut down
+     */
+    public void shutdown( )
+    {
+        HttpAccessService.unregisterComponent( _shutdownHook );
+        _scheduler.shutdownNow( );
+    }
+
+    /**
+     * Schedule the next poll of a resource
+     * 
+     * @param resource
+     *            the resource
+     * @param lDelay
+     *            the delay in milliseconds
+     */
+    private void schedule( PolledResource resource, long lDelay )
+    {
+        if ( resource.isCancelled( ) )
+        {
+            return;
+        }
+
+        try
+        {
+            resource.setNextPoll( _scheduler.schedule( ( ) -> poll( resource ), lDelay, TimeUnit.MILLISECONDS ) );
+        }
+        catch( RejectedExecutionException e )
+        {
+            // service shut down
+        }
+    }
+
+    /**
+     * Poll a resource, then schedule its next poll
+     * 
+     * @param resource
+     *            the resource
+     */
+    private void poll( PolledResource resource )
+    {
+        try
+        {
+            doConditionalGet( resource );
+        }
+        catch( HttpAccessException e )
+        {
+            resource.getListener( ).onError( resource.getUrl( ), e );
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "HttpAccess - Error polling " + resource.getUrl( ) + " : " + e.getMessage( ), e );
+        }
+        finally
+        {
+            double dJitter = ( ThreadLocalRandom.current( ).nextDouble( ) * 2 - 1 ) * _dJitterRatio;
+            schedule( resource, Math.max( 0L, (long) ( resource.getInterval( ) * ( 1 + dJitter ) ) ) );
+        }
+    }
+
+    /**
+     * Send a conditional GET request and notify the listener if the resource has changed
+     * 
+     * @param resource
+     *            the resource
+     * @throws HttpAccessException
+     *             if the request failed
+     */
+    private void doConditionalGet( PolledResource resource ) throws HttpAccessException
+    {
+        Map<String, String> headersRequest = new HashMap<>( );
+
+        if ( resource.getHeadersRequest( ) != null )
+        {
+            headersRequest.putAll( resource.getHeadersRequest( ) );
+        }
+        if ( resource.getETag( ) != null )
+        {
+            headersRequest.put( HEADER_IF_NONE_MATCH, resource.getETag( ) );
+        }
+        if ( resource.getLastModified( ) != null )
+        {
+            headersRequest.put( HEADER_IF_MODIFIED_SINCE, resource.getLastModified( ) );
+        }
+
+        HttpResponseResult result = _httpAccess.doGetResult( resource.getUrl( ), null, null, headersRequest, -1 );
+
+        if ( result.getStatus( ) == HttpStatus.SC_NOT_MODIFIED )
+        {
+            return;
+        }
+        if ( !result.isValid( ) )
+        {
+            throw new InvalidResponseStatus( "HttpAccess - Error polling URL : " + resource.getUrl( ) + " - return code : " + result.getStatus( ),
+                    result.getStatus( ), result.getBody( ), null );
+        }
+
+        resource.setETag( result.getHeader( HEADER_ETAG ) );
+        resource.setLastModified( result.getHeader( HEADER_LAST_MODIFIED ) );
+
+        resource.getListener( ).onChange( resource.getUrl( ), result.getBody( ), result.getHeadersMap( ) );
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.net.WWWFormCodec;
+import org.apache.hc.core5.util.Timeout;
+
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+
+/**
+ * Immutable and reusable description of a request, created by {@link HttpAccess#request(Method, String)}. Each configuration method returns a new
+ * template, so a template can be built once, shared between threads and only varied by path or query parameters on each call :
+ *
+ * <pre>
+ * HttpRequestTemplate template = httpAccess.request( Method.POST, "https://api.example.com/items" ).header( "X-Client", "lutece" )
+ *         .timeout( 2000 );
+ * String strResponse = template.path( "/42" ).json( strJSON );
+ * </pre>
+ *
+ * The parsed url, the headers and the content types are computed when the template is built, not on each call. The timeouts set on a template are
+ * merged with the current defaults of the service on each call, so a template follows a reconfiguration of the service.
+ */
+public final class HttpRequestTemplate
+{
+    private final HttpAccess _httpAccess;
+    private final Method _method;
+    private final URI _uri;
+    private final String _strPath;
+    private final Header [ ] _headers;
+    private final RequestAuthenticator _authenticator;
+    private final List<String> _listElements;
+    private final Timeout _responseTimeout;
+    private final Timeout _connectTimeout;
+    private final Timeout _leaseTimeout;
+    private final Deadline _deadline;
+    private final Charset _charset;
+    private final ContentType _jsonContentType;
+
+    /**
+     * Constructor
+     * 
+     * @param httpAccess
+     *            the HttpAccess executing the requests
+     * @param method
+     *            the method
+     * @param uri
+     *            the url
+     * @param charset
+     *            the charset of the request bodies
+     */
+    HttpRequestTemplate( HttpAccess httpAccess, Method method, URI uri, Charset charset )
+    {
+        this( httpAccess, method, uri, uri.getRawPath( ) + ( ( uri.getRawQuery( ) != null ) ? "?" + uri.getRawQuery( ) : StringUtils.EMPTY ),
+                new Header [ 0], null, null, null, null, null, null, charset );
+    }
+
+    /**
+     * Copy constructor
+     * 
+     * @param httpAccess
+     *            the HttpAccess executing the requests
+     * @param method
+     *            the method
+     * @param uri
+     *            the url
+     * @param strPath
+     *            the path and query of the requests
+     * @param headers
+     *            the headers
+     * @param authenticator
+     *            the authenticator, may be null
+     * @param listElements
+     *            the elements to include in the signature, may be null
+     * @param responseTimeout
+     *            the response timeout, null for the default one
+     * @param connectTimeout
+     *            the connect timeout, null for the default one
+     * @param leaseTimeout
+     *            the connection request timeout, null for the default one
+     * @param deadline
+     *            the deadline of the calls, may be null
+     * @param charset
+     *            the charset of the request bodies
+     */
+    private HttpRequestTemplate( HttpAccess httpAccess, Method method, URI uri, String strPath, Header [ ] headers, RequestAuthenticator authenticator,
+            List<String> listElements, Timeout responseTimeout, Timeout connectTimeout, Timeout leaseTimeout, Deadline deadline, Charset charset )
+    {
+        _httpAccess = httpAccess;
+        _method = method;
+        _uri = uri;
+        _strPath = StringUtils.defaultIfEmpty( strPath, "/" );
+        _headers = headers;
+        _authenticator = authenticator;
+        _listElements = listElements;
+        _responseTimeout = responseTimeout;
+        _connectTimeout = connectTimeout;
+        _leaseTimeout = leaseTimeout;
+        _deadline = deadline;
+        _charset = charset;
+        _jsonContentType = ContentType.APPLICATION_JSON.withCharset( charset );
+    }
+
+    /**
+     * Add a header
+     * 
+     * @param strName
+     *            the header name
+     * @param strValue
+     *            the header value
+     * @return a new template
+     */
+    public HttpRequestTemplate header( String strName, String strValue )
+    {
+        Header [ ] headers = Arrays.copyOf( _headers, _headers.length + 1 );
+        headers [headers.length - 1] = new BasicHeader( strName, strValue );
+
+        return new HttpRequestTemplate( _httpAccess, _method, _uri, _strPath, headers, _authenticator, _listElements,
+                _responseTimeout, _connectTimeout, _leaseTimeout, _deadline, _charset );
+    }
+
+    /**
+     * Sign the requests with an authenticator
+     * 
+     * @param authenticator
+     *            the authenticator
+     * @param listElements
+     *            the elements to include in the signature, may be null
+     * @return a new template
+     */
+    public HttpRequestTemplate authenticator( RequestAuthenticator authenticator, List<String> listElements )
+    {
+        List<String> listElementsCopy = ( listElements != null ) ? Collections.unmodifiableList( new ArrayList<>( listElements ) ) : null;
+
+        return new HttpRequestTemplate( _httpAccess, _method, _uri, _strPath, _headers, authenticator, listElementsCopy,
+                _responseTimeout, _connectTimeout, _leaseTimeout, _deadline, _charset );
+    }
+
+    /**
+     * Set the response timeout of the requests, overriding the configured socket timeout
+     * 
+     * @param lTimeout
+     *            the timeout in milliseconds
+     * @return a new template
+     */
+    public HttpRequestTemplate timeout( long lTimeout )
+    {
+        return new HttpRequestTemplate( _httpAccess, _method, _uri, _strPath, _headers, _authenticator, _listElements,
+                Timeout.ofMilliseconds( lTimeout ), _connectTimeout, _leaseTimeout, _deadline, _charset );
+    }
+
+    /**
+     * Set the connect timeout of the requests, overriding the configured connection timeout
+     * 
+     * @param lTimeout
+     *            the timeout in milliseconds
+     * @return a new template
+     */
+    public HttpRequestTemplate connectTimeout( long lTimeout )
+    {
+        return new HttpRequestTemplate( _httpAccess, _method, _uri, _strPath, _headers, _authenticator, _listElements, _responseTimeout,
+                Timeout.ofMilliseconds( lTimeout ), _leaseTimeout, _deadline, _charset );
+    }
+
+    /**
+     * Set the maximum time to wait for a connection from the pool, overriding the configured connection request timeout
+     * 
+     * @param lTimeout
+     *            the timeout in milliseconds
+     * @return a new template
+     */
+    public HttpRequestTemplate leaseTimeout( long lTimeout )
+    {
+        return new HttpRequestTemplate( _httpAccess, _method, _uri, _strPath, _headers, _authenticator, _listElements, _responseTimeout,
+                _connectTimeout, Timeout.ofMilliseconds( lTimeout ), _deadline, _charset );
+    }
+
+    /**
+     * Set the deadline of the calls : the lease, the connection, the response headers and the body must all be done before it, or the call fails.
+     * 
+     * @param deadline
+     *            the deadline, null for none
+     * @return a new template
+     */
+    public HttpRequestTemplate deadline( Deadline deadline )
+    {
+        return new HttpRequestTemplate( _httpAccess, _method, _uri, _strPath, _headers, _authenticator, _listElements, _responseTimeout,
+                _connectTimeout, _leaseTimeout, deadline, _charset );
+    }
+
+    /**
+     * Append a path to the url
+     * 
+     * @param strPath
+     *            the path to append, already encoded
+     * @return a new template
+     */
+    public HttpRequestTemplate path( String strPath )
+    {
+        int nQuery = _strPath.indexOf( '?' );
+        String strNewPath = ( nQuery < 0 ) ? _strPath + strPath : _strPath.substring( 0, nQuery ) + strPath + _strPath.substring( nQuery );
+
+        return new HttpRequestTemplate( _httpAccess, _method, _uri, strNewPath, _headers, _authenticator, _listElements,
+                _responseTimeout, _connectTimeout, _leaseTimeout, _deadline, _charset );
+    }
+
+    /**
+     * Add a query parameter to the url
+     * 
+     * @param strName
+     *            the parameter name
+     * @param strValue
+     *            the parameter value
+     * @return a new template
+     */
+    public HttpRequestTemplate query( String strName, String strValue )
+    {
+        String strParameter = WWWFormCodec.format( Collections.singletonList( new BasicNameValuePair( strName, strValue ) ), _charset );
+        String strNewPath = _strPath + ( ( _strPath.indexOf( '?' ) < 0 ) ? '?' : '&' ) + strParameter;
+
+        return new HttpRequestTemplate( _httpAccess, _method, _uri, strNewPath, _headers, _authenticator, _listElements,
+                _responseTimeout, _connectTimeout, _leaseTimeout, _deadline, _charset );
+    }
+
+    /**
+     * Send the request without body
+     * 
+     * @return the response body
+     * @throws HttpAccessException
+     *             if the request failed or the response status is not valid
+     */
+    public String execute( ) throws HttpAccessException
+    {
+        return _httpAccess.execute( createRequest( ), _uri.toString( ), _authenticator, _listElements, _deadline );
+    }
+
+    /**
+     * Send the request with a JSON body
+     * 
+     * @param strJSON
+     *            the JSON body
+     * @return the response body
+     * @throws HttpAccessException
+     *             if the request failed or the response status is not valid
+     */
+    public String json( String strJSON ) throws HttpAccessException
+    {
+        HttpUriRequestBase httpRequest = createRequest( );
+        httpRequest.setEntity( new StringEntity( strJSON, _jsonContentType ) );
+
+        return _httpAccess.execute( httpRequest, _uri.toString( ), _authenticator, _listElements, _deadline );
+    }
+
+    /**
+     * Send the request with a body
+     * 
+     * @param strContent
+     *            the body
+     * @param contentType
+     *            the content type of the body
+     * @return the response body
+     * @throws HttpAccessException
+     *             if the request failed or the response status is not valid
+     */
+    public String body( String strContent, ContentType contentType ) throws HttpAccessException
+    {
+        HttpUriRequestBase httpRequest = createRequest( );
+        httpRequest.setEntity( new StringEntity( strContent, contentType ) );
+
+        return _httpAccess.execute( httpRequest, _uri.toString( ), _authenticator, _listElements, _deadline );
+    }
+
+    /**
+     * Send the request with a form body
+     * 
+     * @param params
+     *            the form parameters
+     * @return the response body
+     * @throws HttpAccessException
+     *             if the request failed or the response status is not valid
+     */
+    public String form( Map<String, String> params ) throws HttpAccessException
+    {
+        List<NameValuePair> nvps = new ArrayList<>( params.size( ) );
+        params.forEach( ( k, v ) -> nvps.add( new BasicNameValuePair( k, v ) ) );
+        HttpUriRequestBase httpRequest = createRequest( );
+        httpRequest.setEntity( new UrlEncodedFormEntity( nvps, _charset ) );
+
+        return _httpAccess.execute( httpRequest, _uri.toString( ), _authenticator, _listElements, _deadline );
+    }
+
+    /**
+     * Send the request without body and return its outcome whatever the response status
+     * 
+     * @param nMaxBodySize
+     *            the maximum number of bytes of the body kept in the result, negative for no limit
+     * @return the result
+     * @throws HttpAccessException
+     *             if the request could not be sent or the response could not be read
+     */
+    public HttpResponseResult executeResult( int nMaxBodySize ) throws HttpAccessException
+    {
+        return _httpAccess.executeResult( createRequest( ), _uri.toString( ), _authenticator, _listElements, _deadline, nMaxBodySize );
+    }
+
+    /**
+     * Merge the timeouts of the template with the current default request configuration of the service
+     * 
+     * @return the request configuration, null if the template does not override any timeout
+     * @throws HttpAccessException
+     *             if the service is closed
+     */
+    @SuppressWarnings( "deprecation" )
+    private RequestConfig createRequestConfig( ) throws HttpAccessException
+    {
+        if ( _responseTimeout == null && _connectTimeout == null && _leaseTimeout == null )
+        {
+            return null;
+        }
+
+        RequestConfig.Builder builder = RequestConfig.copy( _httpAccess.getDefaultRequestConfig( ) );
+        if ( _responseTimeout != null )
+        {
+            builder.setResponseTimeout( _responseTimeout );
+        }
+        if ( _connectTimeout != null )
+        {
+            builder.setConnectTimeout( _connectTimeout );
+        }
+        if ( _leaseTimeout != null )
+        {
+            builder.setConnectionRequestTimeout( _leaseTimeout );
+        }
+
+        return builder.build( );
+    }
+
+    /**
+     * Create a request from the precomputed parts of the template
+     * 
+     * @return the request
+     * @throws HttpAccessException
+     *             if the service is closed
+     */
+    private HttpUriRequestBase createRequest( ) throws HttpAccessException
+    {
+        HttpUriRequestBase httpRequest = new HttpUriRequestBase( _method.name( ), _uri );
+        httpRequest.setPath( _strPath );
+        httpRequest.setHeaders( _headers );
+        RequestConfig requestConfig = createRequestConfig( );
+        if ( requestConfig != null )
+        {
+            httpRequest.setConfig( requestConfig );
+        }
+
+        return httpRequest;
+    }
+}
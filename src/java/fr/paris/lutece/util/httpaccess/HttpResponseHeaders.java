@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hc.core5.http.Header;
+
+/**
+ * HttpResponseHeaders : a case insensitive and multi-valued view of the headers of a response, backed by the header array of the response instead of a
+ * copy. It can be passed as the <code>headersResponse</code> map of the {@link HttpAccess} methods : as a map, each name is associated with its
+ * first value, while {@link #getAll(String)} returns all the values of repeated headers such as Set-Cookie or Link.
+ *
+ * <pre>
+ * HttpResponseHeaders headers = HttpResponseHeaders.capture( "ETag", "Link" );
+ * httpAccess.doGet( strUrl, null, null, null, headers );
+ * List&lt;String&gt; listLinks = headers.getAll( "link" );
+ * </pre>
+ */
+public class HttpResponseHeaders extends AbstractMap<String, String>
+{
+    private static final Header [ ] NO_HEADERS = new Header [ 0];
+
+    private final String [ ] _strCapturedNames;
+    private Header [ ] _headers = NO_HEADERS;
+    private Set<Entry<String, String>> _entrySet;
+
+    /**
+     * Creates a view of all the headers of the response
+     */
+    public HttpResponseHeaders( )
+    {
+        this( (String [ ]) null );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param strCapturedNames
+     *            the names of the headers to keep, null for all
+     */
+    private HttpResponseHeaders( String [ ] strCapturedNames )
+    {
+        _strCapturedNames = strCapturedNames;
+    }
+
+    /**
+     * Creates a view keeping only some headers of the response
+     * 
+     * @param strNames
+     *            the names of the headers to keep, case insensitive
+     * @return the headers view
+     */
+    public static HttpResponseHeaders capture( String... strNames )
+    {
+        return new HttpResponseHeaders( strNames.clone( ) );
+    }
+
+    /**
+     * Creates a view of a header array
+     * 
+     * @param headers
+     *            the headers
+     * @return the headers view
+     */
+    static HttpResponseHeaders of( Header [ ] headers )
+    {
+        HttpResponseHeaders responseHeaders = new HttpResponseHeaders( );
+        responseHeaders.setHeaders( headers );
+
+        return responseHeaders;
+    }
+
+    /**
+     * Sets the headers of the response. When only some names are captured, the matching headers are kept and the response array is released.
+     * 
+     * @param headers
+     *            the headers of the response
+     */
+    void setHeaders( Header [ ] headers )
+    {
+        _entrySet = null;
+
+        if ( headers == null )
+        {
+            _headers = NO_HEADERS;
+        }
+        else
+            if ( _strCapturedNames == null )
+            {
+                _headers = headers;
+            }
+            else
+            {
+                List<Header> listCaptured = new ArrayList<>( _strCapturedNames.length );
+                for ( Header header : headers )
+                {
+                    if ( isCaptured( header.getName( ) ) )
+                    {
+                        listCaptured.add( header );
+                    }
+                }
+                _headers = listCaptured.toArray( NO_HEADERS );
+            }
+    }
+
+    /**
+     * Gets the first value of a header
+     * 
+     * @param strName
+     *            the header name, case insensitive
+     * @return the value, null if the header is absent
+     */
+    public String getFirst( String strName )
+    {
+        for ( Header header : _headers )
+        {
+            if ( header.getName( ).equalsIgnoreCase( strName ) )
+            {
+                return header.getValue( );
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets all the values of a header, in the order of the response
+     * 
+     * @param strName
+     *            the header name, case insensitive
+     * @return the values, empty if the header is absent
+     */
+    public List<String> getAll( String strName )
+    {
+        List<String> listValues = new ArrayList<>( 1 );
+        for ( Header header : _headers )
+        {
+            if ( header.getName( ).equalsIgnoreCase( strName ) )
+            {
+                listValues.add( header.getValue( ) );
+            }
+        }
+
+        return listValues;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String get( Object key )
+    {
+        return ( key instanceof String ) ? getFirst( (String) key ) : null;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean containsKey( Object key )
+    {
+        return get( key ) != null;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int size( )
+    {
+        return entrySet( ).size( );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isEmpty( )
+    {
+        return _headers.length == 0;
+    }
+
+    /**
+     * {@inheritDoc }. The entries are built on first call, with the first value of each header name.
+     */
+    @Override
+    public Set<Entry<String, String>> entrySet( )
+    {
+        if ( _entrySet == null )
+        {
+            Map<String, Entry<String, String>> mapEntries = new LinkedHashMap<>( );
+            for ( Header header : _headers )
+            {
+                mapEntries.putIfAbsent( header.getName( ).toLowerCase( Locale.ROOT ), new SimpleImmutableEntry<>( header.getName( ), header.getValue( ) ) );
+            }
+            List<Entry<String, String>> listEntries = Collections.unmodifiableList( new ArrayList<>( mapEntries.values( ) ) );
+            _entrySet = new AbstractSet<Entry<String, String>>( )
+            {
+                @Override
+                public Iterator<Entry<String, String>> iterator( )
+                {
+                    return listEntries.iterator( );
+                }
+
+                @Override
+                public int size( )
+                {
+                    return listEntries.size( );
+                }
+            };
+        }
+
+        return _entrySet;
+    }
+
+    /**
+     * Checks if a header name is captured
+     * 
+     * @param strName
+     *            the header name
+     * @return true if the header is kept
+     */
+    private boolean isCaptured( String strName )
+    {
+        for ( String strCapturedName : _strCapturedNames )
+        {
+            if ( strCapturedName.equalsIgnoreCase( strName ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hc.core5.http.Header;
+
+/**
+ * HttpResponseResult : the outcome of a request returned whatever its status, so that expected error statuses (404, ...) don't cost an exception. The
+ * body is kept as bytes, up to a maximum size, and decoded on first access.
+ */
+public class HttpResponseResult
+{
+    private final int _nStatus;
+    private final boolean _bValid;
+    private final HttpResponseHeaders _headers;
+    private final byte [ ] _body;
+    private final boolean _bTruncated;
+    private final Charset _charset;
+    private String _strBody;
+
+    /**
+     * Constructor
+     * 
+     * @param nStatus
+     *            the response status
+     * @param bValid
+     *            true if the status is authorized by the response validator
+     * @param headers
+     *            the response headers
+     * @param body
+     *            the response body, possibly truncated
+     * @param bTruncated
+     *            true if the body exceeded the maximum size
+     * @param charset
+     *            the charset of the body
+     */
+    HttpResponseResult( int nStatus, boolean bValid, Header [ ] headers, byte [ ] body, boolean bTruncated, Charset charset )
+    {
+        _nStatus = nStatus;
+        _bValid = bValid;
+        _headers = HttpResponseHeaders.of( headers );
+        _body = body;
+        _bTruncated = bTruncated;
+        _charset = charset;
+    }
+
+    /**
+     * Gets the response status
+     * 
+     * @return the status
+     */
+    public int getStatus( )
+    {
+        return _nStatus;
+    }
+
+    /**
+     * Checks if the response status is authorized by the response validator of the HttpAccess
+     * 
+     * @return true if the status is valid
+     */
+    public boolean isValid( )
+    {
+        return _bValid;
+    }
+
+    /**
+     * Gets the response headers
+     * 
+     * @return the case insensitive and multi-valued view of the headers
+     */
+    public HttpResponseHeaders getHeaders( )
+    {
+        return _headers;
+    }
+
+    /**
+     * Gets the first value of a header
+     * 
+     * @param strName
+     *            the header name, case insensitive
+     * @return the value, null if the header is absent
+     */
+    public String getHeader( String strName )
+    {
+        return _headers.getFirst( strName );
+    }
+
+    /**
+     * Gets all the values of a header
+     * 
+     * @param strName
+     *            the header name, case insensitive
+     * @return the values, empty if the header is absent
+     */
+    public List<String> getHeaderValues( String strName )
+    {
+        return _headers.getAll( strName );
+    }
+
+    /**
+     * Gets the headers as a map, each name being associated with its first value
+     * 
+     * @return the headers
+     */
+    public Map<String, String> getHeadersMap( )
+    {
+        return _headers;
+    }
+
+    /**
+     * Gets the raw response body
+     * 
+     * @return the body bytes, possibly truncated
+     */
+    public byte [ ] getBodyBytes( )
+    {
+        return _body;
+    }
+
+    /**
+     * Gets the response body, decoded with the charset of the response
+     * 
+     * @return the body, possibly truncated
+     */
+    public String getBody( )
+    {
+        if ( _strBody == null )
+        {
+            _strBody = new String( _body, _charset );
+        }
+
+        return _strBody;
+    }
+
+    /**
+     * Checks if the body has been truncated to the maximum size
+     * 
+     * @return true if the body is truncated
+     */
+    public boolean isTruncated( )
+    {
+        return _bTruncated;
+    }
+}
@@ -59,6 +59,27 @@ public class InvalidResponseStatus extends HttpAccessException
         _strResponseBody = strResponseBody;
     }
 
+    /**
+     * Constructor
+     * 
+     * @param strMessage
+     *            The message
+     * @param nResponseStatus
+     *            The response status
+     * @param strResponseBody
+     *            The response body
+     * @param cause
+     *            The cause
+     * @param bWritableStackTrace
+     *            false to skip the stack trace capture
+     */
+    public InvalidResponseStatus( String strMessage, Integer nResponseStatus, String strResponseBody, Exception cause, boolean bWritableStackTrace )
+    {
+        super( strMessage, nResponseStatus, cause, bWritableStackTrace );
+        _nResponseStatus = nResponseStatus;
+        _strResponseBody = strResponseBody;
+    }
+
     @Override
     public String getMessage( )
     {
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.RouteInfo;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HeaderElement;
+import org.apache.hc.core5.http.HeaderElements;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Keep-alive strategy using the timeout of the Keep-Alive header of the response, or a default duration when the server doesn't send one, bounded by
+ * the maximum keep-alive of the target host so that connections already closed by the peer are not kept in the pool
+ */
+class KeepAliveStrategy implements ConnectionKeepAliveStrategy
+{
+    private static final String PARAMETER_TIMEOUT = "timeout";
+
+    private final TimeValue _defaultKeepAlive;
+    private final TimeValue _maxKeepAlive;
+    private final Map<String, TimeValue> _mapMaxKeepAlives;
+
+    /**
+     * Constructor
+     * 
+     * @param defaultKeepAlive
+     *            the keep-alive when the server doesn't send a timeout
+     * @param maxKeepAlive
+     *            the maximum keep-alive, null for no maximum
+     * @param mapMaxKeepAlives
+     *            the maximum keep-alive by host key, overriding the global maximum
+     */
+    KeepAliveStrategy( TimeValue defaultKeepAlive, TimeValue maxKeepAlive, Map<String, TimeValue> mapMaxKeepAlives )
+    {
+        _defaultKeepAlive = defaultKeepAlive;
+        _maxKeepAlive = maxKeepAlive;
+        _mapMaxKeepAlives = mapMaxKeepAlives;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public TimeValue getKeepAliveDuration( HttpResponse response, HttpContext context )
+    {
+        TimeValue keepAlive = _defaultKeepAlive;
+
+        Iterator<HeaderElement> iterator = MessageSupport.iterate( response, HeaderElements.KEEP_ALIVE );
+        while ( iterator.hasNext( ) )
+        {
+            HeaderElement element = iterator.next( );
+            if ( PARAMETER_TIMEOUT.equalsIgnoreCase( element.getName( ) ) && element.getValue( ) != null )
+            {
+                try
+                {
+                    keepAlive = TimeValue.ofSeconds( Long.parseLong( element.getValue( ).trim( ) ) );
+                }
+                catch( NumberFormatException e )
+                {
+                    // invalid timeout, the default keep-alive applies
+                }
+                break;
+            }
+        }
+
+        TimeValue maxKeepAlive = getMaxKeepAlive( context );
+        if ( maxKeepAlive != null && ( !TimeValue.isPositive( keepAlive ) || keepAlive.toMilliseconds( ) > maxKeepAlive.toMilliseconds( ) ) )
+        {
+            return maxKeepAlive;
+        }
+
+        return keepAlive;
+    }
+
+    /**
+     * Gets the maximum keep-alive of the target host of a request
+     * 
+     * @param context
+     *            the context of the request
+     * @return the maximum keep-alive, null for no maximum
+     */
+    private TimeValue getMaxKeepAlive( HttpContext context )
+    {
+        RouteInfo route = HttpClientContext.castOrCreate( context ).getHttpRoute( );
+        if ( route != null && !_mapMaxKeepAlives.isEmpty( ) )
+        {
+            HttpHost target = route.getTargetHost( );
+            TimeValue maxKeepAlive = _mapMaxKeepAlives.get( HttpAccessService.getHostKey( target.getSchemeName( ), target.getHostName( ), target.getPort( ) ) );
+            if ( maxKeepAlive != null )
+            {
+                return maxKeepAlive;
+            }
+        }
+
+        return _maxKeepAlive;
+    }
+}
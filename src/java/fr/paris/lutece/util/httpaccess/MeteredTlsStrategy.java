@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+
+import javax.net.ssl.SSLSocket;
+
+import org.apache.hc.client5.http.ssl.TlsSocketStrategy;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * TLS strategy of the blocking and async clients, recording in the {@link TlsSessionMetrics} whether each handshake resumed a cached session
+ */
+class MeteredTlsStrategy implements TlsSocketStrategy, TlsStrategy
+{
+    private final TlsSocketStrategy _socketStrategy;
+    private final TlsStrategy _strategy;
+    private final TlsSessionMetrics _metrics;
+
+    /**
+     * Constructor
+     * 
+     * @param socketStrategy
+     *            the strategy of the blocking connections
+     * @param strategy
+     *            the strategy of the async connections
+     * @param metrics
+     *            the metrics
+     */
+    MeteredTlsStrategy( TlsSocketStrategy socketStrategy, TlsStrategy strategy, TlsSessionMetrics metrics )
+    {
+        _socketStrategy = socketStrategy;
+        _strategy = strategy;
+        _metrics = metrics;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public SSLSocket upgrade( Socket socket, String strTarget, int nPort, Object attachment, HttpContext context ) throws IOException
+    {
+        long lStart = System.currentTimeMillis( );
+        SSLSocket sslSocket = _socketStrategy.upgrade( socket, strTarget, nPort, attachment, context );
+        _metrics.record( sslSocket.getSession( ), lStart );
+
+        return sslSocket;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @Deprecated
+    public boolean upgrade( TransportSecurityLayer sessionLayer, HttpHost host, SocketAddress localAddress, SocketAddress remoteAddress,
+            Object attachment, Timeout handshakeTimeout )
+    {
+        return _strategy.upgrade( sessionLayer, host, localAddress, remoteAddress, attachment, handshakeTimeout );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void upgrade( TransportSecurityLayer sessionLayer, NamedEndpoint endpoint, Object attachment, Timeout handshakeTimeout,
+            FutureCallback<TransportSecurityLayer> callback )
+    {
+        long lStart = System.currentTimeMillis( );
+        _strategy.upgrade( sessionLayer, endpoint, attachment, handshakeTimeout, new FutureCallback<TransportSecurityLayer>( )
+        {
+            @Override
+            public void completed( TransportSecurityLayer result )
+            {
+                TlsDetails tlsDetails = result.getTlsDetails( );
+                if ( tlsDetails != null && tlsDetails.getSSLSession( ) != null )
+                {
+                    _metrics.record( tlsDetails.getSSLSession( ), lStart );
+                }
+                if ( callback != null )
+                {
+                    callback.completed( result );
+                }
+            }
+
+            @Override
+            public void failed( Exception exception )
+            {
+                if ( callback != null )
+                {
+                    callback.failed( exception );
+                }
+            }
+
+            @Override
+            public void cancelled( )
+            {
+                if ( callback != null )
+                {
+                    callback.cancelled( );
+                }
+            }
+        } );
+    }
+}
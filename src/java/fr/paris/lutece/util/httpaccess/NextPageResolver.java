@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.net.URIBuilder;
+
+/**
+ * NextPageResolver : computes the URL of the next page of a paginated resource
+ */
+@FunctionalInterface
+public interface NextPageResolver
+{
+    /**
+     * Gets the URL of the next page
+     * 
+     * @param strPageUrl
+     *            the URL of the current page
+     * @param responseHeaders
+     *            the headers of the current page response
+     * @param nPageItemsCount
+     *            the number of items in the current page
+     * @return the URL of the next page, or null if the current page is the last one
+     */
+    String getNextPageUrl( String strPageUrl, HttpResponseHeaders responseHeaders, int nPageItemsCount );
+
+    /**
+     * Resolver following the <code>Link: &lt;url&gt;; rel="next"</code> response header (RFC 8288). All the Link headers of the response are scanned,
+     * and the relation may be quoted or not.
+     * 
+     * @return the resolver
+     */
+    static NextPageResolver linkHeader( )
+    {
+        Pattern patternNextLink = Pattern.compile( "<([^>]*)>[^,]*;\\s*rel=\"?([^\",]*\\s)?next(?=[\\s\",;]|$)", Pattern.CASE_INSENSITIVE );
+
+        return ( strPageUrl, responseHeaders, nPageItemsCount ) -> {
+            for ( String strLink : responseHeaders.getAll( "Link" ) )
+            {
+                Matcher matcher = patternNextLink.matcher( strLink );
+                if ( matcher.find( ) )
+                {
+                    return URI.create( strPageUrl ).resolve( matcher.group( 1 ).trim( ) ).toString( );
+                }
+            }
+
+            return null;
+        };
+    }
+
+    /**
+     * Resolver incrementing a page number query parameter, until a page is empty
+     * 
+     * @param strParameter
+     *            the name of the page parameter
+     * @param nFirstPage
+     *            the number of the first page, used when the parameter is missing from the URL
+     * @return the resolver
+     */
+    static NextPageResolver pageParameter( String strParameter, int nFirstPage )
+    {
+        return ( strPageUrl, responseHeaders, nPageItemsCount ) -> ( nPageItemsCount == 0 ) ? null
+                : incrementParameter( strPageUrl, strParameter, nFirstPage, 1 );
+    }
+
+    /**
+     * Resolver incrementing an offset query parameter by the page size, until a page holds less items than the page size
+     * 
+     * @param strParameter
+     *            the name of the offset parameter
+     * @param nPageSize
+     *            the size of the pages
+     * @return the resolver
+     */
+    static NextPageResolver offsetParameter( String strParameter, int nPageSize )
+    {
+        return ( strPageUrl, responseHeaders, nPageItemsCount ) -> ( nPageItemsCount < nPageSize ) ? null
+                : incrementParameter( strPageUrl, strParameter, 0, nPageSize );
+    }
+
+    /**
+     * Increment a numeric query parameter of an URL
+     * 
+     * @param strUrl
+     *            the URL
+     * @param strParameter
+     *            the parameter
+     * @param nDefault
+     *            the value of the parameter when it is missing
+     * @param nIncrement
+     *            the increment
+     * @return the new URL
+     */
+    static String incrementParameter( String strUrl, String strParameter, int nDefault, int nIncrement )
+    {
+        try
+        {
+            URIBuilder uriBuilder = new URIBuilder( strUrl );
+            long lValue = nDefault;
+            for ( NameValuePair parameter : uriBuilder.getQueryParams( ) )
+            {
+                if ( parameter.getName( ).equals( strParameter ) )
+                {
+                    lValue = Long.parseLong( parameter.getValue( ) );
+                    break;
+                }
+            }
+
+            return uriBuilder.setParameter( strParameter, String.valueOf( lValue + nIncrement ) ).build( ).toString( );
+        }
+        catch( URISyntaxException | NumberFormatException e )
+        {
+            throw new IllegalArgumentException( "Unable to compute the next page of " + strUrl, e );
+        }
+    }
+}
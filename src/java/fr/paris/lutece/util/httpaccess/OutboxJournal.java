@@ -0,0 +1,511 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Append-only journal of the outbox, made of memory-mapped segment files. Each record is written as :
+ * <ul>
+ * <li>the length of the payload (int), written last so that a torn write is never read back</li>
+ * <li>the state of the record (byte) : pending or done</li>
+ * <li>the payload</li>
+ * </ul>
+ * A record is acknowledged by flipping its state in place. Segments whose records are all acknowledged are deleted. The directory is locked while
+ * the journal is open, so that the records are never replayed by two outboxes.
+ */
+class OutboxJournal
+{
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String LOCK_FILE = "outbox.lock";
+    private static final byte STATE_PENDING = 1;
+    private static final byte STATE_DONE = 2;
+    private static final int RECORD_HEADER_SIZE = 5;
+
+    private final File _directory;
+    private final int _nSegmentSize;
+    private final boolean _bSync;
+    private final NavigableMap<Long, Segment> _segments = new TreeMap<>( );
+    private Segment _current;
+    private FileChannel _lockChannel;
+    private FileLock _lock;
+
+    /**
+     * Constructor
+     * 
+     * @param directory
+     *            the directory of the segment files
+     * @param nSegmentSize
+     *            the size of the segment files
+     * @param bSync
+     *            true to force each record to the storage device before returning
+     */
+    OutboxJournal( File directory, int nSegmentSize, boolean bSync )
+    {
+        _directory = directory;
+        _nSegmentSize = nSegmentSize;
+        _bSync = bSync;
+    }
+
+    /**
+     * Open the journal and read back the records not yet acknowledged
+     * 
+     * @return the pending records, in the order they were appended
+     * @throws IOException
+     *             if the journal can't be read, or is locked by another outbox
+     */
+    synchronized List<OutboxRecord> open( ) throws IOException
+    {
+        Files.createDirectories( _directory.toPath( ) );
+        lock( );
+
+        try
+        {
+            return readSegments( );
+        }
+        catch( IOException | RuntimeException e )
+        {
+            close( );
+            throw e;
+        }
+    }
+
+    /**
+     * Lock the directory of the journal
+     * 
+     * @throws IOException
+     *             if the directory is locked by another outbox, of this process or of another one
+     */
+    private void lock( ) throws IOException
+    {
+        FileChannel channel = FileChannel.open( new File( _directory, LOCK_FILE ).toPath( ), StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+        FileLock lock;
+
+        try
+        {
+            lock = channel.tryLock( );
+        }
+        catch( OverlappingFileLockException e )
+        {
+            // held by another outbox of this process
+            lock = null;
+        }
+
+        if ( lock == null )
+        {
+            channel.close( );
+            throw new IOException( "The outbox journal " + _directory + " is used by another service or process" );
+        }
+
+        _lockChannel = channel;
+        _lock = lock;
+    }
+
+    /**
+     * Map the segment files and read back their pending records
+     * 
+     * @return the pending records, in the order they were appended
+     * @throws IOException
+     *             if a segment can't be read
+     */
+    private List<OutboxRecord> readSegments( ) throws IOException
+    {
+        List<OutboxRecord> listPending = new ArrayList<>( );
+        File [ ] files = _directory.listFiles( ( dir, strName ) -> strName.startsWith( SEGMENT_PREFIX ) && strName.endsWith( SEGMENT_SUFFIX ) );
+
+        if ( files != null )
+        {
+            for ( File file : files )
+            {
+                String strSequence = file.getName( ).substring( SEGMENT_PREFIX.length( ), file.getName( ).length( ) - SEGMENT_SUFFIX.length( ) );
+                try
+                {
+                    long lSequence = Long.parseLong( strSequence );
+                    _segments.put( lSequence, Segment.map( file, lSequence, (int) file.length( ) ) );
+                }
+                catch( NumberFormatException e )
+                {
+                    AppLogService.error( "HttpAccess - Ignoring unexpected outbox file " + file );
+                }
+            }
+        }
+
+        for ( Segment segment : _segments.values( ) )
+        {
+            listPending.addAll( segment.scan( ) );
+        }
+
+        if ( _segments.isEmpty( ) )
+        {
+            _current = newSegment( 0L, _nSegmentSize );
+        }
+        else
+        {
+            _current = _segments.lastEntry( ).getValue( );
+            for ( Segment segment : new ArrayList<>( _segments.headMap( _current._lSequence ).values( ) ) )
+            {
+                if ( segment._nPending == 0 )
+                {
+                    release( segment );
+                }
+            }
+        }
+
+        return listPending;
+    }
+
+    /**
+     * Append a record
+     * 
+     * @param strMethod
+     *            the HTTP method
+     * @param strUrl
+     *            the url
+     * @param strBody
+     *            the body
+     * @param headersRequest
+     *            the headers, may be null
+     * @param lExpiration
+     *            the instant after which the request is abandoned, 0 for never
+     * @return the record
+     * @throws IOException
+     *             if the record can't be written
+     */
+    synchronized OutboxRecord append( String strMethod, String strUrl, String strBody, Map<String, String> headersRequest, long lExpiration )
+            throws IOException
+    {
+        byte [ ] payload = encode( strMethod, strUrl, strBody, headersRequest, lExpiration );
+        int nRequired = RECORD_HEADER_SIZE + payload.length;
+
+        if ( _current.remaining( ) < nRequired )
+        {
+            Segment previous = _current;
+            _current = newSegment( previous._lSequence + 1, Math.max( _nSegmentSize, nRequired ) );
+            if ( previous._nPending == 0 )
+            {
+                release( previous );
+            }
+        }
+
+        int nPosition = _current.write( payload, _bSync );
+
+        return new OutboxRecord( _current._lSequence, nPosition, strMethod, strUrl, strBody, headersRequest, lExpiration );
+    }
+
+    /**
+     * Acknowledge a record, which won't be read back anymore
+     * 
+     * @param record
+     *            the record
+     */
+    synchronized void acknowledge( OutboxRecord record )
+    {
+        Segment segment = _segments.get( record.getSegment( ) );
+
+        if ( segment == null )
+        {
+            return;
+        }
+
+        segment._buffer.put( record.getPosition( ) + 4, STATE_DONE );
+        segment._nPending--;
+
+        if ( _bSync )
+        {
+            segment._buffer.force( );
+        }
+        if ( segment._nPending == 0 && segment != _current )
+        {
+            release( segment );
+        }
+    }
+
+    /**
+     * Flush the segments to the storage device
+     */
+    synchronized void flush( )
+    {
+        _segments.values( ).forEach( segment -> segment._buffer.force( ) );
+    }
+
+    /**
+     * Flush the segments and unlock the journal, so that it can be opened again
+     */
+    synchronized void close( )
+    {
+        flush( );
+
+        if ( _lockChannel != null )
+        {
+            try
+            {
+                _lock.release( );
+                _lockChannel.close( );
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( "HttpAccess - Unable to unlock the outbox journal " + _directory + " : " + e.getMessage( ), e );
+            }
+            _lockChannel = null;
+            _lock = null;
+        }
+    }
+
+    /**
+     * Create a new segment
+     * 
+     * @param lSequence
+     *            the sequence number
+     * @param nSize
+     *            the size
+     * @return the segment
+     * @throws IOException
+     *             if the file can't be created
+     */
+    private Segment newSegment( long lSequence, int nSize ) throws IOException
+    {
+        File file = new File( _directory, String.format( "%s%020d%s", SEGMENT_PREFIX, lSequence, SEGMENT_SUFFIX ) );
+        Segment segment = Segment.map( file, lSequence, nSize );
+        _segments.put( lSequence, segment );
+
+        return segment;
+    }
+
+    /**
+     * Delete a segment whose records are all acknowledged
+     * 
+     * @param segment
+     *            the segment
+     */
+    private void release( Segment segment )
+    {
+        _segments.remove( segment._lSequence );
+        try
+        {
+            Files.deleteIfExists( segment._file.toPath( ) );
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( "HttpAccess - Unable to delete outbox segment " + segment._file + " : " + e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Encode a request
+     * 
+     * @param strMethod
+     *            the HTTP method
+     * @param strUrl
+     *            the url
+     * @param strBody
+     *            the body
+     * @param headersRequest
+     *            the headers, may be null
+     * @param lExpiration
+     *            the instant after which the request is abandoned, 0 for never
+     * @return the payload
+     * @throws IOException
+     *             never for an in-memory stream
+     */
+    private static byte [ ] encode( String strMethod, String strUrl, String strBody, Map<String, String> headersRequest, long lExpiration )
+            throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream( );
+        try ( DataOutputStream out = new DataOutputStream( baos ) )
+        {
+            writeString( out, strMethod );
+            writeString( out, strUrl );
+            writeString( out, strBody );
+            out.writeInt( ( headersRequest != null ) ? headersRequest.size( ) : 0 );
+            if ( headersRequest != null )
+            {
+                for ( Map.Entry<String, String> header : headersRequest.entrySet( ) )
+                {
+                    writeString( out, header.getKey( ) );
+                    writeString( out, header.getValue( ) );
+                }
+            }
+            out.writeLong( lExpiration );
+        }
+
+        return baos.toByteArray( );
+    }
+
+    private static void writeString( DataOutputStream out, String strValue ) throws IOException
+    {
+        if ( strValue == null )
+        {
+            out.writeInt( -1 );
+            return;
+        }
+        byte [ ] bytes = strValue.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    private static String readString( DataInputStream in ) throws IOException
+    {
+        int nLength = in.readInt( );
+        if ( nLength < 0 )
+        {
+            return null;
+        }
+        byte [ ] bytes = new byte [ nLength];
+        in.readFully( bytes );
+
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * A memory-mapped segment file
+     */
+    private static final class Segment
+    {
+        private final File _file;
+        private final long _lSequence;
+        private final MappedByteBuffer _buffer;
+        private int _nWritePosition;
+        private int _nPending;
+
+        private Segment( File file, long lSequence, MappedByteBuffer buffer )
+        {
+            _file = file;
+            _lSequence = lSequence;
+            _buffer = buffer;
+        }
+
+        /**
+         * Map a segment file, creating it if needed
+         */
+        private static Segment map( File file, long lSequence, int nSize ) throws IOException
+        {
+            try ( FileChannel channel = FileChannel.open( file.toPath( ), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE ) )
+            {
+                return new Segment( file, lSequence, channel.map( FileChannel.MapMode.READ_WRITE, 0, nSize ) );
+            }
+        }
+
+        private int remaining( )
+        {
+            return _buffer.capacity( ) - _nWritePosition;
+        }
+
+        private int write( byte [ ] payload, boolean bSync )
+        {
+            int nPosition = _nWritePosition;
+            _buffer.put( nPosition + 4, STATE_PENDING );
+            ByteBuffer target = _buffer.duplicate( );
+            target.position( nPosition + RECORD_HEADER_SIZE );
+            target.put( payload );
+            _buffer.putInt( nPosition, payload.length );
+            _nWritePosition = nPosition + RECORD_HEADER_SIZE + payload.length;
+            _nPending++;
+
+            if ( bSync )
+            {
+                _buffer.force( );
+            }
+
+            return nPosition;
+        }
+
+        /**
+         * Read the records of the segment, and position the write position after the last one
+         */
+        private List<OutboxRecord> scan( ) throws IOException
+        {
+            List<OutboxRecord> listPending = new ArrayList<>( );
+            int nPosition = 0;
+
+            while ( nPosition + RECORD_HEADER_SIZE <= _buffer.capacity( ) )
+            {
+                int nLength = _buffer.getInt( nPosition );
+                if ( nLength <= 0 || nPosition + RECORD_HEADER_SIZE + nLength > _buffer.capacity( ) )
+                {
+                    break;
+                }
+
+                if ( _buffer.get( nPosition + 4 ) == STATE_PENDING )
+                {
+                    byte [ ] payload = new byte [ nLength];
+                    ByteBuffer source = _buffer.duplicate( );
+                    source.position( nPosition + RECORD_HEADER_SIZE );
+                    source.get( payload );
+
+                    try ( DataInputStream in = new DataInputStream( new ByteArrayInputStream( payload ) ) )
+                    {
+                        String strMethod = readString( in );
+                        String strUrl = readString( in );
+                        String strBody = readString( in );
+                        int nHeaders = in.readInt( );
+                        Map<String, String> headersRequest = new LinkedHashMap<>( );
+                        for ( int i = 0; i < nHeaders; i++ )
+                        {
+                            headersRequest.put( readString( in ), readString( in ) );
+                        }
+                        long lExpiration = in.readLong( );
+                        listPending.add( new OutboxRecord( _lSequence, nPosition, strMethod, strUrl, strBody, headersRequest, lExpiration ) );
+                        _nPending++;
+                    }
+                }
+                nPosition += RECORD_HEADER_SIZE + nLength;
+            }
+            _nWritePosition = nPosition;
+
+            return listPending;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.util.Map;
+
+/**
+ * A request stored in the outbox journal, waiting to be sent
+ */
+class OutboxRecord
+{
+    private final long _lSegment;
+    private final int _nPosition;
+    private final String _strMethod;
+    private final String _strUrl;
+    private final String _strBody;
+    private final Map<String, String> _headersRequest;
+    private final long _lExpiration;
+
+    /**
+     * Constructor
+     * 
+     * @param lSegment
+     *            the sequence number of the journal segment holding the record
+     * @param nPosition
+     *            the position of the record in the segment
+     * @param strMethod
+     *            the HTTP method
+     * @param strUrl
+     *            the url
+     * @param strBody
+     *            the body
+     * @param headersRequest
+     *            the headers
+     * @param lExpiration
+     *            the instant after which the request is abandoned, in milliseconds since the epoch, 0 for never
+     */
+    OutboxRecord( long lSegment, int nPosition, String strMethod, String strUrl, String strBody, Map<String, String> headersRequest,
+            long lExpiration )
+    {
+        _lSegment = lSegment;
+        _nPosition = nPosition;
+        _strMethod = strMethod;
+        _strUrl = strUrl;
+        _strBody = strBody;
+        _headersRequest = headersRequest;
+        _lExpiration = lExpiration;
+    }
+
+    long getSegment( )
+    {
+        return _lSegment;
+    }
+
+    int getPosition( )
+    {
+        return _nPosition;
+    }
+
+    String getMethod( )
+    {
+        return _strMethod;
+    }
+
+    String getUrl( )
+    {
+        return _strUrl;
+    }
+
+    String getBody( )
+    {
+        return _strBody;
+    }
+
+    Map<String, String> getHeadersRequest( )
+    {
+        return _headersRequest;
+    }
+
+    long getExpiration( )
+    {
+        return _lExpiration;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+
+/**
+ * Iterator over the items of a paginated resource. Pages are fetched by a background task which runs ahead of the consumer, up to a bounded number of
+ * pages, so that the next pages are downloaded while the current one is processed. Each open iterator holds a thread of a bounded pool until it
+ * is closed or all its pages are fetched : an iterator that is neither closed nor consumed keeps its thread blocked, and an iterator opened while
+ * all the threads are busy is rejected.
+ *
+ * @param <T>
+ *            the type of the items
+ */
+class PaginatedResourceIterator<T> implements Iterator<T>, Closeable
+{
+    /** The Constant MAX_FETCHERS. */
+    private static final int MAX_FETCHERS = 32;
+
+    /** The Constant FETCHER_KEEP_ALIVE. */
+    private static final long FETCHER_KEEP_ALIVE = 60L;
+
+    /** The executor fetching the pages, shared by all the iterators. */
+    private static final ExecutorService _fetchers = createFetchers( );
+
+    /** Marker of the end of the pages. */
+    private static final Object END_OF_PAGES = new Object( );
+
+    private final BlockingQueue<Object> _pages;
+    private final Future<?> _fetcher;
+    private Iterator<T> _currentPage = Collections.emptyIterator( );
+    private boolean _bEnd;
+
+    /**
+     * Constructor, starting the fetch of the pages
+     * 
+     * @param httpAccess
+     *            the http access
+     * @param strFirstPageUrl
+     *            the url of the first page
+     * @param authenticator
+     *            the authenticator
+     * @param listElements
+     *            the elements to include in the signature
+     * @param headersRequest
+     *            the headers of the requests
+     * @param pageParser
+     *            the function extracting the items from the body of a page
+     * @param nextPageResolver
+     *            the resolver of the next page url
+     * @param nPrefetchPages
+     *            the maximum number of pages fetched ahead of the consumer
+     */
+    PaginatedResourceIterator( HttpAccess httpAccess, String strFirstPageUrl, RequestAuthenticator authenticator, List<String> listElements,
+            Map<String, String> headersRequest, Function<String, List<T>> pageParser, NextPageResolver nextPageResolver, int nPrefetchPages )
+    {
+        _pages = new ArrayBlockingQueue<>( Math.max( 1, nPrefetchPages ) );
+        try
+        {
+            _fetcher = _fetchers.submit( ( ) -> {
+                try
+                {
+                    String strPageUrl = strFirstPageUrl;
+                    while ( strPageUrl != null && !Thread.currentThread( ).isInterrupted( ) )
+                    {
+                        HttpResponseHeaders responseHeaders = new HttpResponseHeaders( );
+                        String strBody = httpAccess.doGet( strPageUrl, authenticator, listElements, headersRequest, responseHeaders );
+                        List<T> listItems = pageParser.apply( strBody );
+                        _pages.put( listItems );
+                        strPageUrl = nextPageResolver.getNextPageUrl( strPageUrl, responseHeaders, listItems.size( ) );
+                    }
+                    _pages.put( END_OF_PAGES );
+                }
+                catch( InterruptedException e )
+                {
+                    // closed by the consumer, or stopped by the shutdown of the services while the consumer may be waiting
+                    _pages.clear( );
+                    _pages.offer( new UncheckedHttpAccessException( new HttpAccessException( "HttpAccess - Fetch of the pages interrupted", e ) ) );
+                    Thread.currentThread( ).interrupt( );
+                }
+                catch( HttpAccessException e )
+                {
+                    offerFailure( new UncheckedHttpAccessException( e ) );
+                }
+                catch( RuntimeException e )
+                {
+                    offerFailure( e );
+                }
+            } );
+        }
+        catch( RejectedExecutionException e )
+        {
+            String strMessage = _fetchers.isShutdown( ) ? "HttpAccess - The services are shut down"
+                    : "HttpAccess - Too many paginated resources walked at the same time, at most " + MAX_FETCHERS + " : are the streams closed ?";
+            throw new UncheckedHttpAccessException( new HttpAccessException( strMessage, e ) );
+        }
+    }
+
+    /**
+     * Create the executor fetching the pages : a bounded pool without queue, whose idle threads are stopped
+     * 
+     * @return the executor
+     */
+    private static ExecutorService createFetchers( )
+    {
+        ThreadPoolExecutor fetchers = new ThreadPoolExecutor( MAX_FETCHERS, MAX_FETCHERS, FETCHER_KEEP_ALIVE, TimeUnit.SECONDS,
+                new SynchronousQueue<>( ), new DaemonThreadFactory( "httpaccess-paginator" ), new ThreadPoolExecutor.AbortPolicy( ) );
+        fetchers.allowCoreThreadTimeOut( true );
+
+        return fetchers;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public boolean hasNext( )
+    {
+        while ( !_currentPage.hasNext( ) )
+        {
+            if ( _bEnd )
+            {
+                return false;
+            }
+
+            Object page;
+            try
+            {
+                page = _pages.take( );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                close( );
+                throw new IllegalStateException( "Interrupted while waiting for the next page", e );
+            }
+
+            if ( page == END_OF_PAGES )
+            {
+                _bEnd = true;
+            }
+            else
+                if ( page instanceof RuntimeException )
+                {
+                    _bEnd = true;
+                    throw (RuntimeException) page;
+                }
+                else
+                {
+                    _currentPage = ( (List<T>) page ).iterator( );
+                }
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public T next( )
+    {
+        if ( !hasNext( ) )
+        {
+            throw new NoSuchElementException( );
+        }
+
+        return _currentPage.next( );
+    }
+
+    /**
+     * Stop fetching the pages
+     */
+    @Override
+    public void close( )
+    {
+        _bEnd = true;
+        _fetcher.cancel( true );
+        _pages.clear( );
+    }
+
+    /**
+     * Stop the executor fetching the pages, called when the services are shut down. It is not restarted : the shutdown is final
+     */
+    static void shutdownFetchers( )
+    {
+        _fetchers.shutdownNow( );
+    }
+
+    /**
+     * Pass a failure to the consumer
+     * 
+     * @param exception
+     *            the failure
+     */
+    private void offerFailure( RuntimeException exception )
+    {
+        try
+        {
+            _pages.put( exception );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+}
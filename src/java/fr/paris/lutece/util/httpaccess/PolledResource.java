@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * PolledResource : a resource registered in the {@link HttpPollingService}, with the validators of its last known version
+ */
+public class PolledResource
+{
+    private final String _strUrl;
+    private final long _lInterval;
+    private final Map<String, String> _headersRequest;
+    private final HttpPollingListener _listener;
+    private volatile String _strETag;
+    private volatile String _strLastModified;
+    private volatile ScheduledFuture<?> _nextPoll;
+    private volatile boolean _bCancelled;
+
+    /**
+     * Constructor
+     * 
+     * @param strUrl
+     *            the url
+     * @param lInterval
+     *            the interval between polls in milliseconds
+     * @param headersRequest
+     *            the headers of the requests, may be null
+     * @param listener
+     *            the listener
+     */
+    PolledResource( String strUrl, long lInterval, Map<String, String> headersRequest, HttpPollingListener listener )
+    {
+        _strUrl = strUrl;
+        _lInterval = lInterval;
+        _headersRequest = headersRequest;
+        _listener = listener;
+    }
+
+    /**
+     * Gets the url
+     * 
+     * @return the url
+     */
+    public String getUrl( )
+    {
+        return _strUrl;
+    }
+
+    /**
+     * Gets the ETag of the last version received
+     * 
+     * @return the ETag, may be null
+     */
+    public String getETag( )
+    {
+        return _strETag;
+    }
+
+    /**
+     * Gets the Last-Modified date of the last version received
+     * 
+     * @return the Last-Modified header value, may be null
+     */
+    public String getLastModified( )
+    {
+        return _strLastModified;
+    }
+
+    /**
+     * Stop polling the resource
+     */
+    public void cancel( )
+    {
+        _bCancelled = true;
+        ScheduledFuture<?> nextPoll = _nextPoll;
+        if ( nextPoll != null )
+        {
+            nextPoll.cancel( false );
+        }
+    }
+
+    /**
+     * Tells if the polling is cancelled
+     * 
+     * @return true if cancelled
+     */
+    public boolean isCancelled( )
+    {
+        return _bCancelled;
+    }
+
+    long getInterval( )
+    {
+        return _lInterval;
+    }
+
+    Map<String, String> getHeadersRequest( )
+    {
+        return _headersRequest;
+    }
+
+    HttpPollingListener getListener( )
+    {
+        return _listener;
+    }
+
+    void setETag( String strETag )
+    {
+        _strETag = strETag;
+    }
+
+    void setLastModified( String strLastModified )
+    {
+        _strLastModified = strLastModified;
+    }
+
+    void setNextPoll( ScheduledFuture<?> nextPoll )
+    {
+        _nextPoll = nextPoll;
+    }
+}
@@ -33,9 +33,14 @@
  */
 package fr.paris.lutece.util.httpaccess;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
 
-import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
 /**
@@ -55,6 +60,9 @@ public class PropertiesHttpClientConfiguration extends HttpClientConfiguration
     /** The Constant PROPERTY_PROXY_PASSWORD. */
     private static final String PROPERTY_PROXY_PASSWORD = "httpAccess.proxyPassword";
 
+    /** The Constant PROPERTY_PROXY_PREEMPTIVE_AUTHENTICATION. */
+    private static final String PROPERTY_PROXY_PREEMPTIVE_AUTHENTICATION = "httpAccess.proxyPreemptiveAuthentication";
+
     /** The Constant PROPERTY_HOST_NAME. */
     private static final String PROPERTY_HOST_NAME = "httpAccess.hostName";
 
@@ -79,68 +87,404 @@ public class PropertiesHttpClientConfiguration extends HttpClientConfiguration
     /** The Constant PROPERTY_CONNECTION_TIMEOUT. */
     private static final String PROPERTY_CONNECTION_TIMEOUT = "httpAccess.connectionTimeout";
 
+    /** The Constant PROPERTY_CONNECTION_REQUEST_TIMEOUT. */
+    private static final String PROPERTY_CONNECTION_REQUEST_TIMEOUT = "httpAccess.connectionRequestTimeout";
+
     /** The Constant PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION. */
     private static final String PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION = "httpAccess.connectionPoolMaxTotalConnections";
 
     /** The Constant PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION_PER_HOST. */
     private static final String PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION_PER_HOST = "httpAccess.connectionPoolMaxConnectionsPerHost";
 
+    /** The Constant PROPERTY_OUTBOX_DIRECTORY. */
+    private static final String PROPERTY_OUTBOX_DIRECTORY = "httpAccess.outbox.directory";
+
+    /** The Constant PROPERTY_OUTBOX_SEGMENT_SIZE. */
+    private static final String PROPERTY_OUTBOX_SEGMENT_SIZE = "httpAccess.outbox.segmentSize";
+
+    /** The Constant PROPERTY_OUTBOX_SYNC. */
+    private static final String PROPERTY_OUTBOX_SYNC = "httpAccess.outbox.sync";
+
+    /** The Constant PROPERTY_SECURITY_INFORMATIONS_CACHE_VALIDITY. */
+    private static final String PROPERTY_SECURITY_INFORMATIONS_CACHE_VALIDITY = "httpAccess.securityInformationsCacheValidity";
+
+    /** The Constant PROPERTY_ERROR_BODY_MAX_SIZE. */
+    private static final String PROPERTY_ERROR_BODY_MAX_SIZE = "httpAccess.errorBodyMaxSize";
+
+    /** The Constant PROPERTY_ERROR_STACK_TRACE. */
+    private static final String PROPERTY_ERROR_STACK_TRACE = "httpAccess.errorStackTrace";
+
+    /** The Constant PROPERTY_AUTHENTICATION_HOSTS. */
+    private static final String PROPERTY_AUTHENTICATION_HOSTS = "httpAccess.authentication.hosts";
+
+    /** The Constant PREFIX_AUTHENTICATION. */
+    private static final String PREFIX_AUTHENTICATION = "httpAccess.authentication.";
+
+    /** The Constant PROPERTY_TLS_PROTOCOLS. */
+    private static final String PROPERTY_TLS_PROTOCOLS = "httpAccess.tls.protocols";
+
+    /** The Constant PROPERTY_TLS_CIPHER_SUITES. */
+    private static final String PROPERTY_TLS_CIPHER_SUITES = "httpAccess.tls.cipherSuites";
+
+    /** The Constant PROPERTY_TLS_SESSION_CACHE_SIZE. */
+    private static final String PROPERTY_TLS_SESSION_CACHE_SIZE = "httpAccess.tls.sessionCacheSize";
+
+    /** The Constant PROPERTY_TLS_SESSION_TIMEOUT. */
+    private static final String PROPERTY_TLS_SESSION_TIMEOUT = "httpAccess.tls.sessionTimeout";
+
+    /** The Constant PROPERTY_TLS_TRUST_STORE. */
+    private static final String PROPERTY_TLS_TRUST_STORE = "httpAccess.tls.trustStore";
+
+    /** The Constant PROPERTY_TLS_TRUST_STORE_PASSWORD. */
+    private static final String PROPERTY_TLS_TRUST_STORE_PASSWORD = "httpAccess.tls.trustStorePassword";
+
+    /** The Constant PROPERTY_TLS_TRUST_STORE_TYPE. */
+    private static final String PROPERTY_TLS_TRUST_STORE_TYPE = "httpAccess.tls.trustStoreType";
+
+    /** The Constant PROPERTY_DNS_TTL. */
+    private static final String PROPERTY_DNS_TTL = "httpAccess.dns.ttl";
+
+    /** The Constant PROPERTY_DNS_NEGATIVE_TTL. */
+    private static final String PROPERTY_DNS_NEGATIVE_TTL = "httpAccess.dns.negativeTtl";
+
+    /** The Constant PROPERTY_DNS_HOSTS. */
+    private static final String PROPERTY_DNS_HOSTS = "httpAccess.dns.hosts";
+
+    /** The Constant PROPERTY_KEEP_ALIVE. */
+    private static final String PROPERTY_KEEP_ALIVE = "httpAccess.keepAlive";
+
+    /** The Constant PROPERTY_MAX_KEEP_ALIVE. */
+    private static final String PROPERTY_MAX_KEEP_ALIVE = "httpAccess.maxKeepAlive";
+
+    /** The Constant PROPERTY_CONNECTION_POOL_REUSE_POLICY. */
+    private static final String PROPERTY_CONNECTION_POOL_REUSE_POLICY = "httpAccess.connectionPoolReusePolicy";
+
+    /** The Constant PROPERTY_CONNECTION_POOL_CONCURRENCY_POLICY. */
+    private static final String PROPERTY_CONNECTION_POOL_CONCURRENCY_POLICY = "httpAccess.connectionPoolConcurrencyPolicy";
+
+    /** The Constant PROPERTY_DRAIN_TIMEOUT. */
+    private static final String PROPERTY_DRAIN_TIMEOUT = "httpAccess.drainTimeout";
+
+    /** The Constant PROPERTY_RELOAD_INTERVAL. */
+    private static final String PROPERTY_RELOAD_INTERVAL = "httpAccess.reloadInterval";
+
+    /** The Constant PROPERTY_WARMUP_HOSTS. */
+    private static final String PROPERTY_WARMUP_HOSTS = "httpAccess.warmup.hosts";
+
+    /** The Constant PROPERTY_WARMUP_CONNECTIONS. */
+    private static final String PROPERTY_WARMUP_CONNECTIONS = "httpAccess.warmup.connections";
+
+    /** The Constant PROPERTY_WARMUP_METHOD. */
+    private static final String PROPERTY_WARMUP_METHOD = "httpAccess.warmup.method";
+
+    /** The Constant PREFIX_SOCKET. */
+    private static final String PREFIX_SOCKET = "httpAccess.socket.";
+
+    /** The Constant PROPERTY_ROUTES. */
+    private static final String PROPERTY_ROUTES = "httpAccess.routes";
+
+    /** The Constant PREFIX_ROUTE. */
+    private static final String PREFIX_ROUTE = "httpAccess.route.";
+
+    /** The Constant SUFFIX_URL. */
+    private static final String SUFFIX_URL = ".url";
+
+    /** The Constant SUFFIX_USERNAME. */
+    private static final String SUFFIX_USERNAME = ".userName";
+
+    /** The Constant SUFFIX_PASSWORD. */
+    private static final String SUFFIX_PASSWORD = ".password";
+
+    /** The Constant SUFFIX_PREEMPTIVE. */
+    private static final String SUFFIX_PREEMPTIVE = ".preemptive";
+
+    /** The Constant SUFFIX_PROTOCOL. */
+    private static final String SUFFIX_PROTOCOL = ".protocol";
+
+    /** The Constant SUFFIX_MAX_KEEP_ALIVE. */
+    private static final String SUFFIX_MAX_KEEP_ALIVE = ".maxKeepAlive";
+
+    /** The Constant SUFFIX_SOCKET. */
+    private static final String SUFFIX_SOCKET = ".socket.";
+
+    /** The Constant SUFFIX_TCP_NO_DELAY. */
+    private static final String SUFFIX_TCP_NO_DELAY = "tcpNoDelay";
+
+    /** The Constant SUFFIX_SO_KEEP_ALIVE. */
+    private static final String SUFFIX_SO_KEEP_ALIVE = "soKeepAlive";
+
+    /** The Constant SUFFIX_RCV_BUF_SIZE. */
+    private static final String SUFFIX_RCV_BUF_SIZE = "rcvBufSize";
+
+    /** The Constant SUFFIX_SND_BUF_SIZE. */
+    private static final String SUFFIX_SND_BUF_SIZE = "sndBufSize";
+
+    /** The Constant SUFFIX_SO_LINGER. */
+    private static final String SUFFIX_SO_LINGER = "soLinger";
+
+    /** The Constant SUFFIX_SO_TIMEOUT. */
+    private static final String SUFFIX_SO_TIMEOUT = "soTimeout";
+
+    /** The Constant SEPARATOR. */
+    private static final String SEPARATOR = ",";
+
+    /** The Constant PREFIX_PROPERTIES. */
+    private static final String PREFIX_PROPERTIES = "httpAccess.";
+
+    /** The name of the service, null for the default configuration. */
+    private final String _strName;
+
+    /** The errors found while reading the properties. */
+    private final List<String> _listErrors = new ArrayList<>( );
+
+    /**
+     * Constructor of the default configuration, read from the httpAccess.* properties
+     */
     public PropertiesHttpClientConfiguration( )
     {
-        this.setProxyHost( AppPropertiesService.getProperty( PROPERTY_PROXY_HOST ) );
-        this.setProxyPort( AppPropertiesService.getProperty( PROPERTY_PROXY_PORT ) );
-        this.setProxyUserName( AppPropertiesService.getProperty( PROPERTY_PROXY_USERNAME ) );
-        this.setProxyPassword( AppPropertiesService.getProperty( PROPERTY_PROXY_PASSWORD ) );
-        this.setHostName( AppPropertiesService.getProperty( PROPERTY_HOST_NAME ) );
-        this.setDomainName( AppPropertiesService.getProperty( PROPERTY_DOMAIN_NAME ) );
-        this.setRealm( AppPropertiesService.getProperty( PROPERTY_REALM ) );
-        this.setNoProxyFor( AppPropertiesService.getProperty( PROPERTY_NO_PROXY_FOR ) );
-        this.setContentCharset( AppPropertiesService.getProperty( PROPERTY_CONTENT_CHARSET ) );
-        this.setElementCharset( AppPropertiesService.getProperty( PROPERTY_ELEMENT_CHARSET ) );
+        this( null );
+    }
 
+    /**
+     * Constructor of the configuration of a named service. Each httpAccess.* property can be overridden by a httpAccess.&lt;name&gt;.* property,
+     * for example httpAccess.ged.socketTimeout overrides httpAccess.socketTimeout for the service named ged.
+     * 
+     * @param strName
+     *            the name of the service, null for the default configuration
+     */
+    public PropertiesHttpClientConfiguration( String strName )
+    {
+        _strName = strName;
+        this.setProxyHost( getProperty( PROPERTY_PROXY_HOST ) );
+        this.setProxyPort( getProperty( PROPERTY_PROXY_PORT ) );
+        this.setProxyUserName( getProperty( PROPERTY_PROXY_USERNAME ) );
+        this.setProxyPassword( getProperty( PROPERTY_PROXY_PASSWORD ) );
+        this.setProxyPreemptiveAuthentication( getPropertyBoolean( PROPERTY_PROXY_PREEMPTIVE_AUTHENTICATION, false ) );
+        this.setHostName( getProperty( PROPERTY_HOST_NAME ) );
+        this.setDomainName( getProperty( PROPERTY_DOMAIN_NAME ) );
+        this.setRealm( getProperty( PROPERTY_REALM ) );
+        this.setNoProxyFor( getProperty( PROPERTY_NO_PROXY_FOR ) );
+        this.setContentCharset( getProperty( PROPERTY_CONTENT_CHARSET ) );
+        this.setElementCharset( getProperty( PROPERTY_ELEMENT_CHARSET ) );
+        this.setSocketTimeout( getIntegerProperty( PROPERTY_SOCKET_TIMEOUT ) );
+        this.setConnectionTimeout( getIntegerProperty( PROPERTY_CONNECTION_TIMEOUT ) );
+        this.setConnectionRequestTimeout( getIntegerProperty( PROPERTY_CONNECTION_REQUEST_TIMEOUT ) );
+        this.setConnectionPoolMaxTotalConnection( getIntegerProperty( PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION ) );
+        this.setConnectionPoolMaxConnectionPerHost( getIntegerProperty( PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION_PER_HOST ) );
+        this.setOutboxSegmentSize( getIntegerProperty( PROPERTY_OUTBOX_SEGMENT_SIZE ) );
+        this.setSecurityInformationsCacheValidity( getIntegerProperty( PROPERTY_SECURITY_INFORMATIONS_CACHE_VALIDITY ) );
+        this.setErrorBodyMaxSize( getIntegerProperty( PROPERTY_ERROR_BODY_MAX_SIZE ) );
+        this.setTlsSessionCacheSize( getIntegerProperty( PROPERTY_TLS_SESSION_CACHE_SIZE ) );
+        this.setTlsSessionTimeout( getIntegerProperty( PROPERTY_TLS_SESSION_TIMEOUT ) );
+        this.setDnsTtl( getIntegerProperty( PROPERTY_DNS_TTL ) );
+        this.setDnsNegativeTtl( getIntegerProperty( PROPERTY_DNS_NEGATIVE_TTL ) );
+        this.setDnsHosts( getProperty( PROPERTY_DNS_HOSTS ) );
+        this.setTlsProtocols( getProperty( PROPERTY_TLS_PROTOCOLS ) );
+        this.setTlsCipherSuites( getProperty( PROPERTY_TLS_CIPHER_SUITES ) );
+        this.setTrustStore( getProperty( PROPERTY_TLS_TRUST_STORE ) );
+        this.setTrustStorePassword( getProperty( PROPERTY_TLS_TRUST_STORE_PASSWORD ) );
+        this.setTrustStoreType( getProperty( PROPERTY_TLS_TRUST_STORE_TYPE ) );
+        this.setErrorStackTrace( getPropertyBoolean( PROPERTY_ERROR_STACK_TRACE, true ) );
+        this.setOutboxDirectory( getProperty( PROPERTY_OUTBOX_DIRECTORY ) );
+        this.setOutboxSync( getPropertyBoolean( PROPERTY_OUTBOX_SYNC, false ) );
+        this.setHostCredentials( loadHostCredentials( ) );
+        this.setKeepAlive( getIntegerProperty( PROPERTY_KEEP_ALIVE ) );
+        this.setMaxKeepAlive( getIntegerProperty( PROPERTY_MAX_KEEP_ALIVE ) );
         try
         {
-            this.setSocketTimeout( StringUtils.isNotEmpty( AppPropertiesService.getProperty( PROPERTY_SOCKET_TIMEOUT ) )
-                    ? Integer.parseInt( AppPropertiesService.getProperty( PROPERTY_SOCKET_TIMEOUT ) )
+            String strReusePolicy = getProperty( PROPERTY_CONNECTION_POOL_REUSE_POLICY );
+            this.setPoolReusePolicy( StringUtils.isNotBlank( strReusePolicy )
+                    ? PoolReusePolicy.valueOf( strReusePolicy.trim( ).toUpperCase( Locale.ROOT ) )
+                    : null );
+            String strConcurrencyPolicy = getProperty( PROPERTY_CONNECTION_POOL_CONCURRENCY_POLICY );
+            this.setPoolConcurrencyPolicy( StringUtils.isNotBlank( strConcurrencyPolicy )
+                    ? PoolConcurrencyPolicy.valueOf( strConcurrencyPolicy.trim( ).toUpperCase( Locale.ROOT ) )
                     : null );
         }
-        catch( NumberFormatException e )
+        catch( IllegalArgumentException e )
         {
-            AppLogService.error( "Error during initialisation of socket timeout ", e );
+            _listErrors.add( "invalid connection pool policy : " + e.getMessage( ) );
         }
+        this.setDrainTimeout( getIntegerProperty( PROPERTY_DRAIN_TIMEOUT ) );
+        this.setReloadInterval( getIntegerProperty( PROPERTY_RELOAD_INTERVAL ) );
+        this.setWarmupHosts( getProperty( PROPERTY_WARMUP_HOSTS ) );
+        this.setWarmupConnections( getIntegerProperty( PROPERTY_WARMUP_CONNECTIONS ) );
+        this.setWarmupMethod( StringUtils.trimToNull( getProperty( PROPERTY_WARMUP_METHOD ) ) );
+        this.setSocketOptions( loadSocketOptions( PREFIX_SOCKET ) );
+        this.setHostRoutes( loadHostRoutes( ) );
+    }
 
-        try
-        {
-            this.setConnectionTimeout( StringUtils.isNotEmpty( AppPropertiesService.getProperty( PROPERTY_CONNECTION_TIMEOUT ) )
-                    ? Integer.parseInt( AppPropertiesService.getProperty( PROPERTY_CONNECTION_TIMEOUT ) )
-                    : null );
+    /**
+     * {@inheritDoc }
+     * 
+     * The values of the properties that can't be parsed are reported as errors.
+     */
+    @Override
+    public List<String> validate( )
+    {
+        List<String> listErrors = new ArrayList<>( _listErrors );
+        listErrors.addAll( super.validate( ) );
 
-        }
-        catch( NumberFormatException e )
+        return listErrors;
+    }
+
+    /**
+     * Load the credentials of the hosts listed by the httpAccess.authentication.hosts property
+     * 
+     * @return the host credentials
+     */
+    private List<HostCredentials> loadHostCredentials( )
+    {
+        List<HostCredentials> listHostCredentials = new ArrayList<>( );
+
+        for ( String strName : StringUtils.split( getProperty( PROPERTY_AUTHENTICATION_HOSTS, StringUtils.EMPTY ), SEPARATOR ) )
         {
-            AppLogService.error( "Error during initialisation of connection timeout ", e );
+            String strPrefix = PREFIX_AUTHENTICATION + strName.trim( );
+            HostCredentials hostCredentials = new HostCredentials( );
+            hostCredentials.setUrl( getProperty( strPrefix + SUFFIX_URL ) );
+            hostCredentials.setUserName( getProperty( strPrefix + SUFFIX_USERNAME ) );
+            hostCredentials.setPassword( getProperty( strPrefix + SUFFIX_PASSWORD ) );
+            hostCredentials.setPreemptive( getPropertyBoolean( strPrefix + SUFFIX_PREEMPTIVE, false ) );
+
+            if ( StringUtils.isBlank( hostCredentials.getUrl( ) ) || StringUtils.isBlank( hostCredentials.getUserName( ) ) )
+            {
+                _listErrors.add( "missing url or user name for the authentication of " + strName );
+            }
+            else
+            {
+                listHostCredentials.add( hostCredentials );
+            }
         }
-        try
+
+        return listHostCredentials;
+    }
+
+    /**
+     * Load the protocols of the hosts listed by the httpAccess.routes property
+     * 
+     * @return the host protocols
+     */
+    private List<HostRoute> loadHostRoutes( )
+    {
+        List<HostRoute> listHostRoutes = new ArrayList<>( );
+
+        for ( String strName : StringUtils.split( getProperty( PROPERTY_ROUTES, StringUtils.EMPTY ), SEPARATOR ) )
         {
-            this.setConnectionPoolMaxTotalConnection(
-                    StringUtils.isNotEmpty( AppPropertiesService.getProperty( PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION ) )
-                            ? Integer.parseInt( AppPropertiesService.getProperty( PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION ) )
-                            : null );
+            String strPrefix = PREFIX_ROUTE + strName.trim( );
+            HostRoute hostRoute = new HostRoute( );
+            hostRoute.setUrl( getProperty( strPrefix + SUFFIX_URL ) );
+            hostRoute.setProtocol( getProperty( strPrefix + SUFFIX_PROTOCOL, HostRoute.HTTP_1_1 ).trim( ) );
+            hostRoute.setSocketOptions( loadSocketOptions( strPrefix + SUFFIX_SOCKET ) );
+            hostRoute.setMaxKeepAlive( getIntegerProperty( strPrefix + SUFFIX_MAX_KEEP_ALIVE ) );
+
+            if ( StringUtils.isBlank( hostRoute.getUrl( ) ) )
+            {
+                _listErrors.add( "missing url for the route " + strName );
+            }
+            else
+            {
+                listHostRoutes.add( hostRoute );
+            }
         }
-        catch( NumberFormatException e )
+
+        return listHostRoutes;
+    }
+
+    /**
+     * Load the socket options defined by the properties starting with a prefix
+     * 
+     * @param strPrefix
+     *            the prefix of the properties
+     * @return the socket options
+     */
+    private SocketOptions loadSocketOptions( String strPrefix )
+    {
+        SocketOptions socketOptions = new SocketOptions( );
+        String strTcpNoDelay = getProperty( strPrefix + SUFFIX_TCP_NO_DELAY );
+        String strSoKeepAlive = getProperty( strPrefix + SUFFIX_SO_KEEP_ALIVE );
+        socketOptions.setTcpNoDelay( StringUtils.isNotBlank( strTcpNoDelay ) ? Boolean.valueOf( strTcpNoDelay.trim( ) ) : null );
+        socketOptions.setSoKeepAlive( StringUtils.isNotBlank( strSoKeepAlive ) ? Boolean.valueOf( strSoKeepAlive.trim( ) ) : null );
+        socketOptions.setRcvBufSize( getIntegerProperty( strPrefix + SUFFIX_RCV_BUF_SIZE ) );
+        socketOptions.setSndBufSize( getIntegerProperty( strPrefix + SUFFIX_SND_BUF_SIZE ) );
+        socketOptions.setSoLinger( getIntegerProperty( strPrefix + SUFFIX_SO_LINGER ) );
+        socketOptions.setSoTimeout( getIntegerProperty( strPrefix + SUFFIX_SO_TIMEOUT ) );
+
+        return socketOptions;
+    }
+
+    /**
+     * Gets the value of a property, the property of the named service overriding the default one
+     * 
+     * @param strKey
+     *            the key of the default property
+     * @return the value, null if the property is not set
+     */
+    private String getProperty( String strKey )
+    {
+        if ( _strName != null )
         {
-            AppLogService.error( "Error during initialisation of Connection Pool Maxt Total Connection ", e );
+            String strValue = AppPropertiesService.getProperty( PREFIX_PROPERTIES + _strName + "." + strKey.substring( PREFIX_PROPERTIES.length( ) ) );
+            if ( strValue != null )
+            {
+                return strValue;
+            }
         }
+
+        return AppPropertiesService.getProperty( strKey );
+    }
+
+    /**
+     * Gets the value of a property, the property of the named service overriding the default one
+     * 
+     * @param strKey
+     *            the key of the default property
+     * @param strDefault
+     *            the value returned if the property is not set
+     * @return the value
+     */
+    private String getProperty( String strKey, String strDefault )
+    {
+        String strValue = getProperty( strKey );
+
+        return ( strValue != null ) ? strValue : strDefault;
+    }
+
+    /**
+     * Gets the value of a boolean property, the property of the named service overriding the default one
+     * 
+     * @param strKey
+     *            the key of the default property
+     * @param bDefault
+     *            the value returned if the property is not set
+     * @return the value
+     */
+    private boolean getPropertyBoolean( String strKey, boolean bDefault )
+    {
+        String strValue = getProperty( strKey );
+
+        return ( strValue != null ) ? Boolean.parseBoolean( strValue.trim( ) ) : bDefault;
+    }
+
+    /**
+     * Gets the value of an integer property
+     * 
+     * @param strKey
+     *            the key of the property
+     * @return the value, null if the property is not set or invalid
+     */
+    private Integer getIntegerProperty( String strKey )
+    {
+        String strValue = getProperty( strKey );
+
         try
         {
-            this.setConnectionPoolMaxConnectionPerHost(
-                    StringUtils.isNotEmpty( AppPropertiesService.getProperty( PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION_PER_HOST ) )
-                            ? Integer.parseInt( AppPropertiesService.getProperty( PROPERTY_CONNECTION_POOL_MAX_TOTAL_CONNECTION_PER_HOST ) )
-                            : null );
+            return StringUtils.isNotBlank( strValue ) ? Integer.valueOf( strValue.trim( ) ) : null;
         }
         catch( NumberFormatException e )
         {
-            AppLogService.error( "Error during initialisation of Connection Pool Maxt Total Connection Per Host ", e );
+            _listErrors.add( "invalid value " + strValue + " of the property " + strKey );
+
+            return null;
         }
     }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.net.ssl.SSLHandshakeException;
+
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.ClassicToAsyncAdaptor;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.H2ConnectionException;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Client sending the requests to the hosts configured for HTTP/2 through a multiplexing HTTP/2 client, and the other requests through the HTTP/1.1
+ * client. A host that fails to negotiate HTTP/2 is reached with HTTP/1.1 from then on. A negotiation failure is a failed TLS handshake (ALPN), or,
+ * from a host that never answered through HTTP/2, a failed protocol negotiation, a HTTP/2 connection error or a connection closed or reset, as
+ * done by a HTTP/1.1 server rejecting the HTTP/2 preface : the request was then not processed, and it is replayed with HTTP/1.1 if its method is
+ * idempotent. Any other failure is thrown, the server may have processed the request.
+ */
+class RoutingHttpClient extends CloseableHttpClient
+{
+    /** The HTTP/1.1 client. */
+    private final CloseableHttpClient _httpClient;
+
+    /** The HTTP/2 client. */
+    private final CloseableHttpAsyncClient _http2AsyncClient;
+
+    /** The blocking view of the HTTP/2 client. */
+    private final CloseableHttpClient _http2Client;
+
+    /** The keys of the hosts reached with HTTP/2. */
+    private final Set<String> _setHttp2Hosts;
+
+    /** The keys of the hosts that already answered through HTTP/2. */
+    private final Set<String> _setNegotiatedHosts = ConcurrentHashMap.newKeySet( );
+
+    /**
+     * Constructor
+     * 
+     * @param httpClient
+     *            the HTTP/1.1 client
+     * @param http2AsyncClient
+     *            the started HTTP/2 client
+     * @param setHttp2Hosts
+     *            the concurrent set of the keys of the hosts reached with HTTP/2
+     * @param operationTimeout
+     *            the maximum time to wait for the HTTP/2 client on each operation
+     */
+    RoutingHttpClient( CloseableHttpClient httpClient, CloseableHttpAsyncClient http2AsyncClient, Set<String> setHttp2Hosts, Timeout operationTimeout )
+    {
+        _httpClient = httpClient;
+        _http2AsyncClient = http2AsyncClient;
+        _http2Client = new ClassicToAsyncAdaptor( http2AsyncClient, operationTimeout );
+        _setHttp2Hosts = setHttp2Hosts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings( "deprecation" )
+    protected CloseableHttpResponse doExecute( HttpHost target, ClassicHttpRequest request, HttpContext context ) throws IOException
+    {
+        String strHostKey = ( target != null ) ? HttpAccessService.getHostKey( target.getSchemeName( ), target.getHostName( ), target.getPort( ) ) : null;
+
+        if ( strHostKey != null && _setHttp2Hosts.contains( strHostKey ) )
+        {
+            try
+            {
+                CloseableHttpResponse response = _http2Client.execute( target, request, context );
+                _setNegotiatedHosts.add( strHostKey );
+
+                return response;
+            }
+            catch( IOException e )
+            {
+                if ( !isNegotiationFailure( e ) || ( !( e instanceof SSLHandshakeException ) && _setNegotiatedHosts.contains( strHostKey ) ) )
+                {
+                    // another failure, or the host speaks HTTP/2 : the request may have been processed
+                    throw e;
+                }
+
+                // the host doesn't speak HTTP/2 : the request was not processed
+                _setHttp2Hosts.remove( strHostKey );
+                AppLogService.error( "HttpAccess - HTTP/2 negotiation failed with " + strHostKey + ", falling back to HTTP/1.1 : " + e.getMessage( ) );
+
+                if ( !isReplayable( request ) )
+                {
+                    throw e;
+                }
+            }
+        }
+
+        return _httpClient.execute( target, request, context );
+    }
+
+    /**
+     * Tells if a failure of a HTTP/2 request may come from a host that doesn't speak HTTP/2
+     * 
+     * @param e
+     *            the failure
+     * @return true if the failure is a failed TLS or protocol negotiation, a HTTP/2 connection error or a connection closed or reset
+     */
+    private static boolean isNegotiationFailure( IOException e )
+    {
+        return e instanceof SSLHandshakeException || e instanceof ProtocolNegotiationException || e instanceof H2ConnectionException
+                || e instanceof ConnectionClosedException || e instanceof SocketException;
+    }
+
+    /**
+     * Tells if a request can be sent again : its method is idempotent and its body, if any, can be read again
+     * 
+     * @param request
+     *            the request
+     * @return true if the request can be sent again
+     */
+    private static boolean isReplayable( ClassicHttpRequest request )
+    {
+        return Method.isIdempotent( request.getMethod( ) ) && ( request.getEntity( ) == null || request.getEntity( ).isRepeatable( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close( ) throws IOException
+    {
+        close( CloseMode.GRACEFUL );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close( CloseMode closeMode )
+    {
+        _httpClient.close( closeMode );
+        _http2AsyncClient.close( closeMode );
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+
+/**
+ * Cache of the security informations computed by the request authenticators, by authenticator and list of signed elements. An entry is reused during
+ * the validity window, which must be shorter than the tolerance of the server for signatures including a timestamp.
+ */
+class SecurityInformationsCache
+{
+    /** The Constant MAX_ENTRIES. */
+    private static final int MAX_ENTRIES = 1000;
+
+    private final long _lValidity;
+    private final Clock _clock;
+    private final Map<Key, Entry> _mapEntries = new ConcurrentHashMap<>( );
+
+    /**
+     * Constructor
+     * 
+     * @param lValidity
+     *            the validity of an entry in milliseconds
+     */
+    SecurityInformationsCache( long lValidity )
+    {
+        this( lValidity, Clock.systemUTC( ) );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param lValidity
+     *            the validity of an entry in milliseconds
+     * @param clock
+     *            the clock giving the expiration of the entries
+     */
+    SecurityInformationsCache( long lValidity, Clock clock )
+    {
+        _lValidity = lValidity;
+        _clock = clock;
+    }
+
+    /**
+     * Gets the security informations of a list of elements, computing them if no valid entry is cached
+     * 
+     * @param authenticator
+     *            the authenticator
+     * @param listElements
+     *            the elements to sign, may be null
+     * @return the security informations
+     */
+    AuthenticateRequestInformations getSecurityInformations( RequestAuthenticator authenticator, List<String> listElements )
+    {
+        long lNow = _clock.millis( );
+        Key key = new Key( authenticator, listElements );
+        Entry entry = _mapEntries.get( key );
+
+        if ( entry == null || entry._lExpiration <= lNow )
+        {
+            if ( _mapEntries.size( ) >= MAX_ENTRIES )
+            {
+                _mapEntries.values( ).removeIf( e -> e._lExpiration <= lNow );
+                if ( _mapEntries.size( ) >= MAX_ENTRIES )
+                {
+                    _mapEntries.clear( );
+                }
+            }
+            entry = new Entry( authenticator.getSecurityInformations( listElements ), lNow + _lValidity );
+            _mapEntries.put( key, entry );
+        }
+
+        return entry._securityInformations;
+    }
+
+    /**
+     * Cache key : the authenticator instance and a copy of the elements
+     */
+    private static final class Key
+    {
+        private final RequestAuthenticator _authenticator;
+        private final List<String> _listElements;
+
+        private Key( RequestAuthenticator authenticator, List<String> listElements )
+        {
+            _authenticator = authenticator;
+            _listElements = ( listElements != null ) ? new ArrayList<>( listElements ) : Collections.emptyList( );
+        }
+
+        @Override
+        public boolean equals( Object object )
+        {
+            if ( !( object instanceof Key ) )
+            {
+                return false;
+            }
+            Key other = (Key) object;
+
+            return _authenticator == other._authenticator && _listElements.equals( other._listElements );
+        }
+
+        @Override
+        public int hashCode( )
+        {
+            return 31 * System.identityHashCode( _authenticator ) + _listElements.hashCode( );
+        }
+    }
+
+    /**
+     * Cached security informations
+     */
+    private static final class Entry
+    {
+        private final AuthenticateRequestInformations _securityInformations;
+        private final long _lExpiration;
+
+        private Entry( AuthenticateRequestInformations securityInformations, long lExpiration )
+        {
+            _securityInformations = securityInformations;
+            _lExpiration = lExpiration;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+/**
+ * ServerSentEvent : an event received from a <code>text/event-stream</code> response
+ */
+public class ServerSentEvent
+{
+    /** The default event type. */
+    public static final String DEFAULT_EVENT_TYPE = "message";
+
+    private final String _strId;
+    private final String _strEventType;
+    private final String _strData;
+
+    /**
+     * Constructor
+     * 
+     * @param strId
+     *            the last event id, may be null
+     * @param strEventType
+     *            the event type
+     * @param strData
+     *            the data
+     */
+    public ServerSentEvent( String strId, String strEventType, String strData )
+    {
+        _strId = strId;
+        _strEventType = strEventType;
+        _strData = strData;
+    }
+
+    /**
+     * Gets the last event id
+     * 
+     * @return the last event id, may be null
+     */
+    public String getId( )
+    {
+        return _strId;
+    }
+
+    /**
+     * Gets the event type
+     * 
+     * @return the event type
+     */
+    public String getEventType( )
+    {
+        return _strEventType;
+    }
+
+    /**
+     * Gets the data. Multi-lines data are joined with '\n'.
+     * 
+     * @return the data
+     */
+    public String getData( )
+    {
+        return _strData;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String toString( )
+    {
+        return "ServerSentEvent [id=" + _strId + ", event=" + _strEventType + ", data=" + _strData + "]";
+    }
+}
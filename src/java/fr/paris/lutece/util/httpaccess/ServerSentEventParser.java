@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Incremental parser of a <code>text/event-stream</code> content. Bytes are fed as they arrive and events are emitted as soon as they are complete.
+ * The size of a line and the size of the data of an event are bounded, a stream exceeding them being failed.
+ */
+class ServerSentEventParser
+{
+    private static final String FIELD_EVENT = "event";
+    private static final String FIELD_DATA = "data";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_RETRY = "retry";
+
+    /** The Constant DEFAULT_MAX_LINE_SIZE. */
+    static final int DEFAULT_MAX_LINE_SIZE = 64 * 1024;
+
+    /** The Constant DEFAULT_MAX_EVENT_SIZE. */
+    static final int DEFAULT_MAX_EVENT_SIZE = 1024 * 1024;
+
+    private final Consumer<ServerSentEvent> _consumer;
+    private final ByteArrayOutputStream _line = new ByteArrayOutputStream( );
+    private final StringBuilder _sbData = new StringBuilder( );
+    private final int _nMaxLineSize;
+    private final int _nMaxEventSize;
+    private boolean _bLastCR;
+    private boolean _bFirstLine = true;
+    private String _strEventType;
+    private volatile String _strLastEventId;
+    private volatile Long _lRetry;
+
+    /**
+     * Constructor
+     * 
+     * @param strLastEventId
+     *            the last event id known before this stream, may be null
+     * @param consumer
+     *            the consumer of the parsed events
+     */
+    ServerSentEventParser( String strLastEventId, Consumer<ServerSentEvent> consumer )
+    {
+        this( strLastEventId, consumer, DEFAULT_MAX_LINE_SIZE, DEFAULT_MAX_EVENT_SIZE );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param strLastEventId
+     *            the last event id known before this stream, may be null
+     * @param consumer
+     *            the consumer of the parsed events
+     * @param nMaxLineSize
+     *            the maximum size of a line in bytes
+     * @param nMaxEventSize
+     *            the maximum size of the data of an event in characters
+     */
+    ServerSentEventParser( String strLastEventId, Consumer<ServerSentEvent> consumer, int nMaxLineSize, int nMaxEventSize )
+    {
+        _strLastEventId = strLastEventId;
+        _consumer = consumer;
+        _nMaxLineSize = nMaxLineSize;
+        _nMaxEventSize = nMaxEventSize;
+    }
+
+    /**
+     * Parse a chunk of the stream
+     * 
+     * @param src
+     *            the bytes received
+     * @throws EventTooLargeException
+     *             if a line or an event exceeds its maximum size, the rest of the stream being then not parsed
+     */
+    void parse( ByteBuffer src ) throws EventTooLargeException
+    {
+        while ( src.hasRemaining( ) )
+        {
+            byte b = src.get( );
+
+            if ( b == '\n' )
+            {
+                if ( !_bLastCR )
+                {
+                    processLine( );
+                }
+                _bLastCR = false;
+            }
+            else
+                if ( b == '\r' )
+                {
+                    processLine( );
+                    _bLastCR = true;
+                }
+                else
+                {
+                    if ( _line.size( ) >= _nMaxLineSize )
+                    {
+                        fail( "HttpAccess - Event stream line larger than " + _nMaxLineSize + " bytes" );
+                    }
+                    _line.write( b );
+                    _bLastCR = false;
+                }
+        }
+    }
+
+    /**
+     * Gets the id of the last event received
+     * 
+     * @return the last event id, may be null
+     */
+    String getLastEventId( )
+    {
+        return _strLastEventId;
+    }
+
+    /**
+     * Gets the reconnection time sent by the server
+     * 
+     * @return the reconnection time in milliseconds, or null if not sent
+     */
+    Long getRetry( )
+    {
+        return _lRetry;
+    }
+
+    /**
+     * Discard the event being built and fail the stream
+     * 
+     * @param strMessage
+     *            the message
+     * @throws EventTooLargeException
+     *             always
+     */
+    private void fail( String strMessage ) throws EventTooLargeException
+    {
+        _line.reset( );
+        _sbData.setLength( 0 );
+        throw new EventTooLargeException( strMessage );
+    }
+
+    /**
+     * Process a complete line
+     * 
+     * @throws EventTooLargeException
+     *             if the data of the event exceeds its maximum size
+     */
+    private void processLine( ) throws EventTooLargeException
+    {
+        String strLine = new String( _line.toByteArray( ), StandardCharsets.UTF_8 );
+        _line.reset( );
+
+        if ( _bFirstLine )
+        {
+            _bFirstLine = false;
+            if ( strLine.startsWith( "\uFEFF" ) )
+            {
+                strLine = strLine.substring( 1 );
+            }
+        }
+
+        if ( strLine.isEmpty( ) )
+        {
+            dispatchEvent( );
+            return;
+        }
+
+        if ( strLine.charAt( 0 ) == ':' )
+        {
+            // comment
+            return;
+        }
+
+        String strField = strLine;
+        String strValue = "";
+        int nIndex = strLine.indexOf( ':' );
+
+        if ( nIndex > 0 )
+        {
+            strField = strLine.substring( 0, nIndex );
+            strValue = strLine.substring( nIndex + 1 );
+            if ( strValue.startsWith( " " ) )
+            {
+                strValue = strValue.substring( 1 );
+            }
+        }
+
+        switch( strField )
+        {
+            case FIELD_EVENT:
+                _strEventType = strValue;
+                break;
+            case FIELD_DATA:
+                if ( _sbData.length( ) + strValue.length( ) > _nMaxEventSize )
+                {
+                    fail( "HttpAccess - Event stream event larger than " + _nMaxEventSize + " characters" );
+                }
+                _sbData.append( strValue ).append( '\n' );
+                break;
+            case FIELD_ID:
+                if ( strValue.indexOf( '\0' ) < 0 )
+                {
+                    _strLastEventId = strValue;
+                }
+                break;
+            case FIELD_RETRY:
+                if ( !strValue.isEmpty( ) && strValue.chars( ).allMatch( Character::isDigit ) )
+                {
+                    try
+                    {
+                        _lRetry = Long.valueOf( strValue );
+                    }
+                    catch( NumberFormatException e )
+                    {
+                        // ignored as required by the specification
+                    }
+                }
+                break;
+            default:
+                // unknown fields are ignored
+                break;
+        }
+    }
+
+    /**
+     * Emit the event being built, if it has data
+     */
+    private void dispatchEvent( )
+    {
+        if ( _sbData.length( ) > 0 )
+        {
+            _sbData.setLength( _sbData.length( ) - 1 );
+            String strEventType = ( _strEventType == null || _strEventType.isEmpty( ) ) ? ServerSentEvent.DEFAULT_EVENT_TYPE : _strEventType;
+            _consumer.accept( new ServerSentEvent( _strLastEventId, strEventType, _sbData.toString( ) ) );
+        }
+        _sbData.setLength( 0 );
+        _strEventType = null;
+    }
+
+    /**
+     * Line or event exceeding its maximum size, failing the stream
+     */
+    static final class EventTooLargeException extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor
+         * 
+         * @param strMessage
+         *            the message
+         */
+        EventTooLargeException( String strMessage )
+        {
+            super( strMessage );
+        }
+    }
+}
@@ -0,0 +1,585 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.util.signrequest.AuthenticateRequestInformations;
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+
+/**
+ * Server-Sent Events client. Streams are read by a non blocking I/O reactor, so many subscriptions share a few threads. Events are dispatched to the
+ * listeners by a bounded pool of threads, and streams are reopened with the Last-Event-ID header and the reconnection time sent by the server. Each
+ * subscription buffers a bounded number of events : when its listener does not keep up, the new events are dropped and logged rather than blocking
+ * the reactor. A response with an unexpected status or content type fails the subscription for good, as required by the specification, and so does
+ * a line or an event exceeding its maximum size, which the server would send again on reconnection.
+ */
+public class ServerSentEventsClient implements Closeable
+{
+    /** The Constant DEFAULT_RETRY. */
+    private static final long DEFAULT_RETRY = 3000L;
+
+    /** The Constant DEFAULT_DISPATCHER_THREADS. */
+    private static final int DEFAULT_DISPATCHER_THREADS = 2;
+
+    /** The Constant DEFAULT_IO_THREADS. */
+    private static final int DEFAULT_IO_THREADS = 2;
+
+    /** The Constant DEFAULT_MAX_STREAMS. */
+    private static final int DEFAULT_MAX_STREAMS = 200;
+
+    /** The Constant DEFAULT_MAX_PENDING_EVENTS. */
+    private static final int DEFAULT_MAX_PENDING_EVENTS = 1000;
+
+    /** The Constant HEADER_ACCEPT. */
+    private static final String HEADER_ACCEPT = "Accept";
+
+    /** The Constant HEADER_CACHE_CONTROL. */
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+
+    /** The Constant HEADER_LAST_EVENT_ID. */
+    private static final String HEADER_LAST_EVENT_ID = "Last-Event-ID";
+
+    /** The Constant MIME_TYPE_EVENT_STREAM. */
+    private static final String MIME_TYPE_EVENT_STREAM = "text/event-stream";
+
+    private final CloseableHttpAsyncClient _httpAsyncClient;
+    private final ExecutorService _dispatcher;
+    private final ScheduledExecutorService _reconnectScheduler;
+    private final int _nMaxPendingEvents;
+    private final int _nMaxLineSize;
+    private final int _nMaxEventSize;
+
+    /**
+     * Creates a client using the configuration of an {@link HttpAccessService}
+     * 
+     * @param accessService
+     *            the access service
+     */
+    public ServerSentEventsClient( HttpAccessService accessService )
+    {
+        this( accessService, DEFAULT_DISPATCHER_THREADS, DEFAULT_MAX_STREAMS );
+    }
+
+    /**
+     * Creates a client using the configuration of an {@link HttpAccessService}
+     * 
+     * @param accessService
+     *            the access service
+     * @param nDispatcherThreads
+     *            the number of threads notifying the listeners
+     * @param nMaxStreams
+     *            the maximum number of streams opened at the same time
+     */
+    public ServerSentEventsClient( HttpAccessService accessService, int nDispatcherThreads, int nMaxStreams )
+    {
+        this( accessService, nDispatcherThreads, nMaxStreams, DEFAULT_MAX_PENDING_EVENTS );
+    }
+
+    /**
+     * Creates a client using the configuration of an {@link HttpAccessService}
+     * 
+     * @param accessService
+     *            the access service
+     * @param nDispatcherThreads
+     *            the number of threads notifying the listeners
+     * @param nMaxStreams
+     *            the maximum number of streams opened at the same time
+     * @param nMaxPendingEvents
+     *            the maximum number of events of a subscription waiting for its listener, the next ones being dropped
+     */
+    public ServerSentEventsClient( HttpAccessService accessService, int nDispatcherThreads, int nMaxStreams, int nMaxPendingEvents )
+    {
+        this( accessService, nDispatcherThreads, nMaxStreams, nMaxPendingEvents, ServerSentEventParser.DEFAULT_MAX_LINE_SIZE,
+                ServerSentEventParser.DEFAULT_MAX_EVENT_SIZE );
+    }
+
+    /**
+     * Creates a client using the configuration of an {@link HttpAccessService}
+     * 
+     * @param accessService
+     *            the access service
+     * @param nDispatcherThreads
+     *            the number of threads notifying the listeners
+     * @param nMaxStreams
+     *            the maximum number of streams opened at the same time
+     * @param nMaxPendingEvents
+     *            the maximum number of events of a subscription waiting for its listener, the next ones being dropped
+     * @param nMaxLineSize
+     *            the maximum size of a line of a stream in bytes, a larger line failing the subscription
+     * @param nMaxEventSize
+     *            the maximum size of the data of an event in characters, a larger event failing the subscription
+     */
+    public ServerSentEventsClient( HttpAccessService accessService, int nDispatcherThreads, int nMaxStreams, int nMaxPendingEvents, int nMaxLineSize,
+            int nMaxEventSize )
+    {
+        _nMaxPendingEvents = nMaxPendingEvents;
+        _nMaxLineSize = nMaxLineSize;
+        _nMaxEventSize = nMaxEventSize;
+        HttpClientConfiguration configuration = accessService.getHttpClientConfiguration( );
+
+        PoolingAsyncClientConnectionManagerBuilder connectionManagerBuilder = PoolingAsyncClientConnectionManagerBuilder.create( )
+                .setMaxConnTotal( nMaxStreams ).setMaxConnPerRoute( nMaxStreams ).setTlsStrategy( accessService.getTlsStrategy( ) )
+                .setDnsResolver( accessService.getDnsResolver( ) );
+        if ( configuration.getConnectionTimeout( ) != null )
+        {
+            // no response timeout : streams may stay idle between events
+            connectionManagerBuilder
+                    .setDefaultConnectionConfig( ConnectionConfig.custom( ).setConnectTimeout( Timeout.ofMilliseconds( configuration.getConnectionTimeout( ) ) ).build( ) );
+        }
+
+        HttpAsyncClientBuilder clientBuilder = HttpAsyncClients.custom( ).setConnectionManager( connectionManagerBuilder.build( ) )
+                .setIOReactorConfig( IOReactorConfig.custom( ).setIoThreadCount( DEFAULT_IO_THREADS ).build( ) )
+                .setThreadFactory( new DaemonThreadFactory( "httpaccess-sse-io" ) );
+
+        if ( StringUtils.isNotBlank( configuration.getProxyHost( ) ) )
+        {
+            clientBuilder.setRoutePlanner(
+                    new ProxyRoutePlanner( configuration.getProxyHost( ), Integer.parseInt( configuration.getProxyPort( ) ), configuration.getNoProxyFor( ) ) );
+        }
+
+        _httpAsyncClient = clientBuilder.build( );
+        _httpAsyncClient.start( );
+
+        // at most one pending task per subscription, so the queue is bounded by the number of subscriptions. Tasks are only rejected once the client
+        // is closed : the listeners never run on the I/O reactor threads
+        _dispatcher = new ThreadPoolExecutor( nDispatcherThreads, nDispatcherThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>( ),
+                new DaemonThreadFactory( "httpaccess-sse-dispatcher" ), new ThreadPoolExecutor.AbortPolicy( ) );
+        _reconnectScheduler = Executors.newSingleThreadScheduledExecutor( new DaemonThreadFactory( "httpaccess-sse-reconnect" ) );
+        try
+        {
+            HttpAccessService.registerComponent( this );
+        }
+        catch( IllegalStateException e )
+        {
+            close( );
+            throw e;
+        }
+    }
+
+    /**
+     * Subscribe to an event stream
+     * 
+     * @param strUrl
+     *            the url of the stream
+     * @param listener
+     *            the listener
+     * @return the subscription, to close when the events are no longer needed
+     */
+    public ServerSentEventsSubscription subscribe( String strUrl, ServerSentEventListener listener )
+    {
+        return subscribe( strUrl, null, null, null, listener );
+    }
+
+    /**
+     * Subscribe to an event stream
+     * 
+     * @param strUrl
+     *            the url of the stream
+     * @param authenticator
+     *            The {@link RequestAuthenticator}, applied on each connection
+     * @param listElements
+     *            to include in the signature
+     * @param headersRequest
+     *            Map of headers request parameters
+     * @param listener
+     *            the listener
+     * @return the subscription, to close when the events are no longer needed
+     */
+    public ServerSentEventsSubscription subscribe( String strUrl, RequestAuthenticator authenticator, List<String> listElements,
+            Map<String, String> headersRequest, ServerSentEventListener listener )
+    {
+        ServerSentEventsSubscription subscription = new ServerSentEventsSubscription( strUrl, authenticator, listElements, headersRequest, listener,
+                DEFAULT_RETRY, _nMaxPendingEvents );
+        connect( subscription );
+
+        return subscription;
+    }
+
+    /**
+     * Close the client and all its streams, called as well when the services are shut down
+     */
+    @Override
+    public void close( )
+    {
+        HttpAccessService.unregisterComponent( this );
+        _reconnectScheduler.shutdownNow( );
+        _httpAsyncClient.close( CloseMode.GRACEFUL );
+        _dispatcher.shutdown( );
+    }
+
+    /**
+     * Open the stream of a subscription
+     * 
+     * @param subscription
+     *            the subscription
+     */
+    private void connect( ServerSentEventsSubscription subscription )
+    {
+        if ( subscription.isClosed( ) )
+        {
+            return;
+        }
+
+        SimpleHttpRequest request;
+        try
+        {
+            request = buildRequest( subscription );
+        }
+        catch( URISyntaxException e )
+        {
+            AppLogService.error( "HttpAccess - Invalid event stream URL : " + subscription.getUrl( ), e );
+            notifyError( subscription, e );
+            return;
+        }
+
+        EventStreamConsumer consumer = new EventStreamConsumer( subscription );
+        subscription.setCurrentStream( _httpAsyncClient.execute( SimpleRequestProducer.create( request ), consumer, new FutureCallback<Void>( )
+        {
+            @Override
+            public void completed( Void result )
+            {
+                scheduleReconnect( subscription );
+            }
+
+            @Override
+            public void failed( Exception exception )
+            {
+                if ( subscription.isClosed( ) )
+                {
+                    return;
+                }
+                if ( exception instanceof InvalidEventStreamException || exception instanceof ServerSentEventParser.EventTooLargeException )
+                {
+                    // not an event stream, or an event the server would send again : no reconnection
+                    AppLogService.error( "HttpAccess - Event stream rejected : " + subscription.getUrl( ) + " : " + exception.getMessage( ) );
+                    subscription.close( );
+                    notifyError( subscription, exception );
+                    return;
+                }
+                AppLogService.debug( "HttpAccess - Event stream failed : " + subscription.getUrl( ) + " : " + exception.getMessage( ) );
+                notifyError( subscription, exception );
+                scheduleReconnect( subscription );
+            }
+
+            @Override
+            public void cancelled( )
+            {
+                // subscription closed
+            }
+        } ) );
+    }
+
+    /**
+     * Build the request opening the stream of a subscription
+     * 
+     * @param subscription
+     *            the subscription
+     * @return the request
+     * @throws URISyntaxException
+     *             if the URL is not valid
+     */
+    private SimpleHttpRequest buildRequest( ServerSentEventsSubscription subscription ) throws URISyntaxException
+    {
+        URI uri = new URI( subscription.getUrl( ) );
+        AuthenticateRequestInformations securityInformations = null;
+
+        if ( subscription.getAuthenticator( ) != null )
+        {
+            securityInformations = subscription.getAuthenticator( ).getSecurityInformations( subscription.getListElements( ) );
+            if ( !securityInformations.getSecurityParameteres( ).isEmpty( ) )
+            {
+                URIBuilder uriBuilder = new URIBuilder( uri );
+                securityInformations.getSecurityParameteres( ).forEach( uriBuilder::addParameter );
+                uri = uriBuilder.build( );
+            }
+        }
+
+        SimpleRequestBuilder requestBuilder = SimpleRequestBuilder.get( uri ).addHeader( HEADER_ACCEPT, MIME_TYPE_EVENT_STREAM )
+                .addHeader( HEADER_CACHE_CONTROL, "no-cache" );
+
+        if ( subscription.getHeadersRequest( ) != null )
+        {
+            subscription.getHeadersRequest( ).forEach( requestBuilder::addHeader );
+        }
+        if ( securityInformations != null )
+        {
+            securityInformations.getSecurityHeaders( ).forEach( requestBuilder::addHeader );
+        }
+        if ( subscription.getLastEventId( ) != null )
+        {
+            requestBuilder.addHeader( HEADER_LAST_EVENT_ID, subscription.getLastEventId( ) );
+        }
+
+        return requestBuilder.build( );
+    }
+
+    /**
+     * Reopen the stream of a subscription after the reconnection time
+     * 
+     * @param subscription
+     *            the subscription
+     */
+    private void scheduleReconnect( ServerSentEventsSubscription subscription )
+    {
+        if ( subscription.isClosed( ) )
+        {
+            return;
+        }
+
+        try
+        {
+            _reconnectScheduler.schedule( ( ) -> connect( subscription ), subscription.getRetry( ), TimeUnit.MILLISECONDS );
+        }
+        catch( RejectedExecutionException e )
+        {
+            // client closed
+        }
+    }
+
+    /**
+     * Notify an event to the listener of a subscription
+     * 
+     * @param subscription
+     *            the subscription
+     * @param event
+     *            the event
+     */
+    private void notifyEvent( ServerSentEventsSubscription subscription, ServerSentEvent event )
+    {
+        dispatch( subscription, ( ) -> subscription.getListener( ).onEvent( event ) );
+    }
+
+    /**
+     * Notify an error to the listener of a subscription
+     * 
+     * @param subscription
+     *            the subscription
+     * @param exception
+     *            the error
+     */
+    private void notifyError( ServerSentEventsSubscription subscription, Exception exception )
+    {
+        dispatch( subscription, ( ) -> subscription.getListener( ).onError( exception ) );
+    }
+
+    /**
+     * Queue a notification of a subscription, and make sure a dispatcher thread drains the queue. Notifications of a subscription are run one at a time,
+     * in order.
+     * 
+     * @param subscription
+     *            the subscription
+     * @param notification
+     *            the notification
+     */
+    private void dispatch( ServerSentEventsSubscription subscription, Runnable notification )
+    {
+        if ( !subscription.getPendingNotifications( ).offer( notification ) )
+        {
+            // never block the I/O reactor on a slow listener
+            long lDropped = subscription.incrementDroppedEvents( );
+            AppLogService.error( "HttpAccess - Event stream listener too slow, notification dropped : " + subscription.getUrl( ) + " (" + lDropped
+                    + " dropped)" );
+        }
+
+        if ( subscription.getDispatching( ).compareAndSet( false, true ) )
+        {
+            try
+            {
+                _dispatcher.execute( ( ) -> drain( subscription ) );
+            }
+            catch( RejectedExecutionException e )
+            {
+                subscription.getDispatching( ).set( false );
+            }
+        }
+    }
+
+    /**
+     * Run the pending notifications of a subscription
+     * 
+     * @param subscription
+     *            the subscription
+     */
+    private void drain( ServerSentEventsSubscription subscription )
+    {
+        do
+        {
+            Runnable notification;
+            while ( ( notification = subscription.getPendingNotifications( ).poll( ) ) != null )
+            {
+                try
+                {
+                    notification.run( );
+                }
+                catch( RuntimeException e )
+                {
+                    AppLogService.error( "HttpAccess - Error in event stream listener : " + e.getMessage( ), e );
+                }
+            }
+            subscription.getDispatching( ).set( false );
+        }
+        while ( !subscription.getPendingNotifications( ).isEmpty( ) && subscription.getDispatching( ).compareAndSet( false, true ) );
+    }
+
+    /**
+     * Consumer of a <code>text/event-stream</code> response, parsing the content as it is received
+     */
+    private final class EventStreamConsumer extends AbstractBinResponseConsumer<Void>
+    {
+        private final ServerSentEventsSubscription _subscription;
+        private final ServerSentEventParser _parser;
+
+        /**
+         * Constructor
+         * 
+         * @param subscription
+         *            the subscription
+         */
+        EventStreamConsumer( ServerSentEventsSubscription subscription )
+        {
+            _subscription = subscription;
+            _parser = new ServerSentEventParser( subscription.getLastEventId( ), event -> {
+                subscription.setLastEventId( event.getId( ) );
+                notifyEvent( subscription, event );
+            }, _nMaxLineSize, _nMaxEventSize );
+        }
+
+        @Override
+        protected void start( HttpResponse response, ContentType contentType ) throws HttpException, IOException
+        {
+            if ( response.getCode( ) == HttpStatus.SC_NO_CONTENT )
+            {
+                // the server asks the client to stop reconnecting
+                _subscription.close( );
+                return;
+            }
+            if ( response.getCode( ) != HttpStatus.SC_OK )
+            {
+                throw new InvalidEventStreamException( "Invalid event stream response status : " + response.getCode( ) );
+            }
+            if ( contentType == null || !MIME_TYPE_EVENT_STREAM.equalsIgnoreCase( contentType.getMimeType( ) ) )
+            {
+                throw new InvalidEventStreamException( "Invalid event stream content type : " + contentType );
+            }
+        }
+
+        @Override
+        protected int capacityIncrement( )
+        {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        protected void data( ByteBuffer src, boolean bEndOfStream ) throws IOException
+        {
+            _parser.parse( src );
+            if ( _parser.getRetry( ) != null )
+            {
+                _subscription.setRetry( _parser.getRetry( ) );
+            }
+        }
+
+        @Override
+        protected Void buildResult( )
+        {
+            return null;
+        }
+
+        @Override
+        public void failed( Exception cause )
+        {
+            // notified through the callback
+        }
+
+        @Override
+        public void releaseResources( )
+        {
+            // nothing to release
+        }
+    }
+
+    /**
+     * Response which is not an event stream, failing the subscription without reconnection
+     */
+    private static final class InvalidEventStreamException extends HttpException
+    {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor
+         * 
+         * @param strMessage
+         *            the message
+         */
+        InvalidEventStreamException( String strMessage )
+        {
+            super( strMessage );
+        }
+    }
+}
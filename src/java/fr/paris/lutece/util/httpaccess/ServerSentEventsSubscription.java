@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+
+/**
+ * ServerSentEventsSubscription : a subscription to an event stream, kept open by the {@link ServerSentEventsClient} until it is closed.
+ */
+public class ServerSentEventsSubscription implements Closeable
+{
+    private final String _strUrl;
+    private final RequestAuthenticator _authenticator;
+    private final List<String> _listElements;
+    private final Map<String, String> _headersRequest;
+    private final ServerSentEventListener _listener;
+    private final BlockingQueue<Runnable> _pendingNotifications;
+    private final AtomicBoolean _bDispatching = new AtomicBoolean( );
+    private final AtomicLong _lDroppedEvents = new AtomicLong( );
+    private volatile String _strLastEventId;
+    private volatile long _lRetry;
+    private volatile Future<?> _currentStream;
+    private volatile boolean _bClosed;
+
+    /**
+     * Constructor
+     * 
+     * @param strUrl
+     *            the url of the stream
+     * @param authenticator
+     *            the authenticator, may be null
+     * @param listElements
+     *            the elements to include in the signature
+     * @param headersRequest
+     *            the headers of the request, may be null
+     * @param listener
+     *            the listener
+     * @param lRetry
+     *            the initial reconnection time in milliseconds
+     * @param nMaxPendingEvents
+     *            the maximum number of notifications waiting for the listener
+     */
+    ServerSentEventsSubscription( String strUrl, RequestAuthenticator authenticator, List<String> listElements, Map<String, String> headersRequest,
+            ServerSentEventListener listener, long lRetry, int nMaxPendingEvents )
+    {
+        _strUrl = strUrl;
+        _authenticator = authenticator;
+        _listElements = listElements;
+        _headersRequest = headersRequest;
+        _listener = listener;
+        _lRetry = lRetry;
+        _pendingNotifications = new ArrayBlockingQueue<>( nMaxPendingEvents );
+    }
+
+    /**
+     * Gets the url of the stream
+     * 
+     * @return the url
+     */
+    public String getUrl( )
+    {
+        return _strUrl;
+    }
+
+    /**
+     * Gets the id of the last event received, sent as Last-Event-ID on reconnection
+     * 
+     * @return the last event id, may be null
+     */
+    public String getLastEventId( )
+    {
+        return _strLastEventId;
+    }
+
+    /**
+     * Gets the number of notifications dropped because the listener did not keep up with the stream
+     * 
+     * @return the number of dropped notifications
+     */
+    public long getDroppedEvents( )
+    {
+        return _lDroppedEvents.get( );
+    }
+
+    /**
+     * Tells if the subscription is closed
+     * 
+     * @return true if closed
+     */
+    public boolean isClosed( )
+    {
+        return _bClosed;
+    }
+
+    /**
+     * Close the subscription and its stream
+     */
+    @Override
+    public void close( )
+    {
+        _bClosed = true;
+        Future<?> stream = _currentStream;
+        if ( stream != null )
+        {
+            stream.cancel( true );
+        }
+    }
+
+    RequestAuthenticator getAuthenticator( )
+    {
+        return _authenticator;
+    }
+
+    List<String> getListElements( )
+    {
+        return _listElements;
+    }
+
+    Map<String, String> getHeadersRequest( )
+    {
+        return _headersRequest;
+    }
+
+    ServerSentEventListener getListener( )
+    {
+        return _listener;
+    }
+
+    void setLastEventId( String strLastEventId )
+    {
+        _strLastEventId = strLastEventId;
+    }
+
+    long getRetry( )
+    {
+        return _lRetry;
+    }
+
+    void setRetry( long lRetry )
+    {
+        _lRetry = lRetry;
+    }
+
+    void setCurrentStream( Future<?> currentStream )
+    {
+        _currentStream = currentStream;
+        if ( _bClosed )
+        {
+            currentStream.cancel( true );
+        }
+    }
+
+    BlockingQueue<Runnable> getPendingNotifications( )
+    {
+        return _pendingNotifications;
+    }
+
+    long incrementDroppedEvents( )
+    {
+        return _lDroppedEvents.incrementAndGet( );
+    }
+
+    AtomicBoolean getDispatching( )
+    {
+        return _bDispatching;
+    }
+}
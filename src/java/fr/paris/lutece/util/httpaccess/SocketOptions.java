@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+/**
+ * SocketOptions : the options of the sockets of the connections. The options left null keep the default value of the client.
+ */
+public class SocketOptions
+{
+
+    /** The _b tcp no delay. */
+    private Boolean _bTcpNoDelay;
+
+    /** The _b so keep alive. */
+    private Boolean _bSoKeepAlive;
+
+    /** The _n rcv buf size. */
+    private Integer _nRcvBufSize;
+
+    /** The _n snd buf size. */
+    private Integer _nSndBufSize;
+
+    /** The _n so linger. */
+    private Integer _nSoLinger;
+
+    /** The _n so timeout. */
+    private Integer _nSoTimeout;
+
+    /**
+     * Checks if Nagle's algorithm is disabled (TCP_NODELAY).
+     *
+     * @return true to send the small packets without delay, null for the default
+     */
+    public Boolean getTcpNoDelay( )
+    {
+        return _bTcpNoDelay;
+    }
+
+    /**
+     * Sets if Nagle's algorithm is disabled (TCP_NODELAY).
+     *
+     * @param bTcpNoDelay
+     *            true to send the small packets without delay, null for the default
+     */
+    public void setTcpNoDelay( Boolean bTcpNoDelay )
+    {
+        this._bTcpNoDelay = bTcpNoDelay;
+    }
+
+    /**
+     * Checks if the TCP keep-alive probes are enabled (SO_KEEPALIVE).
+     *
+     * @return true to enable the keep-alive probes, null for the default
+     */
+    public Boolean getSoKeepAlive( )
+    {
+        return _bSoKeepAlive;
+    }
+
+    /**
+     * Sets if the TCP keep-alive probes are enabled (SO_KEEPALIVE).
+     *
+     * @param bSoKeepAlive
+     *            true to enable the keep-alive probes, null for the default
+     */
+    public void setSoKeepAlive( Boolean bSoKeepAlive )
+    {
+        this._bSoKeepAlive = bSoKeepAlive;
+    }
+
+    /**
+     * Gets the size of the socket receive buffer (SO_RCVBUF).
+     *
+     * @return the size in bytes, null for the default
+     */
+    public Integer getRcvBufSize( )
+    {
+        return _nRcvBufSize;
+    }
+
+    /**
+     * Sets the size of the socket receive buffer (SO_RCVBUF).
+     *
+     * @param nRcvBufSize
+     *            the size in bytes, null for the default
+     */
+    public void setRcvBufSize( Integer nRcvBufSize )
+    {
+        this._nRcvBufSize = nRcvBufSize;
+    }
+
+    /**
+     * Gets the size of the socket send buffer (SO_SNDBUF).
+     *
+     * @return the size in bytes, null for the default
+     */
+    public Integer getSndBufSize( )
+    {
+        return _nSndBufSize;
+    }
+
+    /**
+     * Sets the size of the socket send buffer (SO_SNDBUF).
+     *
+     * @param nSndBufSize
+     *            the size in bytes, null for the default
+     */
+    public void setSndBufSize( Integer nSndBufSize )
+    {
+        this._nSndBufSize = nSndBufSize;
+    }
+
+    /**
+     * Gets the time a socket close waits for the unsent data (SO_LINGER).
+     *
+     * @return the time in seconds, negative to disable, null for the default
+     */
+    public Integer getSoLinger( )
+    {
+        return _nSoLinger;
+    }
+
+    /**
+     * Sets the time a socket close waits for the unsent data (SO_LINGER).
+     *
+     * @param nSoLinger
+     *            the time in seconds, negative to disable, null for the default
+     */
+    public void setSoLinger( Integer nSoLinger )
+    {
+        this._nSoLinger = nSoLinger;
+    }
+
+    /**
+     * Gets the timeout of the blocking reads on the socket (SO_TIMEOUT).
+     *
+     * @return the timeout in milliseconds, null for the default
+     */
+    public Integer getSoTimeout( )
+    {
+        return _nSoTimeout;
+    }
+
+    /**
+     * Sets the timeout of the blocking reads on the socket (SO_TIMEOUT).
+     *
+     * @param nSoTimeout
+     *            the timeout in milliseconds, null for the default
+     */
+    public void setSoTimeout( Integer nSoTimeout )
+    {
+        this._nSoTimeout = nSoTimeout;
+    }
+
+    /**
+     * Create a copy of the options
+     *
+     * @return the copy
+     */
+    SocketOptions copy( )
+    {
+        SocketOptions copy = new SocketOptions( );
+        copy._bTcpNoDelay = _bTcpNoDelay;
+        copy._bSoKeepAlive = _bSoKeepAlive;
+        copy._nRcvBufSize = _nRcvBufSize;
+        copy._nSndBufSize = _nSndBufSize;
+        copy._nSoLinger = _nSoLinger;
+        copy._nSoTimeout = _nSoTimeout;
+
+        return copy;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Counters of the TLS handshakes of an {@link HttpAccessService}, telling how many connections resumed a cached session instead of running a full
+ * handshake
+ */
+public final class TlsSessionMetrics
+{
+    private final AtomicLong _lFullHandshakes = new AtomicLong( );
+    private final AtomicLong _lResumedHandshakes = new AtomicLong( );
+
+    /**
+     * Record a completed handshake. A session created before the handshake started was resumed from the session cache.
+     * 
+     * @param session
+     *            the negotiated session
+     * @param lHandshakeStart
+     *            the time the handshake started, in milliseconds
+     */
+    void record( SSLSession session, long lHandshakeStart )
+    {
+        if ( session.getCreationTime( ) < lHandshakeStart )
+        {
+            _lResumedHandshakes.incrementAndGet( );
+        }
+        else
+        {
+            _lFullHandshakes.incrementAndGet( );
+        }
+    }
+
+    /**
+     * Gets the number of full handshakes
+     * 
+     * @return the number of full handshakes
+     */
+    public long getFullHandshakes( )
+    {
+        return _lFullHandshakes.get( );
+    }
+
+    /**
+     * Gets the number of handshakes that resumed a cached session
+     * 
+     * @return the number of resumed handshakes
+     */
+    public long getResumedHandshakes( )
+    {
+        return _lResumedHandshakes.get( );
+    }
+
+    /**
+     * Gets the ratio of resumed handshakes
+     * 
+     * @return the ratio between 0 and 1, 0 if no handshake was made
+     */
+    public double getResumptionRatio( )
+    {
+        long lResumed = getResumedHandshakes( );
+        long lTotal = lResumed + getFullHandshakes( );
+
+        return ( lTotal == 0 ) ? 0 : (double) lResumed / lTotal;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String toString( )
+    {
+        return "TlsSessionMetrics [full=" + getFullHandshakes( ) + ", resumed=" + getResumedHandshakes( ) + "]";
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class CachingAccessTokenProviderTest
+{
+    private static final long FETCH_TIMEOUT = 5000L;
+
+    @Test
+    public void testTokenIsFetchedOnceForConcurrentCallers( ) throws Exception
+    {
+        AtomicInteger nFetches = new AtomicInteger( );
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        CachingAccessTokenProvider provider = new CachingAccessTokenProvider( ( ) -> {
+            nFetches.incrementAndGet( );
+            started.countDown( );
+            try
+            {
+                release.await( );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+            return new AccessToken( "token", Instant.now( ).plusSeconds( 3600 ) );
+        }, 60000 );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        List<Future<AccessToken>> listTokens = new ArrayList<>( );
+        Callable<AccessToken> call = provider::getAccessToken;
+        for ( int i = 0; i < 4; i++ )
+        {
+            listTokens.add( executor.submit( call ) );
+        }
+        assertTrue( started.await( 5, TimeUnit.SECONDS ) );
+        release.countDown( );
+
+        for ( Future<AccessToken> token : listTokens )
+        {
+            assertEquals( "token", token.get( ).getValue( ) );
+        }
+        assertEquals( "token", provider.getAccessToken( ).getValue( ) );
+        assertEquals( 1, nFetches.get( ) );
+        executor.shutdown( );
+    }
+
+    @Test
+    public void testTokenIsRefreshedBeforeExpiration( ) throws Exception
+    {
+        MutableClock clock = new MutableClock( );
+        AtomicInteger nFetches = new AtomicInteger( );
+        Semaphore fetched = new Semaphore( 0 );
+        CachingAccessTokenProvider provider = new CachingAccessTokenProvider( ( ) -> {
+            AccessToken token = new AccessToken( "token-" + nFetches.incrementAndGet( ), clock.instant( ).plusSeconds( 3600 ) );
+            fetched.release( );
+            return token;
+        }, 60000, FETCH_TIMEOUT, clock );
+
+        assertEquals( "token-1", provider.getAccessToken( ).getValue( ) );
+        clock.advance( Duration.ofSeconds( 3500 ) );
+        assertEquals( "token-1", provider.getAccessToken( ).getValue( ) );
+        assertEquals( 1, nFetches.get( ) );
+
+        // within the refresh margin : the current token is returned while a new one is fetched
+        clock.advance( Duration.ofSeconds( 60 ) );
+        assertEquals( "token-1", provider.getAccessToken( ).getValue( ) );
+        assertTrue( fetched.tryAcquire( 2, 5, TimeUnit.SECONDS ) );
+        assertEquals( "token-2", waitForToken( provider, "token-2" ) );
+    }
+
+    @Test
+    public void testRefreshMarginIsCappedForShortLivedTokens( ) throws Exception
+    {
+        MutableClock clock = new MutableClock( );
+        AtomicInteger nFetches = new AtomicInteger( );
+        CachingAccessTokenProvider provider = new CachingAccessTokenProvider(
+                ( ) -> new AccessToken( "token-" + nFetches.incrementAndGet( ), clock.instant( ).plusSeconds( 10 ) ), 60000, FETCH_TIMEOUT, clock );
+
+        // the token lives less than the margin : it is refreshed after half its lifetime, not on every call
+        for ( int i = 0; i < 3; i++ )
+        {
+            assertEquals( "token-1", provider.getAccessToken( ).getValue( ) );
+            clock.advance( Duration.ofSeconds( 1 ) );
+        }
+        assertEquals( 1, nFetches.get( ) );
+
+        clock.advance( Duration.ofSeconds( 3 ) );
+        assertEquals( "token-2", waitForToken( provider, "token-2" ) );
+    }
+
+    @Test
+    public void testErrorDoesNotBlockTheNextCallers( ) throws Exception
+    {
+        AtomicInteger nFetches = new AtomicInteger( );
+        CachingAccessTokenProvider provider = new CachingAccessTokenProvider( ( ) -> {
+            if ( nFetches.incrementAndGet( ) == 1 )
+            {
+                throw new NoClassDefFoundError( "missing" );
+            }
+            return new AccessToken( "token", null );
+        }, 60000, FETCH_TIMEOUT );
+
+        try
+        {
+            provider.getAccessToken( );
+            fail( "The error should have been reported" );
+        }
+        catch( HttpAccessException e )
+        {
+            assertTrue( e.getMessage( ).contains( "missing" ) );
+        }
+        assertEquals( "token", provider.getAccessToken( ).getValue( ) );
+    }
+
+    @Test
+    public void testWaitIsBounded( ) throws Exception
+    {
+        CountDownLatch release = new CountDownLatch( 1 );
+        CachingAccessTokenProvider provider = new CachingAccessTokenProvider( ( ) -> {
+            try
+            {
+                release.await( );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+            return new AccessToken( "token", null );
+        }, 60000, 100L );
+
+        try
+        {
+            provider.getAccessToken( );
+            fail( "The wait should have timed out" );
+        }
+        catch( HttpAccessException e )
+        {
+            assertTrue( e.getMessage( ).contains( "Timeout" ) );
+        }
+        finally
+        {
+            release.countDown( );
+        }
+    }
+
+    /**
+     * Call the provider until it returns a given token, the refresh running in the background
+     * 
+     * @param provider
+     *            the provider
+     * @param strExpected
+     *            the expected token
+     * @return the last token returned
+     * @throws Exception
+     *             if the provider failed
+     */
+    private static String waitForToken( CachingAccessTokenProvider provider, String strExpected ) throws Exception
+    {
+        String strToken = provider.getAccessToken( ).getValue( );
+        for ( int i = 0; i < 500 && !strExpected.equals( strToken ); i++ )
+        {
+            Thread.sleep( 10 );
+            strToken = provider.getAccessToken( ).getValue( );
+        }
+
+        return strToken;
+    }
+
+    /**
+     * Clock moved forward by the tests
+     */
+    private static final class MutableClock extends Clock
+    {
+        private volatile Instant _instant = Instant.parse( "2025-01-01T00:00:00Z" );
+
+        @Override
+        public ZoneId getZone( )
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone( ZoneId zone )
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant( )
+        {
+            return _instant;
+        }
+
+        private void advance( Duration duration )
+        {
+            _instant = _instant.plus( duration );
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.junit.Test;
+
+public class CachingDnsResolverTest
+{
+    @Test
+    public void testAddressesAreCached( ) throws Exception
+    {
+        CountingDnsResolver counting = new CountingDnsResolver( );
+        CachingDnsResolver resolver = new CachingDnsResolver( counting, 60000, 0, null );
+
+        assertEquals( "10.0.0.1", resolver.resolve( "api.example.org" ) [0].getHostAddress( ) );
+        assertEquals( "10.0.0.1", resolver.resolve( "API.example.org" ) [0].getHostAddress( ) );
+        assertEquals( 1, counting._nLookups.get( ) );
+        assertEquals( 1, resolver.getLookups( ) );
+        assertEquals( 1, resolver.getCacheHits( ) );
+
+        resolver.invalidate( "api.example.org" );
+        resolver.resolve( "api.example.org" );
+        assertEquals( 2, counting._nLookups.get( ) );
+    }
+
+    @Test
+    public void testFailuresAreCachedForTheNegativeTtl( ) throws Exception
+    {
+        CountingDnsResolver counting = new CountingDnsResolver( );
+        CachingDnsResolver resolver = new CachingDnsResolver( counting, 60000, 60000, null );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            try
+            {
+                resolver.resolve( "unknown.example.org" );
+                fail( "The host should not be resolved" );
+            }
+            catch( UnknownHostException e )
+            {
+                assertEquals( "unknown.example.org", e.getMessage( ) );
+            }
+        }
+        assertEquals( 1, counting._nLookups.get( ) );
+        assertEquals( 1, resolver.getLookupFailures( ) );
+    }
+
+    @Test
+    public void testStaticHosts( ) throws Exception
+    {
+        CountingDnsResolver counting = new CountingDnsResolver( );
+        CachingDnsResolver resolver = new CachingDnsResolver( counting, 60000, 0,
+                CachingDnsResolver.parseStaticHosts( "backend.internal=192.168.1.10|192.168.1.11, invalid" ) );
+
+        InetAddress [ ] addresses = resolver.resolve( "backend.internal" );
+        assertEquals( 2, addresses.length );
+        assertEquals( "192.168.1.11", addresses [1].getHostAddress( ) );
+        assertEquals( "backend.internal", addresses [0].getHostName( ) );
+        assertEquals( 0, counting._nLookups.get( ) );
+    }
+
+    /**
+     * Resolver counting the lookups, resolving only api.example.org
+     */
+    private static class CountingDnsResolver implements DnsResolver
+    {
+        private final AtomicInteger _nLookups = new AtomicInteger( );
+
+        @Override
+        public InetAddress [ ] resolve( String strHost ) throws UnknownHostException
+        {
+            _nLookups.incrementAndGet( );
+            if ( !"api.example.org".equalsIgnoreCase( strHost ) )
+            {
+                throw new UnknownHostException( strHost );
+            }
+
+            return new InetAddress [ ] {
+                    InetAddress.getByAddress( strHost, new byte [ ] {
+                            10, 0, 0, 1
+                    } )
+            };
+        }
+
+        @Override
+        public String resolveCanonicalHostname( String strHost )
+        {
+            return strHost;
+        }
+    }
+}
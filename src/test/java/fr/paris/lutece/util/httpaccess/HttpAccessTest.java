@@ -35,18 +35,32 @@ package fr.paris.lutece.util.httpaccess;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.cookie.BasicCookieStore;
+import org.apache.hc.core5.http.Method;
 import org.apache.log4j.Logger;
 import org.junit.After;
 import org.junit.Before;
@@ -59,10 +73,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import fr.paris.lutece.portal.service.util.AppPathService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import okhttp3.Protocol;
 import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
 
 /**
  * Http net Object Accessor
@@ -492,6 +508,38 @@ public class HttpAccessTest
         }
     }
 
+    @Test
+    public void testErrorBodyTruncatedOnACharacter( ) throws IOException
+    {
+        MockWebServer errorServer = new MockWebServer( );
+        errorServer.enqueue(
+                new MockResponse( ).setResponseCode( 500 ).addHeader( "Content-Type", "text/plain; charset=UTF-8" ).setBody( "\u00e9\u00e9\u00e9" ) );
+        errorServer.start( );
+
+        try
+        {
+            HttpClientConfiguration configuration = new HttpClientConfiguration( );
+            configuration.setErrorBodyMaxSize( 3 );
+            HttpAccessService httpAccessService = new HttpAccessService( configuration );
+
+            // the limit cuts the second character in the middle of its two bytes
+            new HttpAccess( httpAccessService, httpAccessService ).doGet( errorServer.url( "/error" ).toString( ) );
+            fail( "The error status should be rejected" );
+        }
+        catch( InvalidResponseStatus e )
+        {
+            assertEquals( "\u00e9<truncated>", e.getResponseBody( ) );
+        }
+        catch( HttpAccessException e )
+        {
+            fail( "The error status should be rejected as an invalid response status" );
+        }
+        finally
+        {
+            errorServer.shutdown( );
+        }
+    }
+
     @Test
     public void testConnectionPool( )
     {
@@ -545,6 +593,517 @@ public class HttpAccessTest
         } );
     }
 
+    @Test
+    public void testDoGetJSONRecords( ) throws HttpAccessException
+    {
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+
+        List<String> listMethods = new ArrayList<>( );
+        long lCount = httpAccess.doGetJSONRecords( mockWebServer.url( "/ndjson" ).toString( ), HttpRequestResult.class,
+                record -> listMethods.add( record.getMethodName( ) ) );
+        assertEquals( 3, lCount );
+        assertEquals( Arrays.asList( "GET", "POST", "PUT" ), listMethods );
+
+        try ( Stream<HttpRequestResult> stream = httpAccess.streamJSONRecords( mockWebServer.url( "/jsonarray" ).toString( ), HttpRequestResult.class ) )
+        {
+            assertEquals( Arrays.asList( "GET", "DELETE" ), stream.map( HttpRequestResult::getMethodName ).collect( Collectors.toList( ) ) );
+        }
+    }
+
+    @Test
+    public void testDoGetXMLElements( ) throws HttpAccessException
+    {
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+
+        List<String> listTitles = new ArrayList<>( );
+        Map<String, XmlElementHandler> mapHandlers = new HashMap<>( );
+        mapHandlers.put( "rss/channel/title", ( strPath, reader ) -> listTitles.add( reader.getElementText( ) ) );
+        mapHandlers.put( "rss/channel/item/title", ( strPath, reader ) -> listTitles.add( reader.getElementText( ) ) );
+
+        httpAccess.doGetXMLElements( mockWebServer.url( "/rss" ).toString( ), null, null, null, mapHandlers );
+        assertEquals( Arrays.asList( "Lutèce", "A", "B" ), listTitles );
+    }
+
+    @Test
+    public void testDoGetPaginated( )
+    {
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+
+        Function<String, List<String>> pageParser = strBody -> {
+            try
+            {
+                return Arrays.asList( _objectMapper.readValue( strBody, String [ ].class ) );
+            }
+            catch( JsonProcessingException e )
+            {
+                throw new IllegalStateException( e );
+            }
+        };
+
+        try ( Stream<String> stream = httpAccess.doGetPaginated( mockWebServer.url( "/paginated" ).toString( ), null, null, null, pageParser,
+                NextPageResolver.linkHeader( ), 2 ) )
+        {
+            assertEquals( Arrays.asList( "item1", "item2", "item3", "item4", "item5", "item6" ), stream.collect( Collectors.toList( ) ) );
+        }
+    }
+
+    @Test
+    public void testCookieStore( ) throws HttpAccessException
+    {
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+        httpAccess.setCookieStore( new BasicCookieStore( ) );
+
+        httpAccess.doGet( mockWebServer.url( "/login" ).toString( ) );
+        assertEquals( 1, httpAccess.getCookieStore( ).getCookies( ).size( ) );
+        assertTrue( httpAccess.doGet( mockWebServer.url( "/test" ).toString( ) ).contains( "SESSIONID=lutece" ) );
+
+        HttpAccess otherHttpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+        otherHttpAccess.setCookieStore( new BasicCookieStore( ) );
+        assertFalse( otherHttpAccess.doGet( mockWebServer.url( "/test" ).toString( ) ).contains( "SESSIONID=lutece" ) );
+    }
+
+    @Test
+    public void testDoGetResult( ) throws HttpAccessException
+    {
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, httpAccessService );
+
+        HttpResponseResult result = httpAccess.doGetResult( mockWebServer.url( "/404" ).toString( ) );
+        assertEquals( 404, result.getStatus( ) );
+        assertFalse( result.isValid( ) );
+        assertFalse( result.isTruncated( ) );
+        assertTrue( result.getBody( ).contains( "\"methodName\":\"GET\"" ) );
+        assertEquals( "application/json; charset=utf-8", result.getHeader( "content-type" ) );
+
+        result = httpAccess.doGetResult( mockWebServer.url( "/test" ).toString( ), null, null, null, 10 );
+        assertEquals( 200, result.getStatus( ) );
+        assertTrue( result.isTruncated( ) );
+        assertEquals( 10, result.getBodyBytes( ).length );
+    }
+
+    @Test
+    public void testRequestTemplate( ) throws HttpAccessException, IOException
+    {
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+
+        HttpRequestTemplate template = httpAccess.request( Method.POST, mockWebServer.url( "/test" ).toString( ) ).header( "X-Client", "lutece" )
+                .timeout( 5000 );
+
+        HttpRequestResult jsonResponse = _objectMapper.readValue( template.path( "/42" ).query( "lang", "fr" ).json( "{\"id\":42}" ),
+                HttpRequestResult.class );
+        assertEquals( "POST", jsonResponse.getMethodName( ) );
+        assertEquals( "/test/42?lang=fr", jsonResponse.getRequestPath( ) );
+        assertEquals( "{\"id\":42}", jsonResponse.getRequestBody( ) );
+        assertTrue( Arrays.asList( jsonResponse.getHeaders( ) ).contains( "X-Client" ) );
+
+        jsonResponse = _objectMapper.readValue( template.path( "/43" ).json( "{}" ), HttpRequestResult.class );
+        assertEquals( "/test/43", jsonResponse.getRequestPath( ) );
+    }
+
+    @Test
+    public void testResponseHeadersCapture( ) throws HttpAccessException
+    {
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+
+        HttpResponseHeaders headers = HttpResponseHeaders.capture( "Link", "Content-Type" );
+        httpAccess.doGet( mockWebServer.url( "/paginated" ).toString( ), null, null, null, headers );
+
+        assertEquals( 2, headers.size( ) );
+        assertEquals( Arrays.asList( "</paginated?page=2>; rel=\"next\"" ), headers.getAll( "link" ) );
+        assertEquals( "application/json; charset=utf-8", headers.get( "CONTENT-TYPE" ) );
+        assertFalse( headers.containsKey( "Content-Length" ) );
+    }
+
+    @Test
+    public void testRequestDeadline( )
+    {
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+
+        long lStart = System.currentTimeMillis( );
+        try
+        {
+            httpAccess.request( Method.GET, mockWebServer.url( "/slow" ).toString( ) ).deadline( Deadline.after( 500 ) ).execute( );
+            fail( "The slow response should exceed the deadline" );
+        }
+        catch( HttpAccessException e )
+        {
+            assertTrue( e.getMessage( ).contains( "Deadline expired" ) );
+            assertTrue( System.currentTimeMillis( ) - lStart < 5000 );
+        }
+
+        try
+        {
+            httpAccess.request( Method.GET, mockWebServer.url( "/test" ).toString( ) ).deadline( Deadline.after( -1 ) ).execute( );
+            fail( "An expired deadline should prevent the request" );
+        }
+        catch( HttpAccessException e )
+        {
+            assertTrue( e.getMessage( ).contains( "Deadline expired before sending" ) );
+        }
+    }
+
+    @Test
+    public void testHttp2Route( ) throws IOException, HttpAccessException
+    {
+        MockWebServer http2Server = new MockWebServer( );
+        http2Server.setProtocols( Arrays.asList( Protocol.H2_PRIOR_KNOWLEDGE ) );
+        http2Server.enqueue( new MockResponse( ).setBody( "h2c" ) );
+        http2Server.enqueue( new MockResponse( ).setBody( "multiplexed" ) );
+        http2Server.start( );
+
+        try
+        {
+            HostRoute hostRoute = new HostRoute( );
+            hostRoute.setUrl( http2Server.url( "/" ).toString( ) );
+            hostRoute.setProtocol( HostRoute.H2C );
+            HttpClientConfiguration configuration = new HttpClientConfiguration( );
+            configuration.setHostRoutes( Arrays.asList( hostRoute ) );
+            HttpAccess httpAccess = new HttpAccess( new HttpAccessService( configuration ), new MockResponseStatusValidator( ) );
+
+            // the server only speaks HTTP/2, a HTTP/1.1 request would fail
+            assertEquals( "h2c", httpAccess.doGet( http2Server.url( "/first" ).toString( ) ) );
+            assertEquals( "multiplexed", httpAccess.doGet( http2Server.url( "/second" ).toString( ) ) );
+        }
+        finally
+        {
+            http2Server.shutdown( );
+        }
+    }
+
+    @Test
+    public void testHttp2RouteFallsBackToHttp11( ) throws IOException, HttpAccessException
+    {
+        MockWebServer http11Server = new MockWebServer( );
+        http11Server.setProtocols( Arrays.asList( Protocol.HTTP_1_1 ) );
+        http11Server.setDispatcher( new Dispatcher( )
+        {
+            @Override
+            public MockResponse dispatch( RecordedRequest request )
+            {
+                if ( "PRI".equals( request.getMethod( ) ) )
+                {
+                    // the HTTP/2 preface is rejected by closing the connection
+                    return new MockResponse( ).setSocketPolicy( SocketPolicy.DISCONNECT_AT_START );
+                }
+                return new MockResponse( ).setBody( "http/1.1" );
+            }
+        } );
+        http11Server.start( );
+
+        try
+        {
+            HostRoute hostRoute = new HostRoute( );
+            hostRoute.setUrl( http11Server.url( "/" ).toString( ) );
+            hostRoute.setProtocol( HostRoute.H2C );
+            HttpClientConfiguration configuration = new HttpClientConfiguration( );
+            configuration.setHostRoutes( Arrays.asList( hostRoute ) );
+            HttpAccess httpAccess = new HttpAccess( new HttpAccessService( configuration ), new MockResponseStatusValidator( ) );
+
+            // the GET is replayed with HTTP/1.1, then the host is reached with HTTP/1.1
+            assertEquals( "http/1.1", httpAccess.doGet( http11Server.url( "/first" ).toString( ) ) );
+            assertEquals( "http/1.1", httpAccess.doGet( http11Server.url( "/second" ).toString( ) ) );
+        }
+        finally
+        {
+            http11Server.shutdown( );
+        }
+    }
+
+    @Test
+    public void testReconfigure( ) throws HttpAccessException
+    {
+        String strUrlTestHttp = mockWebServer.url( "/test" ).toString( );
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setProxyHost( "localhost_butdoesnot.exists" );
+        configuration.setProxyPort( "3128" );
+        HttpAccessService httpAccessService = new HttpAccessService( configuration );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+        try
+        {
+            httpAccess.doGet( strUrlTestHttp );
+            fail( "Should have failed to connect to proxy" );
+        }
+        catch( HttpAccessException e )
+        {
+            assertEquals( e.getCause( ).getClass( ), UnknownHostException.class );
+        }
+
+        // the same HttpAccess uses the new configuration
+        HttpClientConfiguration newConfiguration = new HttpClientConfiguration( );
+        newConfiguration.setSocketTimeout( 5000 );
+        httpAccessService.reconfigure( newConfiguration );
+
+        assertTrue( StringUtils.isNotEmpty( httpAccess.doGet( strUrlTestHttp ) ) );
+        assertEquals( 5000, httpAccessService.getDefaultRequestConfig( ).getResponseTimeout( ).toMilliseconds( ) );
+    }
+
+    @Test
+    public void testSharedPool( ) throws HttpAccessException
+    {
+        String strUrlTestHttp = mockWebServer.url( "/test" ).toString( );
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setSocketTimeout( 1000 );
+        HttpClientConfiguration otherConfiguration = new HttpClientConfiguration( );
+        otherConfiguration.setSocketTimeout( 2000 );
+        HttpClientConfiguration poolConfiguration = new HttpClientConfiguration( );
+        poolConfiguration.setConnectionPoolMaxTotalConnection( 3 );
+
+        HttpAccessService service = new HttpAccessService( configuration );
+        HttpAccessService otherService = new HttpAccessService( otherConfiguration );
+        HttpAccessService poolService = new HttpAccessService( poolConfiguration );
+
+        // the timeouts are specific to each service, the pool is shared by the services with the same connection settings
+        assertSame( service.getHttpClient( ), otherService.getHttpClient( ) );
+        assertNotSame( service.getHttpClient( ), poolService.getHttpClient( ) );
+        assertEquals( 2000, otherService.createHttpContext( ).getRequestConfig( ).getResponseTimeout( ).toMilliseconds( ) );
+
+        service.close( );
+        assertTrue( StringUtils.isNotEmpty( new HttpAccess( otherService, new MockResponseStatusValidator( ) ).doGet( strUrlTestHttp ) ) );
+        otherService.close( );
+        poolService.close( );
+    }
+
+    @Test
+    public void testClose( ) throws HttpAccessException
+    {
+        String strUrlTestHttp = mockWebServer.url( "/test" ).toString( );
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setConnectionPoolMaxTotalConnection( 5 );
+        HttpAccessService httpAccessService = new HttpAccessService( configuration );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+        assertTrue( StringUtils.isNotEmpty( httpAccess.doGet( strUrlTestHttp ) ) );
+
+        httpAccessService.close( );
+        assertTrue( httpAccessService.isClosed( ) );
+        try
+        {
+            httpAccess.doGet( strUrlTestHttp );
+            fail( "Should have rejected the request" );
+        }
+        catch( HttpAccessException e )
+        {
+            assertEquals( "HttpAccess - The service is closed", e.getMessage( ) );
+        }
+    }
+
+    @Test
+    public void testClosedServiceBuildsNoClient( )
+    {
+        String strUrlTestHttp = mockWebServer.url( "/test" ).toString( );
+        HttpAccessService httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        // closed before its first request : its clients are never built
+        httpAccessService.close( );
+
+        try
+        {
+            httpAccessService.getHttpClient( );
+            fail( "Should have rejected the closed service" );
+        }
+        catch( IllegalStateException e )
+        {
+            assertEquals( "HttpAccess - The service is closed", e.getMessage( ) );
+        }
+
+        try
+        {
+            new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) ).request( Method.GET, strUrlTestHttp ).timeout( 1000 ).execute( );
+            fail( "Should have rejected the request" );
+        }
+        catch( HttpAccessException e )
+        {
+            assertEquals( "HttpAccess - The service is closed", e.getMessage( ) );
+        }
+        assertEquals( 0, mockWebServer.getRequestCount( ) );
+    }
+
+    @Test
+    public void testWarmUp( ) throws Exception
+    {
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setConnectionPoolMaxTotalConnection( 7 );
+        configuration.setWarmupHosts( mockWebServer.url( "/health" ).toString( ) );
+        configuration.setWarmupConnections( 2 );
+        configuration.setWarmupMethod( "HEAD" );
+        HttpAccessService httpAccessService = new HttpAccessService( configuration );
+
+        httpAccessService.getWarmUp( ).get( 10, TimeUnit.SECONDS );
+        assertTrue( httpAccessService.isReady( ) );
+        RecordedRequest request = mockWebServer.takeRequest( 1, TimeUnit.SECONDS );
+        assertEquals( "HEAD", request.getMethod( ) );
+        assertEquals( "/health", request.getPath( ) );
+        httpAccessService.close( );
+    }
+
+    @Test
+    public void testPreemptiveProxyAuthentication( ) throws Exception
+    {
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setProxyHost( "localhost" );
+        configuration.setProxyPort( String.valueOf( mockWebServer.getPort( ) ) );
+        configuration.setProxyUserName( "proxyuser" );
+        configuration.setProxyPassword( "proxysecret" );
+        configuration.setProxyPreemptiveAuthentication( true );
+        HttpAccessService httpAccessService = new HttpAccessService( configuration );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+
+        // the mock server acts as the proxy of a host which does not exist
+        httpAccess.doGet( "http://backend.example.org/test" );
+
+        RecordedRequest request = mockWebServer.takeRequest( 1, TimeUnit.SECONDS );
+        assertEquals( 1, mockWebServer.getRequestCount( ) );
+        assertEquals( "Basic " + Base64.getEncoder( ).encodeToString( "proxyuser:proxysecret".getBytes( StandardCharsets.UTF_8 ) ),
+                request.getHeader( "Proxy-Authorization" ) );
+        assertEquals( "backend.example.org", request.getRequestUrl( ).host( ) );
+        httpAccessService.close( );
+    }
+
+    @Test
+    public void testReconfigureDropsThePreemptiveProxyAuthentication( ) throws Exception
+    {
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setProxyHost( "localhost" );
+        configuration.setProxyPort( String.valueOf( mockWebServer.getPort( ) ) );
+        configuration.setProxyUserName( "proxyuser" );
+        configuration.setProxyPassword( "proxysecret" );
+        configuration.setProxyPreemptiveAuthentication( true );
+        HttpAccessService httpAccessService = new HttpAccessService( configuration );
+        HttpAccess httpAccess = new HttpAccess( httpAccessService, new MockResponseStatusValidator( ) );
+
+        httpAccess.doGet( "http://backend.example.org/test" );
+        assertNotNull( mockWebServer.takeRequest( 1, TimeUnit.SECONDS ).getHeader( "Proxy-Authorization" ) );
+
+        // the proxy does not challenge the request : no credentials are sent once the authentication is no longer preemptive
+        configuration.setProxyPreemptiveAuthentication( false );
+        httpAccessService.reconfigure( configuration );
+        httpAccess.doGet( "http://backend.example.org/test" );
+        assertNull( mockWebServer.takeRequest( 1, TimeUnit.SECONDS ).getHeader( "Proxy-Authorization" ) );
+        httpAccessService.close( );
+    }
+
+    @Test
+    public void testNamedService( )
+    {
+        HttpAccessService service = HttpAccessService.get( "test" );
+        assertSame( service, HttpAccessService.get( "test" ) );
+        assertNotSame( service, HttpAccessService.get( "other" ) );
+
+        service.close( );
+        assertNotSame( service, HttpAccessService.get( "test" ) );
+        HttpAccessService.get( "test" ).close( );
+        HttpAccessService.get( "other" ).close( );
+    }
+
+    @Test
+    public void testNamedServiceRejectsReservedNames( )
+    {
+        for ( String strName : Arrays.asList( "tls", "route", "warmup", "my.service", " " ) )
+        {
+            try
+            {
+                HttpAccessService.get( strName );
+                fail( "The name " + strName + " should be rejected" );
+            }
+            catch( IllegalArgumentException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testAccessTokenOfTheCallingService( ) throws Exception
+    {
+        String strUrlTestHttp = mockWebServer.url( "/test" ).toString( );
+        HttpAccessService tokenService = new HttpAccessService( new HttpClientConfiguration( ) );
+        tokenService.setAccessTokenProvider( strUrlTestHttp, ( ) -> new AccessToken( "token", Instant.now( ).plusSeconds( 60 ) ) );
+        // same connection settings : the client is shared
+        HttpAccessService otherService = new HttpAccessService( new HttpClientConfiguration( ) );
+        assertSame( tokenService.getHttpClient( ), otherService.getHttpClient( ) );
+
+        new HttpAccess( otherService, new MockResponseStatusValidator( ) ).doGet( strUrlTestHttp );
+        assertNull( mockWebServer.takeRequest( 1, TimeUnit.SECONDS ).getHeader( "Authorization" ) );
+
+        new HttpAccess( tokenService, new MockResponseStatusValidator( ) ).doGet( strUrlTestHttp );
+        assertEquals( "Bearer token", mockWebServer.takeRequest( 1, TimeUnit.SECONDS ).getHeader( "Authorization" ) );
+
+        tokenService.close( );
+        otherService.close( );
+    }
+
+    @Test
+    public void testConfigurationSnapshot( )
+    {
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setSocketTimeout( 1000 );
+        HttpAccessService httpAccessService = new HttpAccessService( configuration );
+        configuration.setSocketTimeout( 2000 );
+        assertEquals( Integer.valueOf( 1000 ), httpAccessService.getHttpClientConfiguration( ).getSocketTimeout( ) );
+        try
+        {
+            httpAccessService.getHttpClientConfiguration( ).setSocketTimeout( 3000 );
+            fail( "Should have rejected the modification" );
+        }
+        catch( IllegalStateException e )
+        {
+            // expected
+        }
+        httpAccessService.close( );
+
+        HttpClientConfiguration invalidConfiguration = new HttpClientConfiguration( );
+        invalidConfiguration.setProxyHost( "proxy.example.com" );
+        invalidConfiguration.setProxyPort( "abc" );
+        try
+        {
+            new HttpAccessService( invalidConfiguration );
+            fail( "Should have rejected the configuration" );
+        }
+        catch( IllegalArgumentException e )
+        {
+            assertFalse( invalidConfiguration.validate( ).isEmpty( ) );
+        }
+    }
+
+    @Test
+    public void testConfigurationSnapshotIsDeep( )
+    {
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.getSocketOptions( ).setSoTimeout( 1000 );
+        HostRoute hostRoute = new HostRoute( );
+        hostRoute.setUrl( "https://api.example.com" );
+        configuration.getHostRoutes( ).add( hostRoute );
+        HostCredentials hostCredentials = new HostCredentials( );
+        hostCredentials.setUrl( "https://api.example.com" );
+        hostCredentials.setUserName( "user" );
+        configuration.getHostCredentials( ).add( hostCredentials );
+        HttpAccessService httpAccessService = new HttpAccessService( configuration );
+
+        // the objects kept by the caller or returned by the service don't change the configuration of the service
+        configuration.getSocketOptions( ).setSoTimeout( 2000 );
+        hostRoute.setProtocol( HostRoute.H2 );
+        hostCredentials.setUserName( "other" );
+        httpAccessService.getHttpClientConfiguration( ).getSocketOptions( ).setSoTimeout( 3000 );
+        httpAccessService.getHttpClientConfiguration( ).getHostRoutes( ).get( 0 ).setProtocol( HostRoute.H2C );
+
+        HttpClientConfiguration snapshot = httpAccessService.getHttpClientConfiguration( );
+        assertEquals( Integer.valueOf( 1000 ), snapshot.getSocketOptions( ).getSoTimeout( ) );
+        assertEquals( HostRoute.HTTP_1_1, snapshot.getHostRoutes( ).get( 0 ).getProtocol( ) );
+        assertEquals( "user", snapshot.getHostCredentials( ).get( 0 ).getUserName( ) );
+
+        // a copy can be modified and applied
+        HttpClientConfiguration copy = snapshot.copy( );
+        copy.setSocketTimeout( 4000 );
+        httpAccessService.reconfigure( copy );
+        assertEquals( Integer.valueOf( 4000 ), httpAccessService.getHttpClientConfiguration( ).getSocketTimeout( ) );
+        httpAccessService.close( );
+    }
+
     @Before
     public void init( ) throws IOException
     {
@@ -557,6 +1116,45 @@ public class HttpAccessTest
             {
                 int responseCode = 200;
                 List<String> pathSegments = request.getRequestUrl( ).pathSegments( );
+                if ( "ndjson".equals( pathSegments.get( pathSegments.size( ) - 1 ) ) )
+                {
+                    return new MockResponse( ).addHeader( "Content-Type", "application/x-ndjson" ).setResponseCode( responseCode )
+                            .setBody( "{\"methodName\":\"GET\"}\n{\"methodName\":\"POST\"}\n{\"methodName\":\"PUT\"}\n" );
+                }
+                if ( "paginated".equals( pathSegments.get( pathSegments.size( ) - 1 ) ) )
+                {
+                    String strPage = request.getRequestUrl( ).queryParameter( "page" );
+                    int nPage = ( strPage != null ) ? Integer.parseInt( strPage ) : 1;
+                    MockResponse response = new MockResponse( ).addHeader( "Content-Type", "application/json; charset=utf-8" ).setResponseCode( responseCode )
+                            .setBody( "[\"item" + ( 2 * nPage - 1 ) + "\",\"item" + 2 * nPage + "\"]" );
+                    // several Link headers, the next relation being unquoted
+                    response.addHeader( "Link", "</paginated?page=1>; rel=\"first\"" );
+                    if ( nPage < 3 )
+                    {
+                        response.addHeader( "Link", "</paginated?page=" + ( nPage + 1 ) + ">; rel=next" );
+                    }
+                    return response;
+                }
+                if ( "rss".equals( pathSegments.get( pathSegments.size( ) - 1 ) ) )
+                {
+                    return new MockResponse( ).addHeader( "Content-Type", "application/rss+xml; charset=ISO-8859-1" ).setResponseCode( responseCode )
+                            .setBody( new okio.Buffer( ).writeString(
+                                    "<rss><channel><title>Lutèce</title><item><title>A</title></item><item><title>B</title></item></channel></rss>",
+                                    StandardCharsets.ISO_8859_1 ) );
+                }
+                if ( "slow".equals( pathSegments.get( pathSegments.size( ) - 1 ) ) )
+                {
+                    return new MockResponse( ).setResponseCode( responseCode ).setBody( "0123456789" ).throttleBody( 1, 1, TimeUnit.SECONDS );
+                }
+                if ( "login".equals( pathSegments.get( pathSegments.size( ) - 1 ) ) )
+                {
+                    return new MockResponse( ).addHeader( "Set-Cookie", "SESSIONID=lutece; Path=/" ).setResponseCode( responseCode );
+                }
+                if ( "jsonarray".equals( pathSegments.get( pathSegments.size( ) - 1 ) ) )
+                {
+                    return new MockResponse( ).addHeader( "Content-Type", "application/json; charset=utf-8" ).setResponseCode( responseCode )
+                            .setBody( "[{\"methodName\":\"GET\"},{\"methodName\":\"DELETE\"}]" );
+                }
                 String responseBody = printRequest( request );
                 if ( StringUtils.isNumeric( pathSegments.get( pathSegments.size( ) - 1 ) ) )
                 {
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fr.paris.lutece.portal.service.util.AppPathService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class HttpBatchSenderTest
+{
+    private static final long NO_LINGER = 60000L;
+
+    private MockWebServer _mockWebServer;
+    private HttpAccessService _httpAccessService;
+
+    @BeforeClass
+    public static void initLutece( )
+    {
+        // fake initialization
+        try
+        {
+            AppPathService.init( "" );
+            AppPropertiesService.init( "" );
+        }
+        catch( Exception e )
+        {
+            // ignore
+        }
+    }
+
+    @Before
+    public void init( ) throws IOException
+    {
+        _mockWebServer = new MockWebServer( );
+        _mockWebServer.setDispatcher( new Dispatcher( )
+        {
+            @Override
+            public MockResponse dispatch( RecordedRequest request )
+            {
+                return new MockResponse( ).setResponseCode( "/fail".equals( request.getRequestUrl( ).encodedPath( ) ) ? 500 : 200 );
+            }
+        } );
+        _mockWebServer.start( );
+        _httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+    }
+
+    @After
+    public void stop( ) throws IOException
+    {
+        _httpAccessService.close( );
+        _mockWebServer.shutdown( );
+    }
+
+    @Test
+    public void testCountFlushAsJsonArray( ) throws Exception
+    {
+        try ( HttpBatchSender sender = new HttpBatchSender( _httpAccessService, HttpBatchSender.BatchFormat.JSON_ARRAY, 3, 1024 * 1024, NO_LINGER ) )
+        {
+            String strUrl = _mockWebServer.url( "/batch" ).toString( );
+            CompletableFuture<Void> first = sender.send( strUrl, "{\"n\":1}" );
+            sender.send( strUrl, "{\"n\":2}" );
+            CompletableFuture<Void> last = sender.send( strUrl, "{\"n\":3}" );
+
+            last.get( 5, TimeUnit.SECONDS );
+            assertTrue( first.isDone( ) );
+            RecordedRequest request = _mockWebServer.takeRequest( 1, TimeUnit.SECONDS );
+            assertEquals( "[{\"n\":1},{\"n\":2},{\"n\":3}]", request.getBody( ).readUtf8( ) );
+            assertTrue( request.getHeader( "Content-Type" ).startsWith( "application/json" ) );
+            assertEquals( 1, _mockWebServer.getRequestCount( ) );
+        }
+    }
+
+    @Test
+    public void testSizeFlushAsNdjson( ) throws Exception
+    {
+        // the first payload takes 10 bytes with its line break, the second one 11 bytes
+        try ( HttpBatchSender sender = new HttpBatchSender( _httpAccessService, HttpBatchSender.BatchFormat.NDJSON, 100, 21, NO_LINGER ) )
+        {
+            String strUrl = _mockWebServer.url( "/batch" ).toString( );
+            CompletableFuture<Void> first = sender.send( strUrl, "{\"n\":\"1\"}" );
+            assertNull( _mockWebServer.takeRequest( 200, TimeUnit.MILLISECONDS ) );
+            sender.send( strUrl, "{\n\"n\":\"2\"}" ).get( 5, TimeUnit.SECONDS );
+
+            assertTrue( first.isDone( ) );
+            RecordedRequest request = _mockWebServer.takeRequest( 1, TimeUnit.SECONDS );
+            assertEquals( "{\"n\":\"1\"}\n{ \"n\":\"2\"}\n", request.getBody( ).readUtf8( ) );
+            assertTrue( request.getHeader( "Content-Type" ).startsWith( "application/x-ndjson" ) );
+        }
+    }
+
+    @Test
+    public void testOverflowAndOversizedPayload( ) throws Exception
+    {
+        // the payloads take 8, 17 and 29 bytes with their separator
+        try ( HttpBatchSender sender = new HttpBatchSender( _httpAccessService, HttpBatchSender.BatchFormat.JSON_ARRAY, 100, 20, NO_LINGER ) )
+        {
+            String strUrl = _mockWebServer.url( "/batch" ).toString( );
+            CompletableFuture<Void> first = sender.send( strUrl, "{\"n\":1}" );
+            CompletableFuture<Void> second = sender.send( strUrl, "{\"n\":\"22222222\"}" );
+            first.get( 5, TimeUnit.SECONDS );
+            assertFalse( second.isDone( ) );
+            sender.send( strUrl, "{\"n\":\"33333333333333333333\"}" ).get( 5, TimeUnit.SECONDS );
+            second.get( 5, TimeUnit.SECONDS );
+
+            Set<String> setBodies = new HashSet<>( );
+            for ( int i = 0; i < 3; i++ )
+            {
+                setBodies.add( _mockWebServer.takeRequest( 1, TimeUnit.SECONDS ).getBody( ).readUtf8( ) );
+            }
+            assertEquals( new HashSet<>( Arrays.asList( "[{\"n\":1}]", "[{\"n\":\"22222222\"}]", "[{\"n\":\"33333333333333333333\"}]" ) ),
+                    setBodies );
+        }
+    }
+
+    @Test
+    public void testLingerFlush( ) throws Exception
+    {
+        try ( HttpBatchSender sender = new HttpBatchSender( _httpAccessService, HttpBatchSender.BatchFormat.JSON_ARRAY, 100, 1024 * 1024, 100L ) )
+        {
+            long lStart = System.currentTimeMillis( );
+            sender.send( _mockWebServer.url( "/batch" ).toString( ), "{\"n\":1}" ).get( 5, TimeUnit.SECONDS );
+
+            assertTrue( System.currentTimeMillis( ) - lStart >= 90 );
+            assertEquals( "[{\"n\":1}]", _mockWebServer.takeRequest( 1, TimeUnit.SECONDS ).getBody( ).readUtf8( ) );
+        }
+    }
+
+    @Test
+    public void testFailuresArePropagated( ) throws Exception
+    {
+        try ( HttpBatchSender sender = new HttpBatchSender( _httpAccessService, HttpBatchSender.BatchFormat.JSON_ARRAY, 100, 1024 * 1024, NO_LINGER ) )
+        {
+            CompletableFuture<Void> rejected = sender.send( _mockWebServer.url( "/fail" ).toString( ), "{\"n\":1}" );
+            CompletableFuture<Void> invalid = sender.send( "http://invalid host/batch", "{\"n\":2}" );
+            sender.flush( );
+
+            assertEquals( InvalidResponseStatus.class, getFailure( rejected ).getClass( ) );
+            assertEquals( IllegalArgumentException.class, getFailure( invalid ).getClass( ) );
+        }
+    }
+
+    @Test
+    public void testSendAfterCloseIsRejected( ) throws Exception
+    {
+        HttpBatchSender sender = new HttpBatchSender( _httpAccessService, HttpBatchSender.BatchFormat.JSON_ARRAY, 100, 1024 * 1024, NO_LINGER );
+        sender.close( );
+
+        CompletableFuture<Void> future = sender.send( _mockWebServer.url( "/batch" ).toString( ), "{\"n\":1}" );
+        assertEquals( HttpAccessException.class, getFailure( future ).getClass( ) );
+        assertEquals( 0, _mockWebServer.getRequestCount( ) );
+    }
+
+    /**
+     * Gets the failure of a future
+     * 
+     * @param future
+     *            the future
+     * @return the cause of the failure
+     * @throws Exception
+     *             if the future did not fail in time
+     */
+    private static Throwable getFailure( CompletableFuture<Void> future ) throws Exception
+    {
+        try
+        {
+            future.get( 5, TimeUnit.SECONDS );
+            fail( "The future should have failed" );
+        }
+        catch( ExecutionException e )
+        {
+            return e.getCause( );
+        }
+
+        return null;
+    }
+}
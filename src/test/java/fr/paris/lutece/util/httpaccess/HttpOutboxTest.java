@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import fr.paris.lutece.portal.service.util.AppPathService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class HttpOutboxTest
+{
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder( );
+
+    private final AtomicInteger _nEventsStatus = new AtomicInteger( 204 );
+    private final AtomicInteger _nFlakyAttempts = new AtomicInteger( );
+    private final List<String> _listRequests = new CopyOnWriteArrayList<>( );
+    private final List<Long> _listFlakyAttempts = new CopyOnWriteArrayList<>( );
+    private MockWebServer _mockWebServer;
+    private HttpAccessService _httpAccessService;
+    private File _directory;
+
+    @BeforeClass
+    public static void initLutece( )
+    {
+        // fake initialization
+        try
+        {
+            AppPathService.init( "" );
+            AppPropertiesService.init( "" );
+        }
+        catch( Exception e )
+        {
+            // ignore
+        }
+    }
+
+    @Before
+    public void init( ) throws IOException
+    {
+        _mockWebServer = new MockWebServer( );
+        _mockWebServer.setDispatcher( new Dispatcher( )
+        {
+            @Override
+            public MockResponse dispatch( RecordedRequest request )
+            {
+                String strPath = request.getRequestUrl( ).encodedPath( );
+                _listRequests.add( strPath + " " + request.getBody( ).readUtf8( ) );
+                if ( "/invalid".equals( strPath ) )
+                {
+                    return new MockResponse( ).setResponseCode( 400 );
+                }
+                if ( "/flaky".equals( strPath ) )
+                {
+                    _listFlakyAttempts.add( System.currentTimeMillis( ) );
+                    return new MockResponse( ).setResponseCode( ( _nFlakyAttempts.incrementAndGet( ) == 1 ) ? 503 : 200 );
+                }
+
+                return new MockResponse( ).setResponseCode( _nEventsStatus.get( ) );
+            }
+        } );
+        _mockWebServer.start( );
+        _httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+        _directory = _temporaryFolder.newFolder( "outbox" );
+    }
+
+    @After
+    public void stop( ) throws IOException
+    {
+        _httpAccessService.close( );
+        _mockWebServer.shutdown( );
+    }
+
+    @Test
+    public void testRequestsAreReplayedAfterRestart( ) throws Exception
+    {
+        _nEventsStatus.set( 503 );
+        HttpOutbox outbox = new HttpOutbox( _httpAccessService, _directory, SEGMENT_SIZE, true );
+        outbox.postJSON( _mockWebServer.url( "/events" ).toString( ), "{\"n\":1}" );
+        outbox.postJSON( _mockWebServer.url( "/events" ).toString( ), "{\"n\":2}" );
+        assertTrue( waitFor( ( ) -> !_listRequests.isEmpty( ) ) );
+        outbox.close( );
+        assertEquals( 2, outbox.getPendingCount( ) );
+
+        // the requests not delivered are read back from the journal, a 204 response acknowledges them
+        _nEventsStatus.set( 204 );
+        _listRequests.clear( );
+        outbox = new HttpOutbox( _httpAccessService, _directory, SEGMENT_SIZE, true );
+        assertEquals( 2, outbox.getPendingCount( ) );
+        HttpOutbox reopened = outbox;
+        assertTrue( waitFor( ( ) -> reopened.getPendingCount( ) == 0 ) );
+        outbox.close( );
+        assertEquals( "/events {\"n\":1}", _listRequests.get( 0 ) );
+        assertEquals( "/events {\"n\":2}", _listRequests.get( 1 ) );
+
+        // the acknowledged requests are not sent again
+        outbox = new HttpOutbox( _httpAccessService, _directory, SEGMENT_SIZE, true );
+        assertEquals( 0, outbox.getPendingCount( ) );
+        outbox.close( );
+    }
+
+    @Test
+    public void testClientErrorIsDroppedAndServerErrorIsRetried( ) throws Exception
+    {
+        HttpOutbox outbox = new HttpOutbox( _httpAccessService, _directory, SEGMENT_SIZE, false );
+        outbox.postJSON( _mockWebServer.url( "/invalid" ).toString( ), "{\"n\":1}" );
+        outbox.postJSON( _mockWebServer.url( "/flaky" ).toString( ), "{\"n\":2}" );
+
+        assertTrue( waitFor( ( ) -> outbox.getPendingCount( ) == 0 ) );
+        outbox.close( );
+
+        assertEquals( 3, _listRequests.size( ) );
+        assertEquals( "/invalid {\"n\":1}", _listRequests.get( 0 ) );
+        assertEquals( 2, _listFlakyAttempts.size( ) );
+        // exponential backoff, starting at one second
+        assertTrue( _listFlakyAttempts.get( 1 ) - _listFlakyAttempts.get( 0 ) >= 900 );
+    }
+
+    @Test
+    public void testJournalIsNotShared( ) throws Exception
+    {
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setOutboxDirectory( _directory.getAbsolutePath( ) );
+        HttpAccessService firstService = new HttpAccessService( configuration );
+        HttpAccessService secondService = new HttpAccessService( configuration );
+
+        try
+        {
+            firstService.getOutbox( );
+            try
+            {
+                secondService.getOutbox( );
+                fail( "Should have rejected the journal in use" );
+            }
+            catch( HttpAccessException e )
+            {
+                // expected
+            }
+
+            // the journal is unlocked when its outbox is closed
+            firstService.close( );
+            secondService.getOutbox( );
+        }
+        finally
+        {
+            firstService.close( );
+            secondService.close( );
+        }
+    }
+
+    @Test
+    public void testInvalidUrlIsRejected( ) throws Exception
+    {
+        HttpOutbox outbox = new HttpOutbox( _httpAccessService, _directory, SEGMENT_SIZE, false );
+        try
+        {
+            outbox.postJSON( "not an url", "{}" );
+            fail( "Should have rejected the url" );
+        }
+        catch( HttpAccessException e )
+        {
+            assertEquals( 0, outbox.getPendingCount( ) );
+        }
+        finally
+        {
+            outbox.close( );
+        }
+    }
+
+    /**
+     * Wait for a condition
+     * 
+     * @param condition
+     *            the condition
+     * @return true if the condition was met before the timeout
+     * @throws InterruptedException
+     *             if interrupted
+     */
+    private static boolean waitFor( BooleanSupplier condition ) throws InterruptedException
+    {
+        long lTimeout = System.currentTimeMillis( ) + TimeUnit.SECONDS.toMillis( 10 );
+        while ( !condition.getAsBoolean( ) )
+        {
+            if ( System.currentTimeMillis( ) > lTimeout )
+            {
+                return false;
+            }
+            Thread.sleep( 20 );
+        }
+
+        return true;
+    }
+}
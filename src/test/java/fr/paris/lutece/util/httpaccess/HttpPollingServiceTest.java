@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fr.paris.lutece.portal.service.util.AppPathService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class HttpPollingServiceTest
+{
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private final AtomicInteger _nVersion = new AtomicInteger( 1 );
+    private MockWebServer _mockWebServer;
+    private HttpAccessService _httpAccessService;
+
+    @BeforeClass
+    public static void initLutece( )
+    {
+        // fake initialization
+        try
+        {
+            AppPathService.init( "" );
+            AppPropertiesService.init( "" );
+        }
+        catch( Exception e )
+        {
+            // ignore
+        }
+    }
+
+    @Before
+    public void init( ) throws IOException
+    {
+        _mockWebServer = new MockWebServer( );
+        _mockWebServer.setDispatcher( new Dispatcher( )
+        {
+            @Override
+            public MockResponse dispatch( RecordedRequest request )
+            {
+                String strETag = "\"v" + _nVersion.get( ) + "\"";
+                if ( strETag.equals( request.getHeader( "If-None-Match" ) ) )
+                {
+                    return new MockResponse( ).setResponseCode( 304 );
+                }
+
+                return new MockResponse( ).addHeader( "ETag", strETag ).addHeader( "Last-Modified", LAST_MODIFIED ).setBody( "v" + _nVersion.get( ) );
+            }
+        } );
+        _mockWebServer.start( );
+        _httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+    }
+
+    @After
+    public void stop( ) throws IOException
+    {
+        _httpAccessService.close( );
+        _mockWebServer.shutdown( );
+    }
+
+    @Test
+    public void testConditionalPolling( ) throws Exception
+    {
+        BlockingQueue<String> queueChanges = new LinkedBlockingQueue<>( );
+        HttpPollingService pollingService = new HttpPollingService( _httpAccessService, 1, 0 );
+        try
+        {
+            PolledResource resource = pollingService.register( _mockWebServer.url( "/resource" ).toString( ), 100,
+                    ( String strUrl, String strBody, Map<String, String> mapResponseHeaders ) -> queueChanges.add( strBody ) );
+
+            // first poll : unconditional, the listener is notified
+            RecordedRequest request = _mockWebServer.takeRequest( 5, TimeUnit.SECONDS );
+            assertNull( request.getHeader( "If-None-Match" ) );
+            assertNull( request.getHeader( "If-Modified-Since" ) );
+            assertEquals( "v1", queueChanges.poll( 5, TimeUnit.SECONDS ) );
+            assertEquals( "\"v1\"", resource.getETag( ) );
+
+            // next polls : conditional, the 304 responses are not notified
+            for ( int i = 0; i < 2; i++ )
+            {
+                request = _mockWebServer.takeRequest( 5, TimeUnit.SECONDS );
+                assertEquals( "\"v1\"", request.getHeader( "If-None-Match" ) );
+                assertEquals( LAST_MODIFIED, request.getHeader( "If-Modified-Since" ) );
+            }
+            assertTrue( queueChanges.isEmpty( ) );
+
+            // the resource changes : the listener is notified with the new content
+            _nVersion.set( 2 );
+            assertEquals( "v2", queueChanges.poll( 5, TimeUnit.SECONDS ) );
+            assertEquals( "\"v2\"", resource.getETag( ) );
+            resource.cancel( );
+        }
+        finally
+        {
+            pollingService.shutdown( );
+        }
+    }
+}
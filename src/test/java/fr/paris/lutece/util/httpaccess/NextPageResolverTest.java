@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.Test;
+
+public class NextPageResolverTest
+{
+    private static final String PAGE_URL = "http://localhost/items?page=1";
+
+    @Test
+    public void testLinkHeader( )
+    {
+        NextPageResolver resolver = NextPageResolver.linkHeader( );
+
+        assertEquals( "http://localhost/items?page=2", resolver.getNextPageUrl( PAGE_URL, links( "</items?page=2>; rel=\"next\"" ), 2 ) );
+        assertEquals( "http://localhost/items?page=2", resolver.getNextPageUrl( PAGE_URL, links( "</items?page=2>; rel=next" ), 2 ) );
+        assertEquals( "http://localhost/items?page=2",
+                resolver.getNextPageUrl( PAGE_URL, links( "</items?page=2>; rel=next, </items?page=9>; rel=last" ), 2 ) );
+        assertEquals( "http://localhost/items?page=2",
+                resolver.getNextPageUrl( PAGE_URL, links( "</items?page=0>; rel=\"prev\", </items?page=2>; rel=\"prev next\"" ), 2 ) );
+        assertEquals( "http://localhost/items?page=2",
+                resolver.getNextPageUrl( PAGE_URL, links( "</items?page=2>; rel=NEXT; type=\"text/json\"" ), 2 ) );
+    }
+
+    @Test
+    public void testLinkHeaderScansEveryHeader( )
+    {
+        NextPageResolver resolver = NextPageResolver.linkHeader( );
+
+        HttpResponseHeaders headers = links( "</items?page=1>; rel=first", "</items?page=2>; rel=next", "</items?page=9>; rel=last" );
+
+        assertEquals( "http://localhost/items?page=2", resolver.getNextPageUrl( PAGE_URL, headers, 2 ) );
+    }
+
+    @Test
+    public void testLinkHeaderWithoutNext( )
+    {
+        NextPageResolver resolver = NextPageResolver.linkHeader( );
+
+        assertNull( resolver.getNextPageUrl( PAGE_URL, links( ), 2 ) );
+        assertNull( resolver.getNextPageUrl( PAGE_URL, links( "</items?page=0>; rel=prev", "</items?page=2>; rel=nextpage" ), 2 ) );
+        assertNull( resolver.getNextPageUrl( PAGE_URL, links( "</items?page=0>; rel=\"prev\"; title=\"next\"" ), 2 ) );
+    }
+
+    @Test
+    public void testPageParameter( )
+    {
+        NextPageResolver resolver = NextPageResolver.pageParameter( "page", 1 );
+
+        assertEquals( "http://localhost/items?page=2", resolver.getNextPageUrl( PAGE_URL, links( ), 2 ) );
+        assertNull( resolver.getNextPageUrl( PAGE_URL, links( ), 0 ) );
+    }
+
+    /**
+     * Build the headers of a response
+     * 
+     * @param strLinks
+     *            the values of the Link headers
+     * @return the headers
+     */
+    private static HttpResponseHeaders links( String... strLinks )
+    {
+        Header [ ] headers = new Header [ strLinks.length];
+        for ( int i = 0; i < strLinks.length; i++ )
+        {
+            headers [i] = new BasicHeader( "Link", strLinks [i] );
+        }
+
+        return HttpResponseHeaders.of( headers );
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import fr.paris.lutece.util.signrequest.RequestAuthenticator;
+
+public class SecurityInformationsCacheTest
+{
+    @Test
+    public void testEntryIsReusedUntilItExpires( )
+    {
+        MutableClock clock = new MutableClock( );
+        AtomicInteger nComputations = new AtomicInteger( );
+        RequestAuthenticator authenticator = countingAuthenticator( nComputations );
+        SecurityInformationsCache cache = new SecurityInformationsCache( 1000, clock );
+
+        cache.getSecurityInformations( authenticator, Arrays.asList( "a", "b" ) );
+        clock.advance( Duration.ofMillis( 999 ) );
+        cache.getSecurityInformations( authenticator, Arrays.asList( "a", "b" ) );
+        assertEquals( 1, nComputations.get( ) );
+
+        clock.advance( Duration.ofMillis( 1 ) );
+        cache.getSecurityInformations( authenticator, Arrays.asList( "a", "b" ) );
+        assertEquals( 2, nComputations.get( ) );
+    }
+
+    @Test
+    public void testEntriesAreKeyedByAuthenticatorAndElements( )
+    {
+        AtomicInteger nComputations = new AtomicInteger( );
+        RequestAuthenticator authenticator = countingAuthenticator( nComputations );
+        SecurityInformationsCache cache = new SecurityInformationsCache( 60000, new MutableClock( ) );
+
+        List<String> listElements = new ArrayList<>( Arrays.asList( "a" ) );
+        cache.getSecurityInformations( authenticator, listElements );
+        // the key holds a copy of the elements
+        listElements.add( "b" );
+        cache.getSecurityInformations( authenticator, Arrays.asList( "a" ) );
+        assertEquals( 1, nComputations.get( ) );
+
+        cache.getSecurityInformations( authenticator, listElements );
+        cache.getSecurityInformations( authenticator, null );
+        cache.getSecurityInformations( countingAuthenticator( nComputations ), Arrays.asList( "a" ) );
+        assertEquals( 4, nComputations.get( ) );
+    }
+
+    /**
+     * Creates an authenticator counting the computations of the security informations
+     * 
+     * @param nComputations
+     *            the counter
+     * @return the authenticator
+     */
+    private static RequestAuthenticator countingAuthenticator( AtomicInteger nComputations )
+    {
+        return (RequestAuthenticator) Proxy.newProxyInstance( RequestAuthenticator.class.getClassLoader( ), new Class<?> [ ] {
+                RequestAuthenticator.class
+        }, ( proxy, method, args ) -> {
+            if ( "getSecurityInformations".equals( method.getName( ) ) )
+            {
+                nComputations.incrementAndGet( );
+            }
+            return null;
+        } );
+    }
+
+    /**
+     * Clock moved forward by the tests
+     */
+    private static final class MutableClock extends Clock
+    {
+        private volatile Instant _instant = Instant.parse( "2025-01-01T00:00:00Z" );
+
+        @Override
+        public ZoneId getZone( )
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone( ZoneId zone )
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant( )
+        {
+            return _instant;
+        }
+
+        private void advance( Duration duration )
+        {
+            _instant = _instant.plus( duration );
+        }
+    }
+}
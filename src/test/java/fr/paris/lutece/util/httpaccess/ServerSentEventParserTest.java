@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ServerSentEventParserTest
+{
+    @Test
+    public void testParseChunkedStream( ) throws IOException
+    {
+        List<ServerSentEvent> listEvents = new ArrayList<>( );
+        ServerSentEventParser parser = new ServerSentEventParser( null, listEvents::add );
+
+        parse( parser, ": heartbeat\nretry: 5000\nid: 1\ndata: first" );
+        assertEquals( 0, listEvents.size( ) );
+        parse( parser, "\r\n\r\nevent: update\ndata: line 1\ndata:line 2\n\nid: 2\n" );
+        parse( parser, "data\n\n" );
+
+        assertEquals( 3, listEvents.size( ) );
+        assertEquals( "1", listEvents.get( 0 ).getId( ) );
+        assertEquals( ServerSentEvent.DEFAULT_EVENT_TYPE, listEvents.get( 0 ).getEventType( ) );
+        assertEquals( "first", listEvents.get( 0 ).getData( ) );
+        assertEquals( "update", listEvents.get( 1 ).getEventType( ) );
+        assertEquals( "line 1\nline 2", listEvents.get( 1 ).getData( ) );
+        assertEquals( "1", listEvents.get( 1 ).getId( ) );
+        assertEquals( "", listEvents.get( 2 ).getData( ) );
+        assertEquals( "2", parser.getLastEventId( ) );
+        assertEquals( Long.valueOf( 5000 ), parser.getRetry( ) );
+    }
+
+    @Test
+    public void testEventWithoutDataIsIgnored( ) throws IOException
+    {
+        List<ServerSentEvent> listEvents = new ArrayList<>( );
+        ServerSentEventParser parser = new ServerSentEventParser( "10", listEvents::add );
+
+        parse( parser, "event: ping\n\nretry: abc\n\n" );
+
+        assertEquals( 0, listEvents.size( ) );
+        assertEquals( "10", parser.getLastEventId( ) );
+        assertNull( parser.getRetry( ) );
+    }
+
+    @Test
+    public void testLineTooLarge( ) throws IOException
+    {
+        List<ServerSentEvent> listEvents = new ArrayList<>( );
+        ServerSentEventParser parser = new ServerSentEventParser( null, listEvents::add, 16, 1024 );
+
+        parse( parser, "data: 0123456789\n\n" );
+        try
+        {
+            parse( parser, "data: 0123456789abcdef" );
+            fail( "A line larger than the maximum size should fail the stream" );
+        }
+        catch( ServerSentEventParser.EventTooLargeException e )
+        {
+            assertTrue( e.getMessage( ).contains( "16 bytes" ) );
+        }
+        assertEquals( 1, listEvents.size( ) );
+    }
+
+    @Test
+    public void testEventTooLarge( ) throws IOException
+    {
+        List<ServerSentEvent> listEvents = new ArrayList<>( );
+        ServerSentEventParser parser = new ServerSentEventParser( null, listEvents::add, 1024, 10 );
+
+        parse( parser, "data: 01234\ndata: 5678\n\n" );
+        try
+        {
+            parse( parser, "data: 01234\ndata: 56789\n" );
+            fail( "An event larger than the maximum size should fail the stream" );
+        }
+        catch( ServerSentEventParser.EventTooLargeException e )
+        {
+            assertTrue( e.getMessage( ).contains( "10 characters" ) );
+        }
+        assertEquals( 1, listEvents.size( ) );
+        assertEquals( "01234\n5678", listEvents.get( 0 ).getData( ) );
+    }
+
+    private static void parse( ServerSentEventParser parser, String strChunk ) throws IOException
+    {
+        parser.parse( ByteBuffer.wrap( strChunk.getBytes( StandardCharsets.UTF_8 ) ) );
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fr.paris.lutece.portal.service.util.AppPathService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class ServerSentEventsClientTest
+{
+    private MockWebServer _mockWebServer;
+    private HttpAccessService _httpAccessService;
+
+    @BeforeClass
+    public static void initLutece( )
+    {
+        // fake initialization
+        try
+        {
+            AppPathService.init( "" );
+            AppPropertiesService.init( "" );
+        }
+        catch( Exception e )
+        {
+            // ignore
+        }
+    }
+
+    @Before
+    public void init( ) throws IOException
+    {
+        _mockWebServer = new MockWebServer( );
+        _mockWebServer.start( );
+        _httpAccessService = new HttpAccessService( new HttpClientConfiguration( ) );
+    }
+
+    @After
+    public void stop( ) throws IOException
+    {
+        _httpAccessService.close( );
+        _mockWebServer.shutdown( );
+    }
+
+    @Test
+    public void testInvalidResponseIsNotReconnected( ) throws Exception
+    {
+        _mockWebServer.enqueue( new MockResponse( ).setResponseCode( 503 ) );
+        _mockWebServer.enqueue( new MockResponse( ).addHeader( "Content-Type", "text/event-stream" ).setBody( "data: too late\n\n" ) );
+        CountDownLatch latchError = new CountDownLatch( 1 );
+
+        try ( ServerSentEventsClient client = new ServerSentEventsClient( _httpAccessService ) )
+        {
+            ServerSentEventsSubscription subscription = client.subscribe( _mockWebServer.url( "/events" ).toString( ), new ServerSentEventListener( )
+            {
+                @Override
+                public void onEvent( ServerSentEvent event )
+                {
+                    // not expected
+                }
+
+                @Override
+                public void onError( Exception exception )
+                {
+                    latchError.countDown( );
+                }
+            } );
+
+            assertTrue( latchError.await( 10, TimeUnit.SECONDS ) );
+            assertTrue( subscription.isClosed( ) );
+            assertEquals( 1, _mockWebServer.getRequestCount( ) );
+        }
+    }
+
+    @Test
+    public void testEventTooLargeClosesTheSubscription( ) throws Exception
+    {
+        _mockWebServer.enqueue( new MockResponse( ).addHeader( "Content-Type", "text/event-stream" ).setBody( "data: 0123456789abcdef\n\n" ) );
+        _mockWebServer.enqueue( new MockResponse( ).addHeader( "Content-Type", "text/event-stream" ).setBody( "data: too late\n\n" ) );
+        CountDownLatch latchError = new CountDownLatch( 1 );
+
+        try ( ServerSentEventsClient client = new ServerSentEventsClient( _httpAccessService, 1, 10, 10, 1024, 10 ) )
+        {
+            ServerSentEventsSubscription subscription = client.subscribe( _mockWebServer.url( "/events" ).toString( ), new ServerSentEventListener( )
+            {
+                @Override
+                public void onEvent( ServerSentEvent event )
+                {
+                    // not expected
+                }
+
+                @Override
+                public void onError( Exception exception )
+                {
+                    latchError.countDown( );
+                }
+            } );
+
+            assertTrue( latchError.await( 10, TimeUnit.SECONDS ) );
+            assertTrue( subscription.isClosed( ) );
+            assertEquals( 1, _mockWebServer.getRequestCount( ) );
+        }
+    }
+
+    @Test
+    public void testSlowListenerDropsEvents( ) throws Exception
+    {
+        StringBuilder sbEvents = new StringBuilder( "retry: 60000\n" );
+        for ( int i = 0; i < 10; i++ )
+        {
+            sbEvents.append( "id: " ).append( i ).append( "\ndata: event " ).append( i ).append( "\n\n" );
+        }
+        _mockWebServer.enqueue( new MockResponse( ).addHeader( "Content-Type", "text/event-stream" ).setBody( sbEvents.toString( ) ) );
+        CountDownLatch latchRelease = new CountDownLatch( 1 );
+
+        try ( ServerSentEventsClient client = new ServerSentEventsClient( _httpAccessService, 1, 10, 2 ) )
+        {
+            ServerSentEventsSubscription subscription = client.subscribe( _mockWebServer.url( "/events" ).toString( ), event -> {
+                try
+                {
+                    latchRelease.await( 10, TimeUnit.SECONDS );
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread( ).interrupt( );
+                }
+            } );
+
+            long lTimeout = System.currentTimeMillis( ) + 10000;
+            while ( !"9".equals( subscription.getLastEventId( ) ) && System.currentTimeMillis( ) < lTimeout )
+            {
+                Thread.sleep( 10 );
+            }
+            latchRelease.countDown( );
+
+            assertEquals( "9", subscription.getLastEventId( ) );
+            assertTrue( subscription.getDroppedEvents( ) >= 7 );
+            subscription.close( );
+        }
+    }
+}
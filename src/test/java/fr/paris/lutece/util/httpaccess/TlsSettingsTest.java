@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2025, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.util.httpaccess;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import fr.paris.lutece.portal.service.util.AppPathService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+public class TlsSettingsTest
+{
+    private static final String TRUSTSTORE_PASSWORD = "secret";
+
+    @Rule
+    public TemporaryFolder _folder = new TemporaryFolder( );
+
+    @BeforeClass
+    public static void initLutece( )
+    {
+        // fake initialization
+        try
+        {
+            AppPathService.init( "" );
+            AppPropertiesService.init( "" );
+        }
+        catch( Exception e )
+        {
+            // ignore
+        }
+    }
+
+    @Test
+    public void testProtocolsAndCipherSuitesAreSplitAndTrimmed( )
+    {
+        assertArrayEquals( new String [ ] {
+                "TLSv1.3", "TLSv1.2"
+        }, HttpAccessService.split( " TLSv1.3 , TLSv1.2 " ) );
+        assertArrayEquals( new String [ ] {
+                "TLS_AES_128_GCM_SHA256", "TLS_AES_256_GCM_SHA384"
+        }, HttpAccessService.split( "TLS_AES_128_GCM_SHA256,,TLS_AES_256_GCM_SHA384," ) );
+    }
+
+    @Test
+    public void testBlankProtocolsKeepTheDefaults( )
+    {
+        assertNull( HttpAccessService.split( null ) );
+        assertNull( HttpAccessService.split( "" ) );
+        assertNull( HttpAccessService.split( " , " ) );
+    }
+
+    @Test
+    public void testTrustStoreIsLoaded( ) throws Exception
+    {
+        X509Certificate certificate = getDefaultTrustedCertificate( );
+        HttpClientConfiguration configuration = trustStoreConfiguration( writeTrustStore( certificate ), TRUSTSTORE_PASSWORD );
+
+        KeyStore trustStore = HttpAccessService.loadTrustStore( configuration );
+
+        assertNotNull( trustStore );
+        assertEquals( certificate, trustStore.getCertificate( "ca" ) );
+        assertNotNull( HttpAccessService.buildSslContext( configuration ) );
+    }
+
+    @Test
+    public void testNoTrustStore( ) throws Exception
+    {
+        assertNull( HttpAccessService.loadTrustStore( new HttpClientConfiguration( ) ) );
+    }
+
+    @Test( expected = IOException.class )
+    public void testTrustStoreWithWrongPassword( ) throws Exception
+    {
+        HttpAccessService.loadTrustStore( trustStoreConfiguration( writeTrustStore( getDefaultTrustedCertificate( ) ), "wrong" ) );
+    }
+
+    @Test( expected = IOException.class )
+    public void testMissingTrustStore( ) throws Exception
+    {
+        HttpAccessService.loadTrustStore( trustStoreConfiguration( new File( _folder.getRoot( ), "missing.p12" ), TRUSTSTORE_PASSWORD ) );
+    }
+
+    @Test
+    public void testUnreadableTrustStoreFallsBackToTheDefaults( ) throws Exception
+    {
+        HttpClientConfiguration configuration = trustStoreConfiguration( writeTrustStore( getDefaultTrustedCertificate( ) ), "wrong" );
+
+        assertNotNull( HttpAccessService.buildSslContext( configuration ) );
+    }
+
+    private HttpClientConfiguration trustStoreConfiguration( File trustStore, String strPassword )
+    {
+        HttpClientConfiguration configuration = new HttpClientConfiguration( );
+        configuration.setTrustStore( trustStore.getAbsolutePath( ) );
+        configuration.setTrustStorePassword( strPassword );
+        configuration.setTrustStoreType( "PKCS12" );
+
+        return configuration;
+    }
+
+    private File writeTrustStore( X509Certificate certificate ) throws Exception
+    {
+        KeyStore trustStore = KeyStore.getInstance( "PKCS12" );
+        trustStore.load( null, null );
+        trustStore.setCertificateEntry( "ca", certificate );
+
+        File file = _folder.newFile( "truststore.p12" );
+        try ( OutputStream out = new FileOutputStream( file ) )
+        {
+            trustStore.store( out, TRUSTSTORE_PASSWORD.toCharArray( ) );
+        }
+
+        return file;
+    }
+
+    private static X509Certificate getDefaultTrustedCertificate( ) throws Exception
+    {
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance( TrustManagerFactory.getDefaultAlgorithm( ) );
+        trustManagerFactory.init( (KeyStore) null );
+
+        for ( TrustManager trustManager : trustManagerFactory.getTrustManagers( ) )
+        {
+            if ( trustManager instanceof X509TrustManager && ( (X509TrustManager) trustManager ).getAcceptedIssuers( ).length > 0 )
+            {
+                return ( (X509TrustManager) trustManager ).getAcceptedIssuers( ) [0];
+            }
+        }
+
+        throw new AssertionError( "No default trusted certificate" );
+    }
+}